@@ -0,0 +1,109 @@
+package com.example.frauddetectionsystem.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.domain.Transaction;
+import com.example.frauddetectionsystem.dto.RuleEvaluationResult;
+import com.example.frauddetectionsystem.engine.RuleCompiler;
+import com.example.frauddetectionsystem.engine.RuleSnapshot;
+import com.example.frauddetectionsystem.metrics.FraudDetectionMetrics;
+import com.example.frauddetectionsystem.service.RuleEngineService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the rule engine on synthetic rule sets (see {@link SyntheticRules}):
+ * single-transaction evaluation through {@link RuleEngineService}, batch evaluation, and
+ * a full snapshot rebuild. Run with the {@code benchmark} Maven profile, which adds the
+ * GC profiler so every result comes with its allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class RuleEngineBenchmark {
+
+    private static final int TRANSACTION_COUNT = 4096;
+    private static final int BATCH_SIZE = 256;
+
+    @Param({"100", "1000", "10000", "40000"})
+    private int ruleCount;
+
+    private List<FraudRule> rules;
+    private RuleCompiler ruleCompiler;
+    private RuleEngineService ruleEngineService;
+    private ForkJoinPool forkJoinPool;
+    private Transaction[] transactions;
+    private List<Transaction> batch;
+    private int next;
+    private long version;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Spring Boot's logging setup does not run here; keep logback's default DEBUG console quiet
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(ch.qos.logback.classic.Level.WARN);
+
+        rules = SyntheticRules.rules(ruleCount, 42);
+        transactions = SyntheticRules.transactions(TRANSACTION_COUNT, 7);
+        batch = Arrays.asList(Arrays.copyOf(transactions, BATCH_SIZE));
+
+        FraudDetectionProperties properties = new FraudDetectionProperties();
+        forkJoinPool = new ForkJoinPool(properties.getEngine().getParallelism());
+        ruleCompiler = new RuleCompiler();
+        ruleEngineService = new RuleEngineService(
+            SyntheticRules.snapshotService(rules, ruleCompiler), properties, Runnable::run, forkJoinPool,
+            new FraudDetectionMetrics(new SimpleMeterRegistry(), properties));
+        // Load the snapshot outside the measurement
+        ruleEngineService.evaluateRules(transactions[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        forkJoinPool.shutdown();
+    }
+
+    @Benchmark
+    public RuleEvaluationResult evaluateSingle() {
+        Transaction transaction = transactions[next];
+        next = (next + 1) & (TRANSACTION_COUNT - 1);
+        return ruleEngineService.evaluateRules(transaction);
+    }
+
+    /**
+     * Score is batches per second; multiply by {@value #BATCH_SIZE} for transactions. The
+     * GC profiler only sees the benchmark thread, not the fork/join workers doing the
+     * evaluation, so the allocation rate here is the batching overhead alone.
+     */
+    @Benchmark
+    public List<RuleEvaluationResult> evaluateBatch() {
+        return ruleEngineService.evaluateBatch(batch);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public RuleSnapshot rebuildSnapshot() {
+        return ruleCompiler.compile(rules, ++version);
+    }
+}
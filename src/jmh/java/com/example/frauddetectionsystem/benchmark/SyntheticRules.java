@@ -0,0 +1,133 @@
+package com.example.frauddetectionsystem.benchmark;
+
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.domain.Transaction;
+import com.example.frauddetectionsystem.engine.RuleCompiler;
+import com.example.frauddetectionsystem.repository.FraudRuleChangeRepository;
+import com.example.frauddetectionsystem.repository.FraudRuleRepository;
+import com.example.frauddetectionsystem.service.RuleSnapshotService;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+/**
+ * Reproducible rule sets and transactions for the benchmarks. The mix follows what a
+ * production rule set mostly consists of: blocked single addresses and networks, some
+ * prefix and substring patterns, a few regular expressions, and amount limits.
+ */
+final class SyntheticRules {
+
+    private static final FraudRule.ActionType[] ACTIONS = {
+        FraudRule.ActionType.REJECT, FraudRule.ActionType.HOLD, FraudRule.ActionType.FLAG_FOR_REVIEW
+    };
+    private static final String[] MESSAGES = {
+        "IP address is blocked", "Transaction amount exceeds limit", "Requires manual review"
+    };
+
+    private SyntheticRules() {
+    }
+
+    /**
+     * @return {@code count} active rules: 30% AMOUNT_THRESHOLD, 70% IP_BLACKLIST split into
+     *         EQUALS 40%, CIDR 20%, STARTS_WITH 25%, CONTAINS 10% and REGEX 5%
+     */
+    static List<FraudRule> rules(int count, long seed) {
+        Random random = new Random(seed);
+        List<FraudRule> rules = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            FraudRule rule = new FraudRule();
+            rule.setId((long) i + 1);
+            rule.setRuleName("RULE_" + i);
+            rule.setPriority(random.nextInt(count) + 1);
+            rule.setIsActive(true);
+            int action = random.nextInt(ACTIONS.length);
+            rule.setActionType(ACTIONS[action]);
+            rule.setActionMessage(MESSAGES[action]);
+            if (random.nextInt(100) < 30) {
+                amountRule(rule, random);
+            } else {
+                ipRule(rule, random);
+            }
+            rules.add(rule);
+        }
+        return rules;
+    }
+
+    private static void amountRule(FraudRule rule, Random random) {
+        rule.setRuleType(FraudRule.RuleType.AMOUNT_THRESHOLD);
+        if (random.nextInt(100) < 5) {
+            rule.setRuleCondition("LESS_THAN");
+            rule.setThresholdValue(new BigDecimal(random.nextInt(100)).movePointLeft(2));
+        } else {
+            rule.setRuleCondition(random.nextBoolean() ? "GREATER_THAN" : "GREATER_THAN_OR_EQUAL");
+            rule.setThresholdValue(BigDecimal.valueOf(10_000L + random.nextInt(990_000)));
+        }
+    }
+
+    private static void ipRule(FraudRule rule, Random random) {
+        rule.setRuleType(FraudRule.RuleType.IP_BLACKLIST);
+        int kind = random.nextInt(100);
+        if (kind < 40) {
+            rule.setRuleCondition("EQUALS");
+            rule.setStringValue(address(random));
+        } else if (kind < 60) {
+            rule.setRuleCondition("CIDR");
+            rule.setStringValue(octet(random) + "." + octet(random) + "." + octet(random) + ".0/24");
+        } else if (kind < 85) {
+            rule.setRuleCondition("STARTS_WITH");
+            rule.setStringValue(octet(random) + "." + octet(random) + "." + octet(random) + ".");
+        } else if (kind < 95) {
+            rule.setRuleCondition("CONTAINS");
+            rule.setStringValue("." + octet(random) + "." + octet(random) + ".");
+        } else {
+            rule.setRuleCondition("REGEX");
+            rule.setStringValue(octet(random) + "\\." + octet(random) + "\\.[0-9]+\\.[0-9]+");
+        }
+    }
+
+    /**
+     * @return transactions with amounts mostly below the amount limits and random addresses,
+     *         so most are approved after every applicable rule was considered
+     */
+    static Transaction[] transactions(int count, long seed) {
+        Random random = new Random(seed);
+        Transaction[] transactions = new Transaction[count];
+        for (int i = 0; i < count; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId("TXN-" + i);
+            transaction.setAmount(BigDecimal.valueOf(100 + random.nextInt(2_000_000), 2));
+            transaction.setIpAddress(address(random));
+            transactions[i] = transaction;
+        }
+        return transactions;
+    }
+
+    /**
+     * @return a snapshot service serving {@code rules} without a database
+     */
+    static RuleSnapshotService snapshotService(List<FraudRule> rules, RuleCompiler ruleCompiler) {
+        FraudRuleRepository ruleRepository = stub(FraudRuleRepository.class, (method, args) ->
+            method.equals("findActiveRulesOrderedByPriority") ? rules : null);
+        FraudRuleChangeRepository changeRepository = stub(FraudRuleChangeRepository.class, (method, args) ->
+            method.equals("findLatestChangeId") ? 0L : null);
+        return new RuleSnapshotService(ruleRepository, changeRepository, ruleCompiler, new FraudDetectionProperties());
+    }
+
+    private static <T> T stub(Class<T> type, BiFunction<String, Object[], Object> answer) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+            (proxy, method, args) -> answer.apply(method.getName(), args)));
+    }
+
+    private static String address(Random random) {
+        return octet(random) + "." + octet(random) + "." + octet(random) + "." + octet(random);
+    }
+
+    private static int octet(Random random) {
+        return random.nextInt(256);
+    }
+}
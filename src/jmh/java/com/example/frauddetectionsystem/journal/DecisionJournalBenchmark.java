@@ -0,0 +1,99 @@
+package com.example.frauddetectionsystem.journal;
+
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.domain.Transaction;
+import com.example.frauddetectionsystem.dto.RuleEvaluationResult;
+import com.example.frauddetectionsystem.dto.TransactionStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of journaling one decision, including segment rolls, from one and from four
+ * threads. Each iteration writes to a fresh directory that is deleted afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class DecisionJournalBenchmark {
+
+    private static final int TRANSACTION_COUNT = 1024;
+
+    private final Transaction[] transactions = new Transaction[TRANSACTION_COUNT];
+    private final RuleEvaluationResult result = new RuleEvaluationResult(
+        true, FraudRule.ActionType.HOLD, "Requires manual review", "AMOUNT_HOLD", 2, 1L);
+    private Path directory;
+    private DecisionJournal journal;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int i = 0; i < TRANSACTION_COUNT; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId("TXN-" + i);
+            transaction.setAmount(BigDecimal.valueOf(100_000 + i, 2));
+            transaction.setIpAddress("192.168." + (i >> 8) + "." + (i & 0xFF));
+            transaction.setStatus(TransactionStatus.HOLD);
+            transaction.setStatusReason("Requires manual review");
+            transactions[i] = transaction;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void openJournal() throws IOException {
+        directory = Files.createTempDirectory("decision-journal");
+        FraudDetectionProperties properties = new FraudDetectionProperties();
+        properties.getJournal().setEnabled(true);
+        properties.getJournal().setDirectory(directory);
+        journal = new DecisionJournal(properties);
+        journal.open();
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteJournal() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public void append(Cursor cursor) {
+        journal.append(transactions[cursor.next], result, 12_345);
+        cursor.next = (cursor.next + 1) & (TRANSACTION_COUNT - 1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void appendContended(Cursor cursor) {
+        append(cursor);
+    }
+}
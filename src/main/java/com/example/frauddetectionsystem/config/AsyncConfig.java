@@ -1,47 +1,108 @@
 package com.example.frauddetectionsystem.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 @Configuration
 @EnableAsync
+@Slf4j
 public class AsyncConfig {
-    
+
+    private final FraudDetectionProperties.Execution execution;
+
+    public AsyncConfig(FraudDetectionProperties properties) {
+        this.execution = properties.getExecution();
+        if (execution.getMode() == FraudDetectionProperties.ExecutionMode.VIRTUAL && !execution.useVirtualThreads()) {
+            log.warn("fraud.execution.mode=VIRTUAL requires JDK 21+, running on {}; using pooled executors",
+                Runtime.version());
+        }
+    }
+
     @Bean(name = "fraudDetectionExecutor")
     public Executor fraudDetectionExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        
+        if (execution.useVirtualThreads()) {
+            return new VirtualThreadTaskExecutor("FraudDetection-");
+        }
+
         // Configure thread pool for handling high volume of fraud detection requests
-        executor.setCorePoolSize(10);
-        executor.setMaxPoolSize(50);
-        executor.setQueueCapacity(1000);
-        executor.setThreadNamePrefix("FraudDetection-");
-        executor.setKeepAliveSeconds(60);
-        
-        // Rejection policy - caller runs to prevent dropping requests
-        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
-        
-        executor.initialize();
-        return executor;
+        return pooledExecutor(execution.getFraudDetectionPool(), "FraudDetection-");
     }
-    
+
     @Bean(name = "ruleEvaluationExecutor")
     public Executor ruleEvaluationExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        
+        if (execution.useVirtualThreads()) {
+            return new VirtualThreadTaskExecutor("RuleEval-");
+        }
+
         // Dedicated executor for rule evaluation
-        executor.setCorePoolSize(20);
-        executor.setMaxPoolSize(100);
-        executor.setQueueCapacity(2000);
-        executor.setThreadNamePrefix("RuleEval-");
-        executor.setKeepAliveSeconds(30);
-        
+        return pooledExecutor(execution.getRuleEvaluationPool(), "RuleEval-");
+    }
+
+    @Bean(name = "ruleEvaluationForkJoinPool", destroyMethod = "shutdown")
+    public ForkJoinPool ruleEvaluationForkJoinPool(FraudDetectionProperties properties) {
+        // Work-stealing pool for partitioned evaluation of very large rule sets
+        return new ForkJoinPool(properties.getEngine().getParallelism());
+    }
+
+    /**
+     * Queue depth, active threads and pool size of the executors as {@code executor.*} meters,
+     * tagged with the bean name. Virtual-thread executors have no pool and are skipped.
+     */
+    @Bean
+    public MeterBinder executorMetrics(
+            @Qualifier("fraudDetectionExecutor") Executor fraudDetectionExecutor,
+            @Qualifier("ruleEvaluationExecutor") Executor ruleEvaluationExecutor,
+            @Qualifier("ruleEvaluationForkJoinPool") ForkJoinPool ruleEvaluationForkJoinPool) {
+        return registry -> {
+            bindPool(registry, fraudDetectionExecutor, "fraudDetectionExecutor");
+            bindPool(registry, ruleEvaluationExecutor, "ruleEvaluationExecutor");
+            new ExecutorServiceMetrics(ruleEvaluationForkJoinPool, "ruleEvaluationForkJoinPool", Tags.empty())
+                .bindTo(registry);
+        };
+    }
+
+    private static void bindPool(MeterRegistry registry, Executor executor, String name) {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            new ExecutorServiceMetrics(pool.getThreadPoolExecutor(), name, Tags.empty()).bindTo(registry);
+        }
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "fraud.execution.mode", havingValue = "VIRTUAL")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        // Tomcat request handling on virtual threads, so the whole check runs on one virtual thread
+        return protocolHandler -> {
+            if (execution.useVirtualThreads()) {
+                protocolHandler.setExecutor(new VirtualThreadTaskExecutor("tomcat-handler-"));
+            }
+        };
+    }
+
+    private static ThreadPoolTaskExecutor pooledExecutor(FraudDetectionProperties.Pool pool, String threadNamePrefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pool.getCoreSize());
+        executor.setMaxPoolSize(pool.getMaxSize());
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setKeepAliveSeconds((int) pool.getKeepAlive().toSeconds());
+
+        // Rejection policy - caller runs to prevent dropping requests
         executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
-        
+
         executor.initialize();
         return executor;
     }
@@ -17,14 +17,14 @@ public class CacheConfig {
     public CacheManager cacheManager() {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager();
         
-        // Configure cache for active rules - optimized for 30K-40K rules
+        // Recent transaction IDs; active rules are held by RuleSnapshotService
         cacheManager.setCaffeine(Caffeine.newBuilder()
-            .maximumSize(50000) // Allow for growth beyond 40K rules
-            .expireAfterWrite(5, TimeUnit.MINUTES) // Refresh rules every 5 minutes
+            .maximumSize(50000) // Recently stored IDs; older ones are answered by the Bloom filter and database
+            .expireAfterWrite(5, TimeUnit.MINUTES)
             .recordStats()); // Enable cache statistics for monitoring
         
         // Register cache names
-        cacheManager.setCacheNames(java.util.List.of("activeRules", "rulesByType", "transactionCache"));
+        cacheManager.setCacheNames(java.util.List.of("transactionCache"));
         
         return cacheManager;
     }
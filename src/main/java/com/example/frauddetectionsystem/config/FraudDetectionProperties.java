@@ -0,0 +1,233 @@
+package com.example.frauddetectionsystem.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Tunables for the fraud detection pipeline, bound from {@code fraud.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "fraud")
+public class FraudDetectionProperties {
+
+    private Engine engine = new Engine();
+
+    private Rules rules = new Rules();
+
+    private Execution execution = new Execution();
+
+    private Check check = new Check();
+
+    private Dedup dedup = new Dedup();
+
+    private Persistence persistence = new Persistence();
+
+    private Metrics metrics = new Metrics();
+
+    private Journal journal = new Journal();
+
+    @Data
+    public static class Engine {
+        /**
+         * Residual (non-indexed) rule count at or above which a snapshot is evaluated
+         * in parallel chunks instead of sequentially.
+         */
+        private int parallelThreshold = 2000;
+
+        /**
+         * Number of rules evaluated by one fork/join leaf task.
+         */
+        private int parallelChunkSize = 256;
+
+        /**
+         * Parallelism of the fork/join pool used for partitioned evaluation.
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    @Data
+    public static class Rules {
+        /**
+         * How often the rule snapshot is rebuilt in the background to pick up changes not
+         * made through the rule management API.
+         */
+        private Duration refreshInterval = Duration.ofMinutes(5);
+
+        /**
+         * How often the rule change log is polled for changes made on other instances.
+         */
+        private Duration changePollInterval = Duration.ofSeconds(1);
+
+        /**
+         * How long a missing change log ID is waited for before it is taken as rolled back.
+         * Change IDs are allocated before commit, so a later ID can become visible first.
+         */
+        private Duration changeGapTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Change log entries older than this are deleted by the periodic full rebuild.
+         */
+        private Duration changeRetention = Duration.ofDays(1);
+
+        /**
+         * Rules written per JDBC batch (and transaction) by the bulk import.
+         */
+        private int importBatchSize = 1000;
+
+        /**
+         * Rules read per keyset page by the bulk export.
+         */
+        private int exportPageSize = 1000;
+    }
+
+    @Data
+    public static class Execution {
+        /**
+         * POOLED runs rule evaluation on bounded platform-thread pools; VIRTUAL runs
+         * request handling, rule evaluation and persistence on virtual threads (JDK 21+).
+         */
+        private ExecutionMode mode = ExecutionMode.POOLED;
+
+        private Pool fraudDetectionPool = new Pool(10, 50, 1000, Duration.ofSeconds(60));
+
+        private Pool ruleEvaluationPool = new Pool(20, 100, 2000, Duration.ofSeconds(30));
+
+        /**
+         * @return true if VIRTUAL mode is selected and the running JDK supports virtual threads
+         */
+        public boolean useVirtualThreads() {
+            return mode == ExecutionMode.VIRTUAL && Runtime.version().feature() >= 21;
+        }
+    }
+
+    @Data
+    public static class Check {
+        /**
+         * Maximum time an asynchronous fraud check may take before the transaction is rejected.
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Dedup {
+        /**
+         * Initial capacity of the transaction ID Bloom filter; it grows in stages beyond this.
+         */
+        private long expectedInsertions = 1_000_000;
+
+        /**
+         * Target false-positive rate of the Bloom filter across all stages.
+         */
+        private double falsePositiveRate = 0.001;
+
+        /**
+         * JDBC fetch size used when loading stored transaction IDs at startup.
+         */
+        private int rebuildFetchSize = 10_000;
+    }
+
+    @Data
+    public static class Persistence {
+        /**
+         * SYNC saves each decision before the response is returned; WRITE_BEHIND queues it
+         * and a background writer inserts queued decisions in JDBC batches.
+         */
+        private PersistenceMode mode = PersistenceMode.SYNC;
+
+        /**
+         * Maximum number of decisions waiting to be written.
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * Maximum number of rows per JDBC batch.
+         */
+        private int batchSize = 500;
+
+        /**
+         * How long the writer waits for more decisions before flushing a partial batch.
+         */
+        private Duration flushInterval = Duration.ofMillis(50);
+
+        /**
+         * How long a request waits for queue space before writing its decision itself.
+         */
+        private Duration offerTimeout = Duration.ofMillis(100);
+
+        /**
+         * Delay before the writer retries a batch that failed for a reason other than a
+         * duplicate row; doubled on each further failure up to {@code max-retry-backoff}.
+         */
+        private Duration retryBackoff = Duration.ofMillis(100);
+
+        /**
+         * Upper bound of the delay between retries of a failed batch.
+         */
+        private Duration maxRetryBackoff = Duration.ofSeconds(5);
+
+        /**
+         * Retries of a failed batch before its rows are moved to the fallback file.
+         */
+        private int maxRetries = 10;
+
+        /**
+         * File receiving queued decisions that could not be written - after the last retry
+         * or at shutdown - as JSON lines; they are queued again on the next start.
+         */
+        private Path fallbackFile = Path.of("write-behind-fallback.jsonl");
+    }
+
+    @Data
+    public static class Metrics {
+        /**
+         * Number of rules that get their own {@code fraud.rule.hits} series; hits of any
+         * further rules are counted together, keeping the number of series bounded.
+         */
+        private int maxTaggedRules = 100;
+    }
+
+    @Data
+    public static class Journal {
+        /**
+         * Whether every rule decision is appended to the decision journal.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Directory holding the journal segment files.
+         */
+        private Path directory = Path.of("journal");
+
+        /**
+         * Size of each memory-mapped segment file; a full segment is closed and the next
+         * one started. Between 1MB and 1GB.
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Pool {
+        private int coreSize;
+        private int maxSize;
+        private int queueCapacity;
+        private Duration keepAlive;
+    }
+
+    public enum ExecutionMode {
+        POOLED,
+        VIRTUAL
+    }
+
+    public enum PersistenceMode {
+        SYNC,
+        WRITE_BEHIND
+    }
+}
@@ -5,14 +5,21 @@ import com.example.frauddetectionsystem.dto.FraudDetectionResult;
 import com.example.frauddetectionsystem.dto.request.TransactionRequest;
 import com.example.frauddetectionsystem.service.FraudDetectionService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/v1/fraud-check")
 public class FraudDetectionController {
 
+    static final int MAX_BATCH_SIZE = 1000;
+
     private final FraudDetectionService fraudDetectionService;
 
     @Autowired
@@ -28,4 +35,25 @@ public class FraudDetectionController {
         FraudDetectionResult result = fraudDetectionService.checkTransaction(transaction);
         return ResponseEntity.ok(result);
     }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<FraudDetectionResult>> checkFraudBatch(
+            @RequestBody @NotEmpty(message = "Batch must contain at least one transaction")
+            @Size(max = MAX_BATCH_SIZE, message = "Batch must not contain more than " + MAX_BATCH_SIZE + " transactions")
+            List<@Valid TransactionRequest> requests) {
+        
+        List<Transaction> transactions = requests.stream().map(Transaction::fromRequest).toList();
+        List<FraudDetectionResult> results = fraudDetectionService.checkTransactions(transactions);
+        return ResponseEntity.ok(results);
+    }
+
+    @PostMapping("/async")
+    public CompletableFuture<ResponseEntity<FraudDetectionResult>> checkFraudAsync(
+            @Valid @RequestBody TransactionRequest request) {
+        
+        // Container thread is released immediately; the response is written when the check completes
+        Transaction transaction = Transaction.fromRequest(request);
+        return fraudDetectionService.checkTransactionAsync(transaction)
+            .thenApply(ResponseEntity::ok);
+    }
 }
@@ -1,17 +1,26 @@
 package com.example.frauddetectionsystem.controller;
 
 import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.dto.BulkImportResult;
+import com.example.frauddetectionsystem.exception.RuleCompilationException;
+import com.example.frauddetectionsystem.service.ActiveRulesResponseCache;
+import com.example.frauddetectionsystem.service.RuleBulkService;
 import com.example.frauddetectionsystem.service.RuleManagementService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,10 +30,17 @@ import java.util.Optional;
 public class RuleManagementController {
     
     private final RuleManagementService ruleManagementService;
+    private final RuleBulkService ruleBulkService;
+    private final ActiveRulesResponseCache activeRulesResponseCache;
     
     @Autowired
-    public RuleManagementController(RuleManagementService ruleManagementService) {
+    public RuleManagementController(
+            RuleManagementService ruleManagementService,
+            RuleBulkService ruleBulkService,
+            ActiveRulesResponseCache activeRulesResponseCache) {
         this.ruleManagementService = ruleManagementService;
+        this.ruleBulkService = ruleBulkService;
+        this.activeRulesResponseCache = activeRulesResponseCache;
     }
     
     @PostMapping
@@ -32,6 +48,9 @@ public class RuleManagementController {
         try {
             FraudRule createdRule = ruleManagementService.createRule(rule);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdRule);
+        } catch (RuleCompilationException e) {
+            // Handled by GlobalExceptionHandler so the caller sees why the rule was rejected
+            throw e;
         } catch (Exception e) {
             log.error("Error creating rule: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
@@ -47,6 +66,8 @@ public class RuleManagementController {
             return ResponseEntity.ok(updatedRule);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
+        } catch (RuleCompilationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error updating rule {}: {}", ruleId, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
@@ -100,11 +121,33 @@ public class RuleManagementController {
         }
     }
     
+    /**
+     * Serves the active rules pre-serialized for the current rule snapshot, gzipped when the
+     * client accepts it. A request whose {@code If-None-Match} names the current ETag gets
+     * {@code 304 Not Modified} without a body.
+     */
     @GetMapping("/active")
-    public ResponseEntity<List<FraudRule>> getActiveRules() {
+    public ResponseEntity<byte[]> getActiveRules(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            List<FraudRule> activeRules = ruleManagementService.getActiveRules();
-            return ResponseEntity.ok(activeRules);
+            ActiveRulesResponseCache.SerializedRules rules = activeRulesResponseCache.getActiveRules();
+            boolean gzip = acceptsGzip(acceptEncoding);
+            String etag = gzip ? rules.gzipEtag() : rules.etag();
+            if (rules.matches(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+            }
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip) {
+                return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(rules.gzip());
+            }
+            return response.body(rules.json());
         } catch (Exception e) {
             log.error("Error fetching active rules: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -134,6 +177,27 @@ public class RuleManagementController {
         }
     }
     
+    /**
+     * Imports rules from an NDJSON body (one rule per line), upserting by rule name. The
+     * body is parsed as it arrives; the rules take effect together once all are written.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkImportResult> importRules(InputStream body) throws IOException {
+        BulkImportResult result = ruleBulkService.importRules(body);
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * Streams all rules as NDJSON in ID order.
+     */
+    @GetMapping(value = "/bulk", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportRules() {
+        StreamingResponseBody body = ruleBulkService::exportRules;
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
+    }
+    
     @PostMapping("/cache/clear")
     public ResponseEntity<String> clearCache() {
         try {
@@ -145,6 +209,20 @@ public class RuleManagementController {
         }
     }
     
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                // "gzip;q=0" explicitly refuses it
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+    
     public static class RuleStats {
         private final long activeRuleCount;
         
@@ -0,0 +1,191 @@
+package com.example.frauddetectionsystem.dedup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe scalable Bloom filter over strings (Almeida et al.). The filter starts
+ * with one fixed-size stage; once a stage has taken its planned number of insertions a
+ * new stage with twice the capacity and half the false-positive rate is appended. The
+ * per-stage rates form a geometric series, so the compound false-positive rate stays
+ * below {@code falsePositiveRate} however many elements are added.
+ * <p>
+ * Reads are lock-free. Bits are set with CAS on an {@link AtomicLongArray}; only adding a
+ * stage takes a lock.
+ */
+public final class ScalableBloomFilter {
+
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final double falsePositiveRate;
+    private volatile Stage[] stages;
+
+    public ScalableBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive: " + expectedInsertions);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be in (0, 1): " + falsePositiveRate);
+        }
+        // First stage gets the tightened rate so the geometric series sums to falsePositiveRate
+        this.falsePositiveRate = falsePositiveRate * (1 - TIGHTENING_RATIO);
+        this.stages = new Stage[] { new Stage(expectedInsertions, this.falsePositiveRate) };
+    }
+
+    /**
+     * @return false if the value was definitely never added, true if it may have been
+     */
+    public boolean mightContain(String value) {
+        long hash1 = hash1(value);
+        long hash2 = hash2(value, hash1);
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash1, hash2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(String value) {
+        long hash1 = hash1(value);
+        long hash2 = hash2(value, hash1);
+        Stage[] current = stages;
+        Stage last = current[current.length - 1];
+        if (last.isFull()) {
+            last = grow(current);
+        }
+        last.put(hash1, hash2);
+    }
+
+    /**
+     * @return number of elements added (each add counted once per call, duplicates included)
+     */
+    public long approximateElementCount() {
+        long count = 0;
+        for (Stage stage : stages) {
+            count += stage.insertions.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return bytes held by the bit arrays of all stages
+     */
+    public long bitSizeBytes() {
+        long bytes = 0;
+        for (Stage stage : stages) {
+            bytes += (long) stage.bits.length() * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the compound false-positive probability predicted from each stage's fill
+     */
+    public double expectedFalsePositiveRate() {
+        double allNegative = 1.0;
+        for (Stage stage : stages) {
+            allNegative *= 1.0 - stage.expectedFalsePositiveRate();
+        }
+        return 1.0 - allNegative;
+    }
+
+    public int stageCount() {
+        return stages.length;
+    }
+
+    private synchronized Stage grow(Stage[] observed) {
+        Stage[] current = stages;
+        Stage last = current[current.length - 1];
+        if (current != observed && !last.isFull()) {
+            // Another thread already grew the filter
+            return last;
+        }
+        Stage[] grown = new Stage[current.length + 1];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        grown[current.length] = new Stage(
+            last.capacity * GROWTH_FACTOR,
+            falsePositiveRate * Math.pow(TIGHTENING_RATIO, current.length));
+        stages = grown;
+        return grown[current.length];
+    }
+
+    private static long hash1(String value) {
+        // FNV-1a over the UTF-8 bytes, finished with a 64-bit mix for better high bits
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long hash2(String value, long hash1) {
+        return mix(hash1 ^ ((long) value.hashCode() << 32) ^ value.length()) | 1L;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * One fixed-size Bloom filter using double hashing ({@code h1 + i * h2}) to derive
+     * its {@code k} bit positions.
+     */
+    private static final class Stage {
+        private final long capacity;
+        private final long bitCount;
+        private final int hashFunctions;
+        private final AtomicLongArray bits;
+        private final LongAdder insertions = new LongAdder();
+
+        Stage(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) >>> 6));
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = (long) words << 6;
+            this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        }
+
+        boolean isFull() {
+            return insertions.sum() >= capacity;
+        }
+
+        boolean mightContain(long hash1, long hash2) {
+            long combined = hash1;
+            for (int i = 0; i < hashFunctions; i++) {
+                long index = (combined & Long.MAX_VALUE) % bitCount;
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+                combined += hash2;
+            }
+            return true;
+        }
+
+        void put(long hash1, long hash2) {
+            long combined = hash1;
+            for (int i = 0; i < hashFunctions; i++) {
+                long index = (combined & Long.MAX_VALUE) % bitCount;
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long current = bits.get(word);
+                while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                    current = bits.get(word);
+                }
+                combined += hash2;
+            }
+            insertions.increment();
+        }
+
+        double expectedFalsePositiveRate() {
+            double fill = 1.0 - Math.exp(-(double) hashFunctions * insertions.sum() / bitCount);
+            return Math.pow(fill, hashFunctions);
+        }
+    }
+}
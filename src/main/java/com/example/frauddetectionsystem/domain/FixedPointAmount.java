@@ -0,0 +1,92 @@
+package com.example.frauddetectionsystem.domain;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Conversion between {@link BigDecimal} amounts and {@code long} minor units with a
+ * fixed scale of {@value #SCALE} decimal places, so the rule engine can compare amounts
+ * as primitives. Values with more than {@value #SCALE} significant decimal places, or
+ * too large for a {@code long}, are reported as {@link #NOT_REPRESENTABLE} and must be
+ * compared as {@link BigDecimal} instead. Amounts are client input, so magnitudes are
+ * checked before rescaling: {@code 1E+20000000} must not cost a twenty-million digit
+ * multiplication.
+ */
+public final class FixedPointAmount {
+
+    public static final int SCALE = 4;
+
+    public static final long NOT_REPRESENTABLE = Long.MIN_VALUE;
+
+    /** Integer digits of {@link Long#MAX_VALUE}; any amount with more cannot fit. */
+    private static final int MAX_INTEGER_DIGITS = 19;
+
+    private FixedPointAmount() {
+    }
+
+    public static long toMinorUnits(BigDecimal amount) {
+        if (amount == null) {
+            return NOT_REPRESENTABLE;
+        }
+        if (amount.signum() == 0) {
+            return 0;
+        }
+        int integerDigits = integerDigits(amount);
+        if (integerDigits > MAX_INTEGER_DIGITS || integerDigits <= -SCALE) {
+            return NOT_REPRESENTABLE; // too large, or non-zero below one minor unit
+        }
+        BigDecimal scaled;
+        try {
+            scaled = amount.setScale(SCALE, RoundingMode.UNNECESSARY);
+        } catch (ArithmeticException e) {
+            return NOT_REPRESENTABLE; // more precision than SCALE allows
+        }
+        return fromUnscaled(scaled.unscaledValue());
+    }
+
+    /**
+     * Like {@link #toMinorUnits(BigDecimal)}, but rounds amounts with more than
+     * {@value #SCALE} decimal places instead of rejecting them.
+     *
+     * @return the rounded minor units, or {@link #NOT_REPRESENTABLE} if {@code amount} is
+     * {@code null} or too large for a {@code long}
+     */
+    public static long toMinorUnits(BigDecimal amount, RoundingMode roundingMode) {
+        if (amount == null) {
+            return NOT_REPRESENTABLE;
+        }
+        if (amount.signum() == 0) {
+            return 0;
+        }
+        int integerDigits = integerDigits(amount);
+        if (integerDigits > MAX_INTEGER_DIGITS) {
+            return NOT_REPRESENTABLE;
+        }
+        if (integerDigits < -SCALE) {
+            // Non-zero and below half a minor unit: every such amount rounds like +/-0.000001
+            amount = BigDecimal.valueOf(amount.signum(), SCALE + 2);
+        }
+        return fromUnscaled(amount.setScale(SCALE, roundingMode).unscaledValue());
+    }
+    public static boolean isRepresentable(long minorUnits) {
+        return minorUnits != NOT_REPRESENTABLE;
+    }
+
+    public static BigDecimal toBigDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    /** Digits before the decimal point, negative for amounts below 0.1; never rescales. */
+    private static int integerDigits(BigDecimal amount) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, (long) amount.precision() - amount.scale()));
+    }
+
+    private static long fromUnscaled(BigInteger unscaled) {
+        if (unscaled.bitLength() > 63) {
+            return NOT_REPRESENTABLE;
+        }
+        long minorUnits = unscaled.longValue();
+        return minorUnits == NOT_REPRESENTABLE ? NOT_REPRESENTABLE : minorUnits;
+    }
+}
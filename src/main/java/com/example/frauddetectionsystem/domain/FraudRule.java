@@ -68,7 +68,8 @@ public class FraudRule {
     public enum RuleType {
         AMOUNT_THRESHOLD,
         IP_BLACKLIST,
-        DUPLICATE_TRANSACTION
+        DUPLICATE_TRANSACTION,
+        VELOCITY
     }
     
     public enum ActionType {
@@ -0,0 +1,45 @@
+package com.example.frauddetectionsystem.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the rule change log. Written in the same transaction as the change to
+ * the rule, so every instance can follow changes made on any other by reading entries
+ * with a higher {@code id} than the last one it applied. An entry without a rule ID
+ * stands for a change to many rules at once (a bulk import) and calls for a full reload.
+ */
+@Entity
+@Table(name = "fraud_rule_changes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FraudRuleChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rule_id")
+    private Long ruleId;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    public FraudRuleChange(Long ruleId) {
+        this.ruleId = ruleId;
+        this.changedAt = LocalDateTime.now();
+    }
+
+    public static FraudRuleChange fullReload() {
+        return new FraudRuleChange(null);
+    }
+
+    public boolean isFullReload() {
+        return ruleId == null;
+    }
+}
@@ -3,21 +3,23 @@ package com.example.frauddetectionsystem.domain;
 import com.example.frauddetectionsystem.dto.TransactionStatus;
 import com.example.frauddetectionsystem.dto.request.TransactionRequest;
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import java.math.BigDecimal;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 @Entity
 @Table(name = "transactions")
 public class Transaction {
     
+    // Pooled sequence (not IDENTITY) so inserts can be JDBC-batched; see TransactionIdAllocator
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, unique = true)
@@ -26,6 +28,11 @@ public class Transaction {
     @Column(nullable = false)
     private BigDecimal amount;
     
+    // Fixed-point copy of amount for the rule engine, derived whenever amount is set
+    @Transient
+    @Setter(AccessLevel.NONE)
+    private long amountMinorUnits = FixedPointAmount.NOT_REPRESENTABLE;
+    
     @Column(name = "ip_address", length = 45) // Made nullable since validation is handled at request level
     private String ipAddress;
     
@@ -45,6 +52,19 @@ public class Transaction {
     })
     private TransactionDetails eTransferDetails;
     
+    // All persistent fields; amountMinorUnits is always derived from amount, never passed in
+    public Transaction(Long id, String transactionId, BigDecimal amount, String ipAddress, TransactionStatus status,
+                       String statusReason, TransactionDetails originatorDetails, TransactionDetails eTransferDetails) {
+        this.id = id;
+        this.transactionId = transactionId;
+        setAmount(amount);
+        this.ipAddress = ipAddress;
+        this.status = status;
+        this.statusReason = statusReason;
+        this.originatorDetails = originatorDetails;
+        this.eTransferDetails = eTransferDetails;
+    }
+    
     // Alias for getter to match JSON property name
     public TransactionDetails getETransferDetails() {
         return eTransferDetails;
@@ -55,6 +75,11 @@ public class Transaction {
         this.eTransferDetails = eTransferDetails;
     }
     
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+        this.amountMinorUnits = FixedPointAmount.toMinorUnits(amount);
+    }
+    
     public static Transaction fromRequest(TransactionRequest request) {
         Transaction transaction = new Transaction();
         transaction.setTransactionId(request.getTransactionId());
@@ -0,0 +1,36 @@
+package com.example.frauddetectionsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk rule import: how many rules were written, how many lines were
+ * rejected, and why (the first few rejections only).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResult {
+
+    private int imported;
+
+    private int rejected;
+
+    /**
+     * Version of the rule snapshot that includes the imported rules.
+     */
+    private long ruleSetVersion;
+
+    private List<LineError> errors;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineError {
+        private long line;
+        private String message;
+    }
+}
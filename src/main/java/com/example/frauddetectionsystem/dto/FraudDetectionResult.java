@@ -1,5 +1,6 @@
 package com.example.frauddetectionsystem.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -26,6 +27,17 @@ public class FraudDetectionResult {
      */
     private String reason;
     
+    /**
+     * Version of the rule snapshot the decision was made with; absent when no rules were
+     * evaluated (duplicates and system errors).
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long ruleSetVersion;
+    
+    public FraudDetectionResult(String transactionId, TransactionStatus status, String reason) {
+        this(transactionId, status, reason, null);
+    }
+    
     /**
      * Alias for getReason() to maintain backward compatibility with tests.
      * @return The reason for the fraud detection result.
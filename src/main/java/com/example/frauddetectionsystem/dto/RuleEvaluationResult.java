@@ -2,21 +2,47 @@ package com.example.frauddetectionsystem.dto;
 
 import com.example.frauddetectionsystem.domain.FraudRule;
 import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
-@Data
-@NoArgsConstructor
+/**
+ * Outcome of evaluating a transaction against the rules. Immutable, so the rule engine
+ * hands out shared instances instead of allocating one per evaluation.
+ */
+@Value
 @AllArgsConstructor
 public class RuleEvaluationResult {
+    
+    private static final RuleEvaluationResult NOT_TRIGGERED =
+        new RuleEvaluationResult(false, null, null, null, Integer.MAX_VALUE);
+    
     private boolean triggered;
     private FraudRule.ActionType actionType;
     private String message;
     private String ruleName;
     private int priority;
     
+    /**
+     * Version of the rule snapshot the transaction was evaluated against, 0 if none.
+     */
+    private long ruleSetVersion;
+    
+    /**
+     * Type of the rule that triggered, null for the default approval and errors.
+     */
+    private FraudRule.RuleType ruleType;
+    
+    public RuleEvaluationResult(boolean triggered, FraudRule.ActionType actionType, String message,
+                                String ruleName, int priority) {
+        this(triggered, actionType, message, ruleName, priority, 0);
+    }
+    
+    public RuleEvaluationResult(boolean triggered, FraudRule.ActionType actionType, String message,
+                                String ruleName, int priority, long ruleSetVersion) {
+        this(triggered, actionType, message, ruleName, priority, ruleSetVersion, null);
+    }
+    
     public static RuleEvaluationResult notTriggered() {
-        return new RuleEvaluationResult(false, null, null, null, Integer.MAX_VALUE);
+        return NOT_TRIGGERED;
     }
     
     public static RuleEvaluationResult triggered(FraudRule rule) {
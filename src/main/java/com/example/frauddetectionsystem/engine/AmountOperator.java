@@ -0,0 +1,46 @@
+package com.example.frauddetectionsystem.engine;
+
+import java.math.BigDecimal;
+
+/**
+ * Comparison operators supported by AMOUNT_THRESHOLD rules, resolved once from
+ * the rule condition string at compile time.
+ */
+public enum AmountOperator {
+    GREATER_THAN,
+    GREATER_THAN_OR_EQUAL,
+    LESS_THAN,
+    LESS_THAN_OR_EQUAL;
+
+    public boolean test(BigDecimal amount, BigDecimal threshold) {
+        return test(amount.compareTo(threshold));
+    }
+
+    public boolean test(long amountMinorUnits, long thresholdMinorUnits) {
+        return test(Long.compare(amountMinorUnits, thresholdMinorUnits));
+    }
+
+    private boolean test(int cmp) {
+        return switch (this) {
+            case GREATER_THAN -> cmp > 0;
+            case GREATER_THAN_OR_EQUAL -> cmp >= 0;
+            case LESS_THAN -> cmp < 0;
+            case LESS_THAN_OR_EQUAL -> cmp <= 0;
+        };
+    }
+
+    /**
+     * @return the operator for the given condition, or {@code null} if the condition is not recognised
+     */
+    public static AmountOperator fromCondition(String condition) {
+        if (condition == null) {
+            return null;
+        }
+        for (AmountOperator operator : values()) {
+            if (operator.name().equals(condition.trim())) {
+                return operator;
+            }
+        }
+        return null;
+    }
+}
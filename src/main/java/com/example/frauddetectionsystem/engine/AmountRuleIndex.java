@@ -0,0 +1,175 @@
+package com.example.frauddetectionsystem.engine;
+
+import com.example.frauddetectionsystem.domain.FixedPointAmount;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Index over AMOUNT_THRESHOLD rules. Each operator describes a half-line over the
+ * amount, so the rules for one operator are kept sorted by threshold together with
+ * a running "best rank so far" over the side that matches. One binary search per
+ * operator then yields the winning rule in O(log n).
+ * <p>
+ * Thresholds are held as {@link FixedPointAmount} minor units and compared as
+ * primitives. Rules whose threshold cannot be represented that way live in a
+ * separate {@link BigDecimal} column per operator, and amounts that cannot be
+ * represented are searched against the {@link BigDecimal} copy of every column.
+ */
+final class AmountRuleIndex {
+
+    static final AmountRuleIndex EMPTY = new AmountRuleIndex(new Column[0], 0);
+
+    private final Column[] columns;
+    private final int size;
+
+    private AmountRuleIndex(Column[] columns, int size) {
+        this.columns = columns;
+        this.size = size;
+    }
+
+    static AmountRuleIndex build(Collection<CompiledRule> rules) {
+        if (rules.isEmpty()) {
+            return EMPTY;
+        }
+        List<Column> columns = new ArrayList<>();
+        for (AmountOperator operator : AmountOperator.values()) {
+            List<CompiledRule> primitive = new ArrayList<>();
+            List<CompiledRule> decimal = new ArrayList<>();
+            for (CompiledRule rule : rules) {
+                if (rule.getAmountOperator() != operator) {
+                    continue;
+                }
+                if (FixedPointAmount.isRepresentable(rule.getThresholdMinorUnits())) {
+                    primitive.add(rule);
+                } else {
+                    decimal.add(rule);
+                }
+            }
+            if (!primitive.isEmpty()) {
+                columns.add(new Column(operator, primitive, true));
+            }
+            if (!decimal.isEmpty()) {
+                columns.add(new Column(operator, decimal, false));
+            }
+        }
+        return new AmountRuleIndex(columns.toArray(new Column[0]), rules.size());
+    }
+
+    /**
+     * @param amountMinorUnits the amount in minor units, or {@link FixedPointAmount#NOT_REPRESENTABLE}
+     * @param amount           the original amount, used only on the {@link BigDecimal} fallback path
+     * @return the lowest-ranked rule triggered by the amount, or {@code null}
+     */
+    CompiledRule lookup(long amountMinorUnits, BigDecimal amount) {
+        boolean primitiveAmount = FixedPointAmount.isRepresentable(amountMinorUnits);
+        CompiledRule best = null;
+        for (Column column : columns) {
+            CompiledRule candidate = primitiveAmount && column.minorThresholds != null
+                ? column.lookup(amountMinorUnits)
+                : column.lookup(amount);
+            if (candidate != null && (best == null || candidate.getRank() < best.getRank())) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Rules for one operator, sorted ascending by threshold. For "greater than" operators
+     * the matching rules form a prefix of the array, for "less than" operators a suffix,
+     * so {@code bestRules[i]} holds the best rule over [0, i] or [i, n) respectively.
+     */
+    private static final class Column {
+        private final AmountOperator operator;
+        private final long[] minorThresholds;
+        private final BigDecimal[] thresholds;
+        private final CompiledRule[] bestRules;
+
+        Column(AmountOperator operator, List<CompiledRule> rules, boolean primitive) {
+            this.operator = operator;
+            List<CompiledRule> sorted = new ArrayList<>(rules);
+            sorted.sort(Comparator.comparing(CompiledRule::getThreshold));
+
+            int n = sorted.size();
+            this.minorThresholds = primitive ? new long[n] : null;
+            this.thresholds = new BigDecimal[n];
+            this.bestRules = new CompiledRule[n];
+            for (int i = 0; i < n; i++) {
+                thresholds[i] = sorted.get(i).getThreshold();
+                if (primitive) {
+                    minorThresholds[i] = sorted.get(i).getThresholdMinorUnits();
+                }
+            }
+
+            boolean prefix = operator == AmountOperator.GREATER_THAN || operator == AmountOperator.GREATER_THAN_OR_EQUAL;
+            for (int step = 0; step < n; step++) {
+                int i = prefix ? step : n - 1 - step;
+                CompiledRule rule = sorted.get(i);
+                CompiledRule previous = step > 0 ? bestRules[prefix ? i - 1 : i + 1] : null;
+                bestRules[i] = previous != null && previous.getRank() <= rule.getRank() ? previous : rule;
+            }
+        }
+
+        CompiledRule lookup(long amount) {
+            // Number of thresholds < amount, and number of thresholds <= amount
+            return select(countBelow(amount, false), countBelow(amount, true));
+        }
+
+        CompiledRule lookup(BigDecimal amount) {
+            return select(countBelow(amount, false), countBelow(amount, true));
+        }
+
+        private CompiledRule select(int lowerBound, int upperBound) {
+            int n = bestRules.length;
+            return switch (operator) {
+                // threshold < amount: matches are [0, lowerBound)
+                case GREATER_THAN -> lowerBound > 0 ? bestRules[lowerBound - 1] : null;
+                // threshold <= amount: matches are [0, upperBound)
+                case GREATER_THAN_OR_EQUAL -> upperBound > 0 ? bestRules[upperBound - 1] : null;
+                // threshold > amount: matches are [upperBound, n)
+                case LESS_THAN -> upperBound < n ? bestRules[upperBound] : null;
+                // threshold >= amount: matches are [lowerBound, n)
+                case LESS_THAN_OR_EQUAL -> lowerBound < n ? bestRules[lowerBound] : null;
+            };
+        }
+
+        /** Number of thresholds below (or, if inclusive, at or below) the amount. */
+        private int countBelow(long amount, boolean inclusive) {
+            int low = 0;
+            int high = minorThresholds.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                long threshold = minorThresholds[mid];
+                if (threshold < amount || (inclusive && threshold == amount)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int countBelow(BigDecimal amount, boolean inclusive) {
+            int low = 0;
+            int high = thresholds.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int cmp = thresholds[mid].compareTo(amount);
+                if (cmp < 0 || (inclusive && cmp == 0)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
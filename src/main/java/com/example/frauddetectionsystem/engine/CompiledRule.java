@@ -0,0 +1,180 @@
+package com.example.frauddetectionsystem.engine;
+
+import com.example.frauddetectionsystem.domain.FixedPointAmount;
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.domain.Transaction;
+import com.example.frauddetectionsystem.dto.RuleEvaluationResult;
+
+import java.math.BigDecimal;
+
+/**
+ * A fraud rule whose condition has been parsed and resolved into a ready-to-run
+ * {@link RulePredicate}. Instances are safe to share between threads: everything but the
+ * cached {@link #triggeredResult} is fixed at construction, and the rule's values are copied
+ * into a {@link RuleDefinition} - which alone holds the threshold and pattern - so no entity
+ * is retained.
+ */
+public final class CompiledRule {
+
+    private final RuleDefinition definition;
+    private final long rank;
+    private final RulePredicate predicate;
+    private final AmountOperator amountOperator;
+    private final long thresholdMinorUnits;
+    private final IpMatchOperator ipOperator;
+    private final long ipNetwork;
+    private final int ipPrefixLength;
+    private final StatefulPredicate statefulPredicate;
+    private final String stateKey;
+    // Result for the snapshot version this rule last triggered in. Racing writers build
+    // equal results, so whichever wins is fine; only a version change allocates.
+    private volatile RuleEvaluationResult triggeredResult;
+
+    CompiledRule(FraudRule source, RulePredicate predicate,
+                 AmountOperator amountOperator, IpMatchOperator ipOperator) {
+        this(source, predicate, amountOperator, ipOperator, 0L, -1);
+    }
+
+    CompiledRule(FraudRule source, RulePredicate predicate,
+                 AmountOperator amountOperator, IpMatchOperator ipOperator,
+                 long ipNetwork, int ipPrefixLength) {
+        this.definition = RuleDefinition.of(source);
+        this.rank = rankOf(definition);
+        this.predicate = predicate;
+        this.amountOperator = amountOperator;
+        this.thresholdMinorUnits = amountOperator != null
+            ? FixedPointAmount.toMinorUnits(definition.getThresholdValue()) : FixedPointAmount.NOT_REPRESENTABLE;
+        this.ipOperator = ipOperator;
+        this.ipNetwork = ipNetwork;
+        this.ipPrefixLength = ipPrefixLength;
+        this.statefulPredicate = null;
+        this.stateKey = null;
+    }
+
+    /**
+     * Creates a stateful rule. Its {@link #matches} is always false; the snapshot drives it
+     * through {@link #testAndRecord} instead.
+     */
+    CompiledRule(FraudRule source, StatefulPredicate statefulPredicate, String stateKey) {
+        this.definition = RuleDefinition.of(source);
+        this.rank = rankOf(definition);
+        this.predicate = RulePredicate.NEVER;
+        this.amountOperator = null;
+        this.thresholdMinorUnits = FixedPointAmount.NOT_REPRESENTABLE;
+        this.ipOperator = null;
+        this.ipNetwork = 0L;
+        this.ipPrefixLength = -1;
+        this.statefulPredicate = statefulPredicate;
+        this.stateKey = stateKey;
+    }
+
+    /**
+     * Orders rules by priority, breaking ties by ID, so that a lower rank always
+     * wins regardless of which index or partition a rule was matched in.
+     */
+    static long rankOf(RuleDefinition rule) {
+        return ((long) rule.getPriority() << 32) | (rule.idOrZero() & 0xFFFFFFFFL);
+    }
+
+    public boolean matches(Transaction transaction) {
+        return predicate.test(transaction);
+    }
+
+    /**
+     * Records the transaction in this rule's state and reports whether it triggers.
+     * Only valid for {@link #isStateful() stateful} rules.
+     */
+    public boolean testAndRecord(Transaction transaction) {
+        return statefulPredicate.testAndRecord(transaction);
+    }
+
+    /**
+     * @return the shared result of this rule triggering in the given snapshot version
+     */
+    public RuleEvaluationResult triggeredResult(long ruleSetVersion) {
+        RuleEvaluationResult result = triggeredResult;
+        if (result == null || result.getRuleSetVersion() != ruleSetVersion) {
+            result = new RuleEvaluationResult(true, definition.getActionType(), definition.getActionMessage(),
+                definition.getRuleName(), definition.getPriority(), ruleSetVersion, definition.getRuleType());
+            triggeredResult = result;
+        }
+        return result;
+    }
+
+    public RuleDefinition getDefinition() {
+        return definition;
+    }
+
+    public long getRank() {
+        return rank;
+    }
+
+    public Long getId() {
+        return definition.getId();
+    }
+
+    public String getRuleName() {
+        return definition.getRuleName();
+    }
+
+    public FraudRule.RuleType getRuleType() {
+        return definition.getRuleType();
+    }
+
+    public int getPriority() {
+        return definition.getPriority();
+    }
+
+    public AmountOperator getAmountOperator() {
+        return amountOperator;
+    }
+
+    public BigDecimal getThreshold() {
+        return definition.getThresholdValue();
+    }
+
+    /**
+     * @return the threshold in {@link FixedPointAmount} minor units, or
+     *         {@link FixedPointAmount#NOT_REPRESENTABLE}
+     */
+    public long getThresholdMinorUnits() {
+        return thresholdMinorUnits;
+    }
+
+    public IpMatchOperator getIpOperator() {
+        return ipOperator;
+    }
+
+    public String getPattern() {
+        return definition.getStringValue();
+    }
+
+    /**
+     * @return true if this IP rule is equivalent to a network prefix and can be served by the IP trie
+     */
+    public boolean isIpIndexed() {
+        return ipPrefixLength >= 0;
+    }
+
+    /**
+     * @return true if this rule depends on previously seen transactions
+     */
+    public boolean isStateful() {
+        return statefulPredicate != null;
+    }
+
+    /**
+     * @return the key of this rule's state in the {@link RuleStateRegistry}, or {@code null}
+     */
+    public String getStateKey() {
+        return stateKey;
+    }
+
+    public long getIpNetwork() {
+        return ipNetwork;
+    }
+
+    public int getIpPrefixLength() {
+        return ipPrefixLength;
+    }
+}
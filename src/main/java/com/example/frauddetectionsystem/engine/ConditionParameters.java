@@ -0,0 +1,70 @@
+package com.example.frauddetectionsystem.engine;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parsed form of a {@code ;}-separated rule condition such as
+ * {@code COUNT_GREATER_THAN;WINDOW_SECONDS=600}. Bare tokens are flags, {@code KEY=VALUE}
+ * tokens are parameters; both are matched case-sensitively, whitespace is ignored.
+ */
+final class ConditionParameters {
+
+    private final Set<String> flags;
+    private final Map<String, String> values;
+
+    private ConditionParameters(Set<String> flags, Map<String, String> values) {
+        this.flags = flags;
+        this.values = values;
+    }
+
+    static ConditionParameters parse(String condition) {
+        Set<String> flags = new HashSet<>();
+        Map<String, String> values = new HashMap<>();
+        if (condition != null) {
+            for (String token : condition.split(";")) {
+                String trimmed = token.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                int separator = trimmed.indexOf('=');
+                if (separator < 0) {
+                    flags.add(trimmed);
+                } else {
+                    values.put(trimmed.substring(0, separator).trim(), trimmed.substring(separator + 1).trim());
+                }
+            }
+        }
+        return new ConditionParameters(flags, values);
+    }
+
+    boolean hasFlag(String flag) {
+        return flags.contains(flag);
+    }
+
+    Set<String> flags() {
+        return flags;
+    }
+
+    String value(String key) {
+        return values.get(key);
+    }
+
+    /**
+     * @return the value as a positive long, or -1 if missing or not a positive number
+     */
+    long positiveLong(String key) {
+        String value = values.get(key);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            long parsed = Long.parseLong(value);
+            return parsed > 0 ? parsed : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.frauddetectionsystem.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton over the patterns of all IP_BLACKLIST CONTAINS rules.
+ * The automaton is compiled into a dense transition table, so a single pass over
+ * the address finds every pattern it contains; each state carries the best-ranked
+ * rule among all patterns ending there (including via failure links).
+ */
+final class ContainsPatternMatcher {
+
+    static final ContainsPatternMatcher EMPTY = new ContainsPatternMatcher(new int[0], 0, new int[0], new CompiledRule[0], 0);
+
+    private static final int ASCII = 128;
+
+    // Maps an ASCII char to its alphabet index, or -1 if no pattern uses it
+    private final int[] alphabet;
+    private final int alphabetSize;
+    // transitions[state * alphabetSize + symbol] -> next state
+    private final int[] transitions;
+    private final CompiledRule[] bestByState;
+    private final int size;
+
+    private ContainsPatternMatcher(int[] alphabet, int alphabetSize, int[] transitions,
+                                   CompiledRule[] bestByState, int size) {
+        this.alphabet = alphabet;
+        this.alphabetSize = alphabetSize;
+        this.transitions = transitions;
+        this.bestByState = bestByState;
+        this.size = size;
+    }
+
+    static ContainsPatternMatcher build(Collection<CompiledRule> rules) {
+        List<CompiledRule> indexable = List.copyOf(rules);
+        if (indexable.isEmpty()) {
+            return EMPTY;
+        }
+
+        int[] alphabet = new int[ASCII];
+        Arrays.fill(alphabet, -1);
+        int alphabetSize = 0;
+        for (CompiledRule rule : indexable) {
+            for (char c : rule.getPattern().toCharArray()) {
+                if (alphabet[c] < 0) {
+                    alphabet[c] = alphabetSize++;
+                }
+            }
+        }
+
+        // Build the keyword trie
+        List<int[]> gotoTable = new ArrayList<>();
+        List<CompiledRule> best = new ArrayList<>();
+        gotoTable.add(newRow(alphabetSize));
+        best.add(null);
+        for (CompiledRule rule : indexable) {
+            int state = 0;
+            for (char c : rule.getPattern().toCharArray()) {
+                int symbol = alphabet[c];
+                int next = gotoTable.get(state)[symbol];
+                if (next < 0) {
+                    next = gotoTable.size();
+                    gotoTable.add(newRow(alphabetSize));
+                    best.add(null);
+                    gotoTable.get(state)[symbol] = next;
+                }
+                state = next;
+            }
+            best.set(state, better(best.get(state), rule));
+        }
+
+        // Breadth-first pass: resolve failure links into full transitions and merge outputs
+        int states = gotoTable.size();
+        int[] transitions = new int[states * alphabetSize];
+        int[] fail = new int[states];
+        CompiledRule[] bestByState = best.toArray(new CompiledRule[0]);
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < alphabetSize; symbol++) {
+            int next = gotoTable.get(0)[symbol];
+            if (next < 0) {
+                transitions[symbol] = 0;
+            } else {
+                transitions[symbol] = next;
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            bestByState[state] = better(bestByState[state], bestByState[fail[state]]);
+            for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                int next = gotoTable.get(state)[symbol];
+                int fallback = transitions[fail[state] * alphabetSize + symbol];
+                if (next < 0) {
+                    transitions[state * alphabetSize + symbol] = fallback;
+                } else {
+                    transitions[state * alphabetSize + symbol] = next;
+                    fail[next] = fallback;
+                    queue.add(next);
+                }
+            }
+        }
+        return new ContainsPatternMatcher(alphabet, alphabetSize, transitions, bestByState, indexable.size());
+    }
+
+    /**
+     * @return the lowest-ranked rule whose pattern occurs in the text, or {@code null}
+     */
+    CompiledRule lookup(String text) {
+        if (size == 0) {
+            return null;
+        }
+        CompiledRule best = null;
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            int symbol = c < ASCII ? alphabet[c] : -1;
+            if (symbol < 0) {
+                state = 0;
+                continue;
+            }
+            state = transitions[state * alphabetSize + symbol];
+            CompiledRule candidate = bestByState[state];
+            if (candidate != null && (best == null || candidate.getRank() < best.getRank())) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the rule's pattern can be represented in the automaton's alphabet
+     */
+    static boolean supports(CompiledRule rule) {
+        return isAscii(rule.getPattern());
+    }
+
+    private static boolean isAscii(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if (pattern.charAt(i) >= ASCII) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] newRow(int alphabetSize) {
+        int[] row = new int[alphabetSize];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static CompiledRule better(CompiledRule a, CompiledRule b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.getRank() <= b.getRank() ? a : b;
+    }
+}
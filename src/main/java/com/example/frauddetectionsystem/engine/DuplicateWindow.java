@@ -0,0 +1,96 @@
+package com.example.frauddetectionsystem.engine;
+
+import java.time.Clock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Sliding-window set of transaction fingerprints backing DUPLICATE_TRANSACTION rules.
+ * <p>
+ * Time is cut into fixed buckets held in a ring. A bucket whose slot comes round again
+ * is replaced wholesale, so expiring old entries is O(1) regardless of how many they
+ * are, and no sweeper thread is needed. Each entry keeps its own timestamp, so matches
+ * are exact to the millisecond rather than to the bucket. Buckets stop accepting new
+ * fingerprints once full, which bounds memory under bursts.
+ */
+final class DuplicateWindow {
+
+    static final int MAX_ENTRIES_PER_BUCKET = 100_000;
+
+    private static final int BUCKETS_PER_WINDOW = 8;
+
+    private final Clock clock;
+    private final long windowMillis;
+    private final long bucketMillis;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    DuplicateWindow(long windowMillis, Clock clock) {
+        this.clock = clock;
+        this.windowMillis = windowMillis;
+        this.bucketMillis = Math.max(1, (windowMillis + BUCKETS_PER_WINDOW - 1) / BUCKETS_PER_WINDOW);
+        // One extra slot so a full window of history plus the current bucket always fit
+        this.buckets = new AtomicReferenceArray<>((int) ((windowMillis + bucketMillis - 1) / bucketMillis) + 1);
+    }
+
+    /**
+     * Records the fingerprint and reports whether it was already recorded within the window.
+     */
+    boolean checkAndRecord(long fingerprint) {
+        long now = clock.millis();
+        long epoch = now / bucketMillis;
+        Bucket current = bucketFor(epoch);
+
+        // Same-bucket check and insert are one atomic step, so concurrent twins see each other
+        Long previous = current.entries.size() < MAX_ENTRIES_PER_BUCKET
+            ? current.entries.put(fingerprint, now)
+            : current.entries.get(fingerprint);
+        if (previous != null && now - previous <= windowMillis) {
+            return true;
+        }
+
+        int slots = buckets.length();
+        for (int age = 1; age < slots; age++) {
+            Bucket older = buckets.get(slot(epoch - age));
+            if (older == null || older.epoch != epoch - age) {
+                continue;
+            }
+            Long seenAt = older.entries.get(fingerprint);
+            if (seenAt != null && now - seenAt <= windowMillis) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Bucket bucketFor(long epoch) {
+        int slot = slot(epoch);
+        while (true) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket != null && bucket.epoch >= epoch) {
+                return bucket;
+            }
+            // Expired (or never used) slot: drop the old bucket in one step
+            Bucket fresh = new Bucket(epoch);
+            if (buckets.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private int slot(long epoch) {
+        return (int) Math.floorMod(epoch, (long) buckets.length());
+    }
+
+    long getWindowMillis() {
+        return windowMillis;
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final ConcurrentHashMap<Long, Long> entries = new ConcurrentHashMap<>();
+
+        Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
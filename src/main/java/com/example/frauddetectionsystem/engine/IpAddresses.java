@@ -0,0 +1,114 @@
+package com.example.frauddetectionsystem.engine;
+
+/**
+ * Allocation-free IPv4 parsing helpers used by the IP index. Addresses are packed
+ * into the low 32 bits of a {@code long}; {@link #INVALID} marks anything that is
+ * not a canonical dotted quad.
+ */
+public final class IpAddresses {
+
+    public static final long INVALID = -1L;
+
+    private IpAddresses() {
+    }
+
+    /**
+     * Parses a canonical dotted-quad IPv4 address (four decimal octets, 0-255, no
+     * leading zeros). Only canonical input is accepted, so that a packed match is
+     * always equivalent to the string match the rule was written against.
+     *
+     * @return the packed address, or {@link #INVALID}
+     */
+    public static long parse(String address) {
+        if (address == null) {
+            return INVALID;
+        }
+        int length = address.length();
+        if (length < 7 || length > 15) {
+            return INVALID;
+        }
+        long packed = 0;
+        int octets = 0;
+        int value = 0;
+        int digits = 0;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? address.charAt(i) : '.';
+            if (c == '.') {
+                if (digits == 0 || octets == 4) {
+                    return INVALID;
+                }
+                packed = (packed << 8) | value;
+                octets++;
+                value = 0;
+                digits = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (digits > 0 && value == 0) {
+                    return INVALID; // leading zero
+                }
+                value = value * 10 + (c - '0');
+                digits++;
+                if (value > 255) {
+                    return INVALID;
+                }
+            } else {
+                return INVALID;
+            }
+        }
+        return octets == 4 ? packed : INVALID;
+    }
+
+    /**
+     * Parses CIDR notation such as {@code 192.0.0.0/24}. Host bits below the prefix
+     * length are cleared.
+     *
+     * @return a two-element array of {network, prefixLength}, or {@code null} if malformed
+     */
+    public static long[] parseCidr(String cidr) {
+        if (cidr == null) {
+            return null;
+        }
+        int slash = cidr.indexOf('/');
+        if (slash < 0) {
+            return null;
+        }
+        long network = parse(cidr.substring(0, slash));
+        int prefixLength;
+        try {
+            prefixLength = Integer.parseInt(cidr.substring(slash + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (network == INVALID || prefixLength < 0 || prefixLength > 32) {
+            return null;
+        }
+        return new long[] {network & mask(prefixLength), prefixLength};
+    }
+
+    /**
+     * Converts a STARTS_WITH pattern made of whole octets followed by a dot
+     * (e.g. {@code "10."}, {@code "192.0.0."}) into the equivalent prefix.
+     *
+     * @return a two-element array of {network, prefixLength}, or {@code null} if the
+     *         pattern cannot be expressed as a prefix of whole octets
+     */
+    public static long[] parseOctetPrefix(String pattern) {
+        if (pattern == null || pattern.isEmpty() || pattern.charAt(pattern.length() - 1) != '.') {
+            return null;
+        }
+        String octetPart = pattern.substring(0, pattern.length() - 1);
+        String[] octets = octetPart.split("\\.", -1);
+        if (octets.length > 3) {
+            return null;
+        }
+        String padded = octetPart + ".0".repeat(4 - octets.length);
+        long network = parse(padded);
+        if (network == INVALID) {
+            return null;
+        }
+        return new long[] {network, octets.length * 8};
+    }
+
+    public static long mask(int prefixLength) {
+        return prefixLength == 0 ? 0L : (0xFFFFFFFFL << (32 - prefixLength)) & 0xFFFFFFFFL;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.frauddetectionsystem.engine;
+
+/**
+ * Match operators supported by IP_BLACKLIST rules, resolved once from the rule
+ * condition string at compile time.
+ */
+public enum IpMatchOperator {
+    STARTS_WITH,
+    EQUALS,
+    CONTAINS,
+    REGEX,
+    CIDR;
+
+    /**
+     * @return the operator for the given condition, or {@code null} if the condition is not recognised
+     */
+    public static IpMatchOperator fromCondition(String condition) {
+        if (condition == null) {
+            return null;
+        }
+        for (IpMatchOperator operator : values()) {
+            if (operator.name().equals(condition.trim())) {
+                return operator;
+            }
+        }
+        return null;
+    }
+}
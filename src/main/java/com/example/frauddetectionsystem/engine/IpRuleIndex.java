@@ -0,0 +1,103 @@
+package com.example.frauddetectionsystem.engine;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Binary radix trie over packed IPv4 addresses. Every indexable IP_BLACKLIST rule
+ * (EQUALS on an address, STARTS_WITH on whole octets, CIDR) is stored at the node for
+ * its prefix, so a single walk of at most 32 bits finds the best-ranked rule covering
+ * an address, independent of the number of rules.
+ */
+final class IpRuleIndex {
+
+    static final IpRuleIndex EMPTY = new IpRuleIndex(new Node(), 0);
+
+    private final Node root;
+    private final int size;
+
+    private IpRuleIndex(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    static IpRuleIndex build(Collection<CompiledRule> rules) {
+        if (rules.isEmpty()) {
+            return EMPTY;
+        }
+        Node root = new Node();
+        for (CompiledRule rule : rules) {
+            insert(root, rule);
+        }
+        return new IpRuleIndex(root, rules.size());
+    }
+
+    /**
+     * @param address a packed address as returned by {@link IpAddresses#parse(String)}
+     * @return the lowest-ranked rule whose prefix covers the address, or {@code null}
+     */
+    CompiledRule lookup(long address) {
+        Node node = root;
+        CompiledRule best = node.best();
+        for (int bit = 31; bit >= 0 && node != null; bit--) {
+            node = ((address >>> bit) & 1L) == 0 ? node.zero : node.one;
+            if (node != null && node.rules != null) {
+                CompiledRule candidate = node.rules[0];
+                if (best == null || candidate.getRank() < best.getRank()) {
+                    best = candidate;
+                }
+            }
+        }
+        return best;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static void insert(Node root, CompiledRule rule) {
+        long network = rule.getIpNetwork();
+        int prefixLength = rule.getIpPrefixLength();
+        Node node = root;
+        for (int depth = 0; depth < prefixLength; depth++) {
+            boolean one = ((network >>> (31 - depth)) & 1L) != 0;
+            Node next = one ? node.one : node.zero;
+            if (next == null) {
+                next = new Node();
+                if (one) {
+                    node.one = next;
+                } else {
+                    node.zero = next;
+                }
+            }
+            node = next;
+        }
+        node.add(rule);
+    }
+
+    private static final class Node {
+        private Node zero;
+        private Node one;
+        // Rules terminating at this prefix, kept sorted by rank; null when there are none
+        private CompiledRule[] rules;
+
+        CompiledRule best() {
+            return rules != null ? rules[0] : null;
+        }
+
+        void add(CompiledRule rule) {
+            if (rules == null) {
+                rules = new CompiledRule[] {rule};
+                return;
+            }
+            CompiledRule[] grown = Arrays.copyOf(rules, rules.length + 1);
+            int i = grown.length - 1;
+            while (i > 0 && grown[i - 1].getRank() > rule.getRank()) {
+                grown[i] = grown[i - 1];
+                i--;
+            }
+            grown[i] = rule;
+            rules = grown;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.example.frauddetectionsystem.engine;
+
+import com.example.frauddetectionsystem.domain.FixedPointAmount;
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.domain.Transaction;
+import com.example.frauddetectionsystem.exception.RuleCompilationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Turns {@link FraudRule} entities into {@link CompiledRule}s. All condition strings,
+ * thresholds and patterns are parsed here, once, so that evaluation never has to.
+ */
+@Component
+@Slf4j
+public class RuleCompiler {
+
+    static final String WINDOW_SECONDS = "WINDOW_SECONDS";
+
+    private final RuleStateRegistry stateRegistry;
+
+    public RuleCompiler() {
+        this(new RuleStateRegistry(Clock.systemUTC()));
+    }
+
+    public RuleCompiler(RuleStateRegistry stateRegistry) {
+        this.stateRegistry = stateRegistry;
+    }
+
+    /**
+     * Compiles a single rule.
+     *
+     * @throws RuleCompilationException if the rule's condition or parameters are invalid
+     */
+    public CompiledRule compile(FraudRule rule) {
+        return compile(rule, stateRegistry);
+    }
+
+    /**
+     * Checks that a rule compiles, without side effects: state of stateful rules is
+     * created in a throwaway registry instead of the one live snapshots use.
+     *
+     * @throws RuleCompilationException if the rule's condition or parameters are invalid
+     */
+    public void validate(FraudRule rule) {
+        compile(rule, new RuleStateRegistry(stateRegistry.clock()));
+    }
+
+    private CompiledRule compile(FraudRule rule, RuleStateRegistry states) {
+        String ruleName = rule.getRuleName();
+        if (rule.getRuleType() == null) {
+            throw new RuleCompilationException(ruleName, "rule type is required");
+        }
+        if (rule.getActionType() == null) {
+            throw new RuleCompilationException(ruleName, "action type is required");
+        }
+        if (rule.getPriority() == null) {
+            throw new RuleCompilationException(ruleName, "priority is required");
+        }
+
+        return switch (rule.getRuleType()) {
+            case AMOUNT_THRESHOLD -> compileAmountThreshold(rule);
+            case IP_BLACKLIST -> compileIpBlacklist(rule);
+            case DUPLICATE_TRANSACTION -> compileDuplicateTransaction(rule, states);
+            case VELOCITY -> compileVelocity(rule, states);
+        };
+    }
+
+    /**
+     * Compiles a priority-ordered list of rules into an immutable snapshot. Rules that fail
+     * to compile are logged and left out rather than failing the whole snapshot.
+     */
+    public RuleSnapshot compile(List<FraudRule> rules, long version) {
+        List<CompiledRule> compiled = new ArrayList<>(rules.size());
+        for (FraudRule rule : rules) {
+            try {
+                compiled.add(compile(rule));
+            } catch (RuleCompilationException e) {
+                log.warn("Skipping rule during snapshot compilation: {}", e.getMessage());
+            }
+        }
+        compiled.sort(Comparator.comparingLong(CompiledRule::getRank));
+        RuleSnapshot snapshot = new RuleSnapshot(version, compiled);
+        releaseUnusedState(snapshot);
+
+        log.info("Compiled rule snapshot v{}: {} of {} rules", version, compiled.size(), rules.size());
+        return snapshot;
+    }
+
+    /**
+     * Derives a snapshot from {@code base} for a change to one rule: the rule with
+     * {@code ruleId} is dropped and, if {@code rule} is given and active, replaced by its
+     * compiled form. Only that rule is compiled and only its partitions are re-indexed.
+     */
+    public RuleSnapshot applyChange(RuleSnapshot base, Long ruleId, FraudRule rule, long version) {
+        CompiledRule compiled = null;
+        if (rule != null && Boolean.TRUE.equals(rule.getIsActive())) {
+            try {
+                compiled = compile(rule);
+            } catch (RuleCompilationException e) {
+                log.warn("Leaving rule out of snapshot v{}: {}", version, e.getMessage());
+            }
+        }
+        RuleSnapshot snapshot = base.withChange(version, ruleId, compiled);
+        releaseUnusedState(snapshot);
+        return snapshot;
+    }
+
+    private void releaseUnusedState(RuleSnapshot snapshot) {
+        // Release state of stateful rules that were removed or reconfigured
+        Set<String> stateKeys = new HashSet<>();
+        for (CompiledRule rule : snapshot.getRules()) {
+            if (rule.isStateful()) {
+                stateKeys.add(rule.getStateKey());
+            }
+        }
+        stateRegistry.retainOnly(stateKeys);
+    }
+
+    private CompiledRule compileAmountThreshold(FraudRule rule) {
+        AmountOperator operator = AmountOperator.fromCondition(rule.getRuleCondition());
+        if (operator == null) {
+            throw new RuleCompilationException(rule.getRuleName(),
+                "unsupported amount condition '" + rule.getRuleCondition() + "'");
+        }
+        BigDecimal threshold = rule.getThresholdValue();
+        if (threshold == null) {
+            throw new RuleCompilationException(rule.getRuleName(), "threshold value is required");
+        }
+
+        long thresholdMinorUnits = FixedPointAmount.toMinorUnits(threshold);
+        RulePredicate predicate = transaction -> {
+            long amountMinorUnits = transaction.getAmountMinorUnits();
+            if (FixedPointAmount.isRepresentable(amountMinorUnits) && FixedPointAmount.isRepresentable(thresholdMinorUnits)) {
+                return operator.test(amountMinorUnits, thresholdMinorUnits);
+            }
+            return transaction.getAmount() != null && operator.test(transaction.getAmount(), threshold);
+        };
+        return new CompiledRule(rule, predicate, operator, null);
+    }
+
+    private CompiledRule compileIpBlacklist(FraudRule rule) {
+        IpMatchOperator operator = IpMatchOperator.fromCondition(rule.getRuleCondition());
+        if (operator == null) {
+            throw new RuleCompilationException(rule.getRuleName(),
+                "unsupported IP condition '" + rule.getRuleCondition() + "'");
+        }
+        String pattern = rule.getStringValue();
+        if (pattern == null || pattern.isEmpty()) {
+            throw new RuleCompilationException(rule.getRuleName(), "string value is required");
+        }
+
+        long[] prefix = switch (operator) {
+            case EQUALS -> {
+                long address = IpAddresses.parse(pattern);
+                yield address != IpAddresses.INVALID ? new long[] {address, 32} : null;
+            }
+            case STARTS_WITH -> IpAddresses.parseOctetPrefix(pattern);
+            case CIDR -> {
+                long[] cidr = IpAddresses.parseCidr(pattern);
+                if (cidr == null) {
+                    throw new RuleCompilationException(rule.getRuleName(), "invalid CIDR block '" + pattern + "'");
+                }
+                yield cidr;
+            }
+            case CONTAINS, REGEX -> null;
+        };
+
+        RulePredicate predicate = switch (operator) {
+            case STARTS_WITH -> transaction -> {
+                String ip = transaction.getIpAddress();
+                return ip != null && ip.startsWith(pattern);
+            };
+            case EQUALS -> transaction -> pattern.equals(transaction.getIpAddress());
+            case CONTAINS -> transaction -> {
+                String ip = transaction.getIpAddress();
+                return ip != null && ip.contains(pattern);
+            };
+            case REGEX -> {
+                Pattern regex = compileRegex(rule.getRuleName(), pattern);
+                // A Matcher is allocated per run, so first rule out addresses that cannot match
+                String literal = literalPrefix(pattern);
+                yield transaction -> {
+                    String ip = transaction.getIpAddress();
+                    return ip != null && ip.startsWith(literal) && regex.matcher(ip).matches();
+                };
+            }
+            case CIDR -> {
+                long network = prefix[0];
+                long mask = IpAddresses.mask((int) prefix[1]);
+                yield transaction -> {
+                    long address = IpAddresses.parse(transaction.getIpAddress());
+                    return address != IpAddresses.INVALID && (address & mask) == network;
+                };
+            }
+        };
+        if (prefix == null) {
+            return new CompiledRule(rule, predicate, null, operator);
+        }
+        return new CompiledRule(rule, predicate, null, operator, prefix[0], (int) prefix[1]);
+    }
+
+    /**
+     * DUPLICATE_TRANSACTION: {@code ruleCondition} is {@code WINDOW_SECONDS=<n>} and
+     * {@code stringValue} lists the fields that make two transactions duplicates, e.g.
+     * {@code originatorDetails.account,amount,eTransferDetails.recipientAccount}.
+     */
+    private CompiledRule compileDuplicateTransaction(FraudRule rule, RuleStateRegistry states) {
+        ConditionParameters condition = ConditionParameters.parse(rule.getRuleCondition());
+        long windowSeconds = condition.positiveLong(WINDOW_SECONDS);
+        if (windowSeconds <= 0) {
+            throw new RuleCompilationException(rule.getRuleName(),
+                "duplicate condition must be WINDOW_SECONDS=<positive seconds>, got '" + rule.getRuleCondition() + "'");
+        }
+        TransactionKey key = TransactionKey.parse(rule.getStringValue());
+        if (key == null) {
+            throw new RuleCompilationException(rule.getRuleName(),
+                "string value must list the matching fields (amount, ipAddress, originatorDetails.<key>, "
+                    + "eTransferDetails.<key>), got '" + rule.getStringValue() + "'");
+        }
+
+        String stateKey = rule.getRuleType() + ":" + rule.getId() + ":" + windowSeconds + ":" + key.spec();
+        DuplicateWindow window = states.stateFor(stateKey,
+            () -> new DuplicateWindow(windowSeconds * 1000, states.clock()));
+        StatefulPredicate predicate = transaction -> {
+            long fingerprint = key.fingerprint(transaction);
+            return fingerprint != TransactionKey.MISSING && window.checkAndRecord(fingerprint);
+        };
+        return new CompiledRule(rule, predicate, stateKey);
+    }
+
+    /**
+     * VELOCITY: {@code ruleCondition} is {@code COUNT_GREATER_THAN;WINDOW_SECONDS=<n>} or
+     * {@code AMOUNT_GREATER_THAN;WINDOW_SECONDS=<n>}, {@code thresholdValue} is the limit and
+     * {@code stringValue} the field(s) counted per key, e.g. {@code ipAddress} or
+     * {@code originatorDetails.account}.
+     */
+    private CompiledRule compileVelocity(FraudRule rule, RuleStateRegistry states) {
+        ConditionParameters condition = ConditionParameters.parse(rule.getRuleCondition());
+        VelocityMeasure measure = VelocityMeasure.fromCondition(condition);
+        long windowSeconds = condition.positiveLong(WINDOW_SECONDS);
+        if (measure == null || windowSeconds <= 0) {
+            throw new RuleCompilationException(rule.getRuleName(),
+                "velocity condition must be COUNT_GREATER_THAN or AMOUNT_GREATER_THAN with "
+                    + "WINDOW_SECONDS=<positive seconds>, got '" + rule.getRuleCondition() + "'");
+        }
+        TransactionKey key = TransactionKey.parse(rule.getStringValue());
+        if (key == null) {
+            throw new RuleCompilationException(rule.getRuleName(),
+                "string value must name the key field (ipAddress, originatorDetails.<key>, ...), got '"
+                    + rule.getStringValue() + "'");
+        }
+        long limit = velocityLimit(rule, measure);
+
+        // Counters depend only on window and key, so changing the limit or measure keeps them
+        String stateKey = rule.getRuleType() + ":" + rule.getId() + ":" + windowSeconds + ":" + key.spec();
+        VelocityCounterStore store = states.stateFor(stateKey,
+            () -> new VelocityCounterStore(windowSeconds * 1000, states.clock()));
+        StatefulPredicate predicate = transaction -> {
+            long fingerprint = key.fingerprint(transaction);
+            if (fingerprint == TransactionKey.MISSING) {
+                return false;
+            }
+            VelocityCounterStore.Totals totals = store.add(fingerprint, velocityAmount(transaction));
+            return measure == VelocityMeasure.COUNT_GREATER_THAN
+                ? totals.count() > limit
+                : totals.amountMinorUnits() > limit;
+        };
+        return new CompiledRule(rule, predicate, stateKey);
+    }
+
+    private static long velocityLimit(FraudRule rule, VelocityMeasure measure) {
+        BigDecimal threshold = rule.getThresholdValue();
+        if (threshold == null || threshold.signum() < 0) {
+            throw new RuleCompilationException(rule.getRuleName(), "a non-negative threshold value is required");
+        }
+        if (measure == VelocityMeasure.COUNT_GREATER_THAN) {
+            try {
+                return threshold.longValueExact();
+            } catch (ArithmeticException e) {
+                throw new RuleCompilationException(rule.getRuleName(),
+                    "count threshold must be a whole number, got " + threshold.toPlainString());
+            }
+        }
+        long minorUnits = FixedPointAmount.toMinorUnits(threshold);
+        if (!FixedPointAmount.isRepresentable(minorUnits)) {
+            throw new RuleCompilationException(rule.getRuleName(),
+                "amount threshold must have at most " + FixedPointAmount.SCALE + " decimal places");
+        }
+        return minorUnits;
+    }
+
+    private static long velocityAmount(Transaction transaction) {
+        long minorUnits = transaction.getAmountMinorUnits();
+        if (FixedPointAmount.isRepresentable(minorUnits)) {
+            return minorUnits;
+        }
+        BigDecimal amount = transaction.getAmount();
+        if (amount == null) {
+            return 0;
+        }
+        // Over-precise amounts are rounded; amounts too large for a long saturate
+        long rounded = FixedPointAmount.toMinorUnits(amount, RoundingMode.HALF_UP);
+        return FixedPointAmount.isRepresentable(rounded) ? rounded : Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the literal text every string fully matched by {@code regex} starts with,
+     * e.g. {@code "10.0."} for {@code 10\.0\.[0-9]+\.[0-9]+}. Conservative: stops at the
+     * first construct that is not a plain or escaped literal, drops a literal followed by a
+     * quantifier, and gives up on alternations.
+     */
+    static String literalPrefix(String regex) {
+        if (regex.indexOf('|') >= 0) {
+            return "";
+        }
+        StringBuilder prefix = new StringBuilder();
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            char literal;
+            int next;
+            if (c == '\\') {
+                if (i + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                    break; // character class, back reference or quoting
+                }
+                literal = regex.charAt(i + 1);
+                next = i + 2;
+            } else if (".[](){}*+?^$".indexOf(c) >= 0) {
+                break;
+            } else {
+                literal = c;
+                next = i + 1;
+            }
+            if (next < regex.length() && "?*+{".indexOf(regex.charAt(next)) >= 0) {
+                break;
+            }
+            prefix.append(literal);
+            i = next;
+        }
+        return prefix.toString();
+    }
+
+    private static Pattern compileRegex(String ruleName, String pattern) {
+        try {
+            return Pattern.compile(pattern);
+        } catch (PatternSyntaxException e) {
+            throw new RuleCompilationException(ruleName, "invalid regular expression: " + e.getDescription(), e);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.frauddetectionsystem.engine;
+
+import com.example.frauddetectionsystem.domain.FraudRule;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Objects;
+
+/**
+ * Immutable, compact copy of a {@link FraudRule} as it was when compiled. Snapshots hold
+ * these instead of the JPA entities, so a cached rule can never change under a running
+ * evaluation, and the per-rule footprint is kept small: priority and timestamps are
+ * primitives, enums are stored by ordinal, and the condition and message strings - shared
+ * by most rules - are interned.
+ */
+public final class RuleDefinition {
+
+    private static final FraudRule.RuleType[] RULE_TYPES = FraudRule.RuleType.values();
+    private static final FraudRule.ActionType[] ACTION_TYPES = FraudRule.ActionType.values();
+    // Marks a missing ID or timestamp; generated IDs start at 1
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final long id;
+    private final String ruleName;
+    private final byte ruleType;
+    private final byte actionType;
+    private final int priority;
+    private final String ruleCondition;
+    private final String actionMessage;
+    private final BigDecimal thresholdValue;
+    private final String stringValue;
+    private final long createdAtNanos;
+    private final long updatedAtNanos;
+
+    private RuleDefinition(FraudRule rule) {
+        this.id = rule.getId() != null ? rule.getId() : NONE;
+        this.ruleName = rule.getRuleName();
+        this.ruleType = (byte) rule.getRuleType().ordinal();
+        this.actionType = (byte) rule.getActionType().ordinal();
+        this.priority = rule.getPriority();
+        this.ruleCondition = intern(rule.getRuleCondition());
+        this.actionMessage = intern(rule.getActionMessage());
+        this.thresholdValue = rule.getThresholdValue();
+        this.stringValue = rule.getStringValue();
+        this.createdAtNanos = toEpochNanos(rule.getCreatedAt());
+        this.updatedAtNanos = toEpochNanos(rule.getUpdatedAt());
+    }
+
+    /**
+     * Copies the rule. Type, action type and priority must be set.
+     */
+    static RuleDefinition of(FraudRule rule) {
+        return new RuleDefinition(rule);
+    }
+
+    /**
+     * @return a new, detached entity with this rule's values, e.g. for API responses
+     */
+    public FraudRule toEntity() {
+        FraudRule rule = new FraudRule();
+        rule.setId(getId());
+        rule.setRuleName(ruleName);
+        rule.setRuleType(getRuleType());
+        rule.setRuleCondition(ruleCondition);
+        rule.setActionType(getActionType());
+        rule.setActionMessage(actionMessage);
+        rule.setPriority(priority);
+        rule.setIsActive(true);
+        rule.setThresholdValue(thresholdValue);
+        rule.setStringValue(stringValue);
+        rule.setCreatedAt(fromEpochNanos(createdAtNanos));
+        rule.setUpdatedAt(fromEpochNanos(updatedAtNanos));
+        return rule;
+    }
+
+    /**
+     * @return whether compiling {@code rule} would give the same rule as this definition;
+     * timestamps are not compared, and thresholds are compared by value since the database
+     * may return a different scale than the one saved
+     */
+    boolean matches(FraudRule rule) {
+        return Objects.equals(getId(), rule.getId())
+            && Objects.equals(ruleName, rule.getRuleName())
+            && getRuleType() == rule.getRuleType()
+            && getActionType() == rule.getActionType()
+            && Objects.equals(priority, rule.getPriority())
+            && Objects.equals(ruleCondition, rule.getRuleCondition())
+            && Objects.equals(actionMessage, rule.getActionMessage())
+            && (thresholdValue == null
+                ? rule.getThresholdValue() == null
+                : rule.getThresholdValue() != null && thresholdValue.compareTo(rule.getThresholdValue()) == 0)
+            && Objects.equals(stringValue, rule.getStringValue());
+    }
+
+    /**
+     * @return the rule ID, or {@code null} for a rule that was never saved
+     */
+    public Long getId() {
+        return id != NONE ? id : null;
+    }
+
+    /**
+     * @return the rule ID, 0 for a rule that was never saved
+     */
+    long idOrZero() {
+        return id != NONE ? id : 0L;
+    }
+
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public FraudRule.RuleType getRuleType() {
+        return RULE_TYPES[ruleType];
+    }
+
+    public FraudRule.ActionType getActionType() {
+        return ACTION_TYPES[actionType];
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public String getRuleCondition() {
+        return ruleCondition;
+    }
+
+    public String getActionMessage() {
+        return actionMessage;
+    }
+
+    public BigDecimal getThresholdValue() {
+        return thresholdValue;
+    }
+
+    public String getStringValue() {
+        return stringValue;
+    }
+
+    private static String intern(String value) {
+        return value != null ? value.intern() : null;
+    }
+
+    private static long toEpochNanos(LocalDateTime time) {
+        if (time == null) {
+            return NONE;
+        }
+        return Math.addExact(Math.multiplyExact(time.toEpochSecond(ZoneOffset.UTC), 1_000_000_000L), time.getNano());
+    }
+
+    private static LocalDateTime fromEpochNanos(long nanos) {
+        if (nanos == NONE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(
+            Math.floorDiv(nanos, 1_000_000_000L), (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.frauddetectionsystem.engine;
+
+import com.example.frauddetectionsystem.domain.Transaction;
+
+/**
+ * Pre-built match logic for a single compiled rule. Implementations must be
+ * immutable and thread-safe; all parsing happens before they are created.
+ */
+@FunctionalInterface
+public interface RulePredicate {
+
+    RulePredicate NEVER = transaction -> false;
+
+    boolean test(Transaction transaction);
+}
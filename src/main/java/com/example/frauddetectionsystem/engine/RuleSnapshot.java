@@ -0,0 +1,388 @@
+package com.example.frauddetectionsystem.engine;
+
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.domain.Transaction;
+import com.example.frauddetectionsystem.dto.RuleEvaluationResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable, versioned set of compiled rules. A snapshot is built once per rule
+ * load and shared by every request evaluated against it.
+ * <p>
+ * Rules that can be answered by an index (see {@link IpRuleIndex},
+ * {@link AmountRuleIndex} and {@link ContainsPatternMatcher}) are looked up there first; the remaining residual rules
+ * are scanned in rank order, stopping as soon as no residual rule could outrank the
+ * best indexed hit. Stateful rules (see {@link StatefulPredicate}) are run for every
+ * transaction so their state stays complete.
+ * <p>
+ * A single rule change derives a new snapshot with {@link #withChange} instead of
+ * rebuilding everything: only the affected partitions are copied and re-indexed.
+ * <p>
+ * Sequential evaluation of stateless rules allocates nothing: indexes are probed with
+ * primitives, results are shared per rule and version, and regular expressions are only
+ * run when their literal prefix matches. Stateful rules allocate as they record, and
+ * {@link #evaluateParallel} allocates its fork/join tasks.
+ */
+@Slf4j
+public final class RuleSnapshot {
+
+    private final long version;
+    private final List<CompiledRule> rules;
+    private final CompiledRule[][] partitions;
+    private final IpRuleIndex ipIndex;
+    private final AmountRuleIndex amountIndex;
+    private final ContainsPatternMatcher containsMatcher;
+    private final CompiledRule[] ipIndexedRules;
+    private final CompiledRule[] residualRules;
+    private final CompiledRule[] statefulRules;
+
+    RuleSnapshot(long version, List<CompiledRule> rules) {
+        this(version, List.copyOf(rules), partition(rules), null);
+    }
+
+    /**
+     * Builds a snapshot from rank-ordered rules already split into partitions. Indexes of
+     * partitions that are the same array as in {@code base} are shared, not rebuilt.
+     */
+    private RuleSnapshot(long version, List<CompiledRule> rules, CompiledRule[][] partitions, RuleSnapshot base) {
+        this.version = version;
+        this.rules = rules;
+        this.partitions = partitions;
+        this.ipIndexedRules = partitions[Partition.IP.ordinal()];
+        this.residualRules = partitions[Partition.RESIDUAL.ordinal()];
+        this.statefulRules = partitions[Partition.STATEFUL.ordinal()];
+        this.ipIndex = base != null && base.ipIndexedRules == ipIndexedRules
+            ? base.ipIndex
+            : IpRuleIndex.build(Arrays.asList(ipIndexedRules));
+        CompiledRule[] amountIndexed = partitions[Partition.AMOUNT.ordinal()];
+        this.amountIndex = base != null && base.partitions[Partition.AMOUNT.ordinal()] == amountIndexed
+            ? base.amountIndex
+            : AmountRuleIndex.build(Arrays.asList(amountIndexed));
+        CompiledRule[] containsIndexed = partitions[Partition.CONTAINS.ordinal()];
+        this.containsMatcher = base != null && base.partitions[Partition.CONTAINS.ordinal()] == containsIndexed
+            ? base.containsMatcher
+            : ContainsPatternMatcher.build(Arrays.asList(containsIndexed));
+    }
+
+    /**
+     * Returns a new snapshot with the rule of the given ID removed and {@code added}
+     * (which may have the same ID) inserted; either may be null. Only the partitions the
+     * two rules belong to are copied and re-indexed - every other index is shared with
+     * this snapshot, which itself is left unchanged.
+     */
+    RuleSnapshot withChange(long newVersion, Long removedRuleId, CompiledRule added) {
+        CompiledRule removed = null;
+        if (removedRuleId != null) {
+            long removedId = removedRuleId;
+            for (CompiledRule rule : rules) {
+                if (rule.getDefinition().idOrZero() == removedId) {
+                    removed = rule;
+                    break;
+                }
+            }
+        }
+
+        List<CompiledRule> changedRules = new ArrayList<>(rules.size() + 1);
+        for (CompiledRule rule : rules) {
+            if (rule != removed) {
+                changedRules.add(rule);
+            }
+        }
+        CompiledRule[][] changedPartitions = partitions.clone();
+        if (removed != null) {
+            int p = Partition.of(removed).ordinal();
+            changedPartitions[p] = without(changedPartitions[p], removed);
+        }
+        if (added != null) {
+            changedRules.add(insertionPoint(changedRules, added.getRank()), added);
+            int p = Partition.of(added).ordinal();
+            changedPartitions[p] = with(changedPartitions[p], added);
+        }
+        return new RuleSnapshot(newVersion, Collections.unmodifiableList(changedRules), changedPartitions, this);
+    }
+
+    /**
+     * Evaluates the transaction and returns the result of the highest-priority rule
+     * that triggers, or {@link RuleEvaluationResult#notTriggered()}.
+     */
+    public RuleEvaluationResult evaluate(Transaction transaction) {
+        CompiledRule best = lookupIndexes(transaction);
+        long bestRank = best != null ? best.getRank() : Long.MAX_VALUE;
+
+        for (CompiledRule rule : residualRules) {
+            if (rule.getRank() >= bestRank) {
+                break;
+            }
+            if (matches(rule, transaction)) {
+                best = rule;
+                break;
+            }
+        }
+        return best != null ? best.triggeredResult(version) : RuleEvaluationResult.notTriggered();
+    }
+
+    /**
+     * Same result as {@link #evaluate(Transaction)}, but the residual rules are split into
+     * rank-ordered chunks that are scanned in parallel on the given pool. Chunks stop as
+     * soon as a better-ranked hit has been published by another chunk.
+     */
+    public RuleEvaluationResult evaluateParallel(Transaction transaction, ForkJoinPool pool, int chunkSize) {
+        if (residualRules.length <= chunkSize) {
+            return evaluate(transaction);
+        }
+        CompiledRule best = lookupIndexes(transaction);
+        AtomicLong bestRank = new AtomicLong(best != null ? best.getRank() : Long.MAX_VALUE);
+        CompiledRule residualHit = pool.invoke(
+            new ResidualScanTask(transaction, 0, residualRules.length, Math.max(1, chunkSize), bestRank));
+        best = better(best, residualHit);
+        return best != null ? best.triggeredResult(version) : RuleEvaluationResult.notTriggered();
+    }
+
+    private CompiledRule lookupIndexes(Transaction transaction) {
+        CompiledRule best = recordStateful(transaction);
+        best = better(best, lookupIpIndex(transaction));
+        if (transaction.getAmount() != null) {
+            best = better(best, amountIndex.lookup(transaction.getAmountMinorUnits(), transaction.getAmount()));
+        }
+        if (transaction.getIpAddress() != null) {
+            best = better(best, containsMatcher.lookup(transaction.getIpAddress()));
+        }
+        return best;
+    }
+
+    private CompiledRule recordStateful(Transaction transaction) {
+        CompiledRule best = null;
+        // No early exit: every stateful rule has to record the transaction
+        for (CompiledRule rule : statefulRules) {
+            try {
+                if (rule.testAndRecord(transaction)) {
+                    best = better(best, rule);
+                }
+            } catch (RuntimeException e) {
+                log.error("Error evaluating rule '{}': {}", rule.getRuleName(), e.getMessage(), e);
+            }
+        }
+        return best;
+    }
+
+    private CompiledRule lookupIpIndex(Transaction transaction) {
+        if (ipIndexedRules.length == 0 || transaction.getIpAddress() == null) {
+            return null;
+        }
+        long address = IpAddresses.parse(transaction.getIpAddress());
+        if (address != IpAddresses.INVALID) {
+            return ipIndex.lookup(address);
+        }
+        // Non-canonical address: fall back to the rules' own string semantics
+        for (CompiledRule rule : ipIndexedRules) {
+            if (matches(rule, transaction)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private static CompiledRule better(CompiledRule current, CompiledRule candidate) {
+        if (candidate != null && (current == null || candidate.getRank() < current.getRank())) {
+            return candidate;
+        }
+        return current;
+    }
+
+    private static boolean matches(CompiledRule rule, Transaction transaction) {
+        try {
+            return rule.matches(transaction);
+        } catch (RuntimeException e) {
+            log.error("Error evaluating rule '{}': {}", rule.getRuleName(), e.getMessage(), e);
+            return false;
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<CompiledRule> getRules() {
+        return rules;
+    }
+
+    /**
+     * @return whether this snapshot already holds {@code rule} as the rule with
+     * {@code ruleId}, or holds no such rule if {@code rule} is null (deleted) or inactive
+     */
+    public boolean reflects(Long ruleId, FraudRule rule) {
+        long id = ruleId;
+        CompiledRule held = null;
+        for (CompiledRule compiled : rules) {
+            if (compiled.getDefinition().idOrZero() == id) {
+                held = compiled;
+                break;
+            }
+        }
+        if (rule == null || !Boolean.TRUE.equals(rule.getIsActive())) {
+            return held == null;
+        }
+        return held != null && held.getDefinition().matches(rule);
+    }
+
+    public int size() {
+        return rules.size();
+    }
+
+    public int getResidualRuleCount() {
+        return residualRules.length;
+    }
+
+    public int getIpIndexedRuleCount() {
+        return ipIndex.size();
+    }
+
+    public int getAmountIndexedRuleCount() {
+        return amountIndex.size();
+    }
+
+    public int getContainsIndexedRuleCount() {
+        return containsMatcher.size();
+    }
+
+    public int getStatefulRuleCount() {
+        return statefulRules.length;
+    }
+
+    private static CompiledRule[][] partition(List<CompiledRule> rules) {
+        List<List<CompiledRule>> partitioned = new ArrayList<>();
+        for (int i = 0; i < Partition.values().length; i++) {
+            partitioned.add(new ArrayList<>());
+        }
+        for (CompiledRule rule : rules) {
+            partitioned.get(Partition.of(rule).ordinal()).add(rule);
+        }
+        CompiledRule[][] partitions = new CompiledRule[partitioned.size()][];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = partitioned.get(i).toArray(new CompiledRule[0]);
+        }
+        return partitions;
+    }
+
+    private static CompiledRule[] with(CompiledRule[] rules, CompiledRule added) {
+        int index = insertionPoint(Arrays.asList(rules), added.getRank());
+        CompiledRule[] copy = new CompiledRule[rules.length + 1];
+        System.arraycopy(rules, 0, copy, 0, index);
+        copy[index] = added;
+        System.arraycopy(rules, index, copy, index + 1, rules.length - index);
+        return copy;
+    }
+
+    private static CompiledRule[] without(CompiledRule[] rules, CompiledRule removed) {
+        for (int i = 0; i < rules.length; i++) {
+            if (rules[i] == removed) {
+                CompiledRule[] copy = new CompiledRule[rules.length - 1];
+                System.arraycopy(rules, 0, copy, 0, i);
+                System.arraycopy(rules, i + 1, copy, i, rules.length - i - 1);
+                return copy;
+            }
+        }
+        return rules;
+    }
+
+    private static int insertionPoint(List<CompiledRule> rules, long rank) {
+        int low = 0;
+        int high = rules.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rules.get(mid).getRank() < rank) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Which index (or scan) of the snapshot a rule is evaluated by.
+     */
+    private enum Partition {
+        STATEFUL,
+        IP,
+        AMOUNT,
+        CONTAINS,
+        RESIDUAL;
+
+        static Partition of(CompiledRule rule) {
+            if (rule.isStateful()) {
+                return STATEFUL;
+            } else if (rule.isIpIndexed()) {
+                return IP;
+            } else if (rule.getAmountOperator() != null) {
+                return AMOUNT;
+            } else if (rule.getIpOperator() == IpMatchOperator.CONTAINS && ContainsPatternMatcher.supports(rule)) {
+                return CONTAINS;
+            }
+            return RESIDUAL;
+        }
+    }
+
+    /**
+     * Scans a rank-ordered slice of the residual rules. The left (higher-priority) half is
+     * evaluated by the current thread while the right half is forked, and every leaf
+     * checks the shared best rank before each rule so lower-priority work is abandoned
+     * once it can no longer win.
+     */
+    private final class ResidualScanTask extends RecursiveTask<CompiledRule> {
+        private final Transaction transaction;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+        private final AtomicLong bestRank;
+
+        ResidualScanTask(Transaction transaction, int from, int to, int chunkSize, AtomicLong bestRank) {
+            this.transaction = transaction;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+            this.bestRank = bestRank;
+        }
+
+        @Override
+        protected CompiledRule compute() {
+            if (residualRules[from].getRank() >= bestRank.get()) {
+                return null;
+            }
+            if (to - from <= chunkSize) {
+                return scanChunk();
+            }
+            int mid = (from + to) >>> 1;
+            ResidualScanTask right = new ResidualScanTask(transaction, mid, to, chunkSize, bestRank);
+            right.fork();
+            CompiledRule leftHit = new ResidualScanTask(transaction, from, mid, chunkSize, bestRank).compute();
+            if (leftHit != null && right.tryUnfork()) {
+                // Every rule on the right ranks below the left hit; no need to run it
+                return leftHit;
+            }
+            return better(leftHit, right.join());
+        }
+
+        private CompiledRule scanChunk() {
+            for (int i = from; i < to; i++) {
+                CompiledRule rule = residualRules[i];
+                if (rule.getRank() >= bestRank.get()) {
+                    return null;
+                }
+                if (matches(rule, transaction)) {
+                    bestRank.accumulateAndGet(rule.getRank(), Math::min);
+                    return rule;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.frauddetectionsystem.engine;
+
+import java.time.Clock;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Holds the runtime state of stateful rules (e.g. {@link DuplicateWindow}s) across
+ * snapshots. Rules are recompiled whenever the rule set reloads, but their state is
+ * keyed by rule ID and configuration, so it survives a reload and is only reset when
+ * the rule's own window or fields change.
+ */
+public final class RuleStateRegistry {
+
+    private final Clock clock;
+    private final ConcurrentHashMap<String, Object> states = new ConcurrentHashMap<>();
+
+    public RuleStateRegistry(Clock clock) {
+        this.clock = clock;
+    }
+
+    Clock clock() {
+        return clock;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T stateFor(String key, Supplier<T> factory) {
+        return (T) states.computeIfAbsent(key, k -> factory.get());
+    }
+
+    /**
+     * Drops state not used by the given keys, e.g. for rules deleted or reconfigured
+     * since the previous snapshot.
+     */
+    void retainOnly(Set<String> keys) {
+        states.keySet().retainAll(keys);
+    }
+
+    int size() {
+        return states.size();
+    }
+}
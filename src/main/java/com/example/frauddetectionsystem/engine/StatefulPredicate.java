@@ -0,0 +1,19 @@
+package com.example.frauddetectionsystem.engine;
+
+import com.example.frauddetectionsystem.domain.Transaction;
+
+/**
+ * Match logic for rules that depend on previously seen transactions. Unlike a
+ * {@link RulePredicate}, a stateful predicate must see every evaluated transaction,
+ * so the snapshot calls it unconditionally rather than only until a better rule wins.
+ * Implementations must be thread-safe.
+ */
+@FunctionalInterface
+public interface StatefulPredicate {
+
+    /**
+     * Records the transaction and reports whether it triggers the rule given the
+     * transactions recorded before it.
+     */
+    boolean testAndRecord(Transaction transaction);
+}
@@ -0,0 +1,112 @@
+package com.example.frauddetectionsystem.engine;
+
+import com.example.frauddetectionsystem.domain.Transaction;
+import com.example.frauddetectionsystem.domain.TransactionDetails;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Extracts a composite key from a configurable list of transaction fields, e.g.
+ * {@code originatorDetails.account,amount,eTransferDetails.recipientAccount}. Supported
+ * fields are {@code amount}, {@code ipAddress} and {@code originatorDetails.<key>} /
+ * {@code eTransferDetails.<key>} for entries of the detail maps.
+ * <p>
+ * Keys are reduced to a 64-bit fingerprint so stateful indexes hold primitives rather
+ * than strings.
+ */
+final class TransactionKey {
+
+    /** Returned when any of the configured fields is absent on the transaction. */
+    static final long MISSING = 0L;
+
+    private static final String ORIGINATOR_PREFIX = "originatorDetails.";
+    private static final String E_TRANSFER_PREFIX = "eTransferDetails.";
+
+    private final String spec;
+    private final Function<Transaction, String>[] extractors;
+
+    private TransactionKey(String spec, Function<Transaction, String>[] extractors) {
+        this.spec = spec;
+        this.extractors = extractors;
+    }
+
+    /**
+     * @return the key, or {@code null} if the field list is empty or names an unsupported field
+     */
+    @SuppressWarnings("unchecked")
+    static TransactionKey parse(String fieldList) {
+        if (fieldList == null || fieldList.isBlank()) {
+            return null;
+        }
+        List<Function<Transaction, String>> extractors = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        for (String token : fieldList.split(",")) {
+            String field = token.trim();
+            Function<Transaction, String> extractor = extractorFor(field);
+            if (extractor == null) {
+                return null;
+            }
+            extractors.add(extractor);
+            fields.add(field);
+        }
+        return new TransactionKey(String.join(",", fields), extractors.toArray(new Function[0]));
+    }
+
+    private static Function<Transaction, String> extractorFor(String field) {
+        if (field.equals("amount")) {
+            // toString, not toPlainString: 1E+20000000 must not expand to twenty million digits
+            return transaction -> transaction.getAmount() != null
+                ? transaction.getAmount().stripTrailingZeros().toString()
+                : null;
+        }
+        if (field.equals("ipAddress")) {
+            return Transaction::getIpAddress;
+        }
+        if (field.startsWith(ORIGINATOR_PREFIX) && field.length() > ORIGINATOR_PREFIX.length()) {
+            String key = field.substring(ORIGINATOR_PREFIX.length());
+            return transaction -> detail(transaction.getOriginatorDetails(), key);
+        }
+        if (field.startsWith(E_TRANSFER_PREFIX) && field.length() > E_TRANSFER_PREFIX.length()) {
+            String key = field.substring(E_TRANSFER_PREFIX.length());
+            return transaction -> detail(transaction.getETransferDetails(), key);
+        }
+        return null;
+    }
+
+    private static String detail(TransactionDetails details, String key) {
+        return details != null && details.getDetails() != null ? details.getDetails().get(key) : null;
+    }
+
+    /**
+     * @return a non-zero fingerprint of the field values, or {@link #MISSING}
+     */
+    long fingerprint(Transaction transaction) {
+        long hash = 0xcbf29ce484222325L;
+        for (Function<Transaction, String> extractor : extractors) {
+            String value = extractor.apply(transaction);
+            if (value == null) {
+                return MISSING;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            // Field separator, so ("ab", "c") and ("a", "bc") differ
+            hash ^= 0x1F;
+            hash *= 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        hash ^= hash >>> 31;
+        return hash != MISSING ? hash : 1L;
+    }
+
+    /**
+     * @return the normalized field list
+     */
+    String spec() {
+        return spec;
+    }
+}
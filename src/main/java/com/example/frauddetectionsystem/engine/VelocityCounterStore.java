@@ -0,0 +1,111 @@
+package com.example.frauddetectionsystem.engine;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-key sliding-window counters backing VELOCITY rules, keyed by a 64-bit
+ * {@link TransactionKey} fingerprint.
+ * <p>
+ * Each counter splits the window into {@value #BUCKETS_PER_WINDOW} sub-buckets in a
+ * ring, so the window slides in steps of 1/{@value #BUCKETS_PER_WINDOW} of its length.
+ * Bucket totals are {@link LongAdder}s, whose striped cells keep concurrent updates
+ * to a hot key (a busy IP) from contending on one memory word. A bucket that has fallen
+ * out of the window is replaced by CAS. The update path takes no locks.
+ * <p>
+ * Keys live in a bounded Caffeine cache. A key idle for a whole window holds nothing
+ * but zeros and is evicted; when the key limit is reached, rarely used keys are evicted first.
+ */
+final class VelocityCounterStore {
+
+    static final int BUCKETS_PER_WINDOW = 10;
+
+    static final long MAX_TRACKED_KEYS = 200_000;
+
+    // Per-transaction cap, so amount sums cannot overflow within one window
+    private static final long MAX_AMOUNT_MINOR_UNITS = Long.MAX_VALUE >> 20;
+
+    private final Clock clock;
+    private final long bucketMillis;
+    private final Cache<Long, Counter> counters;
+
+    VelocityCounterStore(long windowMillis, Clock clock) {
+        this.clock = clock;
+        this.bucketMillis = Math.max(1, (windowMillis + BUCKETS_PER_WINDOW - 1) / BUCKETS_PER_WINDOW);
+        this.counters = Caffeine.newBuilder()
+            .maximumSize(MAX_TRACKED_KEYS)
+            .expireAfterAccess(Duration.ofMillis(windowMillis))
+            .ticker(() -> clock.millis() * 1_000_000L)
+            .build();
+    }
+
+    /**
+     * Adds one transaction of the given amount to the key and returns the key's totals
+     * over the window, including this transaction.
+     */
+    Totals add(long fingerprint, long amountMinorUnits) {
+        long epoch = clock.millis() / bucketMillis;
+        Counter counter = counters.get(fingerprint, key -> new Counter());
+        counter.add(epoch, Math.min(Math.max(amountMinorUnits, 0), MAX_AMOUNT_MINOR_UNITS));
+        return counter.totals(epoch);
+    }
+
+    long trackedKeys() {
+        return counters.estimatedSize();
+    }
+
+    record Totals(long count, long amountMinorUnits) {
+    }
+
+    private static final class Counter {
+        private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(BUCKETS_PER_WINDOW);
+
+        void add(long epoch, long amountMinorUnits) {
+            Bucket bucket = bucketFor(epoch);
+            bucket.count.increment();
+            bucket.amountMinorUnits.add(amountMinorUnits);
+        }
+
+        Totals totals(long epoch) {
+            long count = 0;
+            long amount = 0;
+            for (int i = 0; i < BUCKETS_PER_WINDOW; i++) {
+                Bucket bucket = buckets.get(i);
+                if (bucket != null && epoch - bucket.epoch < BUCKETS_PER_WINDOW && bucket.epoch <= epoch) {
+                    count += bucket.count.sum();
+                    amount += bucket.amountMinorUnits.sum();
+                }
+            }
+            return new Totals(count, amount);
+        }
+
+        private Bucket bucketFor(long epoch) {
+            int slot = (int) Math.floorMod(epoch, (long) BUCKETS_PER_WINDOW);
+            while (true) {
+                Bucket bucket = buckets.get(slot);
+                if (bucket != null && bucket.epoch >= epoch) {
+                    return bucket;
+                }
+                Bucket fresh = new Bucket(epoch);
+                if (buckets.compareAndSet(slot, bucket, fresh)) {
+                    return fresh;
+                }
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder amountMinorUnits = new LongAdder();
+
+        Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
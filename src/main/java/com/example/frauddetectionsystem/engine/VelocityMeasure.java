@@ -0,0 +1,28 @@
+package com.example.frauddetectionsystem.engine;
+
+/**
+ * What a VELOCITY rule limits within its window, resolved once from the rule
+ * condition at compile time.
+ */
+public enum VelocityMeasure {
+    /** Number of transactions per key. */
+    COUNT_GREATER_THAN,
+    /** Sum of transaction amounts per key. */
+    AMOUNT_GREATER_THAN;
+
+    /**
+     * @return the measure named by one of the condition's flags, or {@code null} if none or several are present
+     */
+    static VelocityMeasure fromCondition(ConditionParameters condition) {
+        VelocityMeasure found = null;
+        for (VelocityMeasure measure : values()) {
+            if (condition.hasFlag(measure.name())) {
+                if (found != null) {
+                    return null;
+                }
+                found = measure;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.frauddetectionsystem.exception;
+
+/**
+ * Thrown when a fraud rule cannot be compiled into an executable predicate,
+ * e.g. because of an unknown condition or a missing threshold/pattern.
+ */
+public class RuleCompilationException extends RuntimeException {
+
+    private final String ruleName;
+
+    public RuleCompilationException(String ruleName, String message) {
+        super("Invalid rule '" + ruleName + "': " + message);
+        this.ruleName = ruleName;
+    }
+
+    public RuleCompilationException(String ruleName, String message, Throwable cause) {
+        super("Invalid rule '" + ruleName + "': " + message, cause);
+        this.ruleName = ruleName;
+    }
+
+    public String getRuleName() {
+        return ruleName;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.frauddetectionsystem.journal;
+
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
+import com.example.frauddetectionsystem.domain.FixedPointAmount;
+import com.example.frauddetectionsystem.domain.Transaction;
+import com.example.frauddetectionsystem.dto.RuleEvaluationResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Stream;
+
+import static com.example.frauddetectionsystem.journal.JournalFormat.*;
+
+/**
+ * Append-only binary journal of rule decisions ({@code fraud.journal.enabled}): the
+ * transaction, the rule snapshot version and triggered rule, and the decision latency of
+ * every check, in memory-mapped segment files read back with {@link DecisionJournalReader}.
+ * <p>
+ * Appends are lock-free. A writer encodes its record with an encoder borrowed from a small
+ * pool, claims a range of the current segment by advancing the segment's reserved offset
+ * and copies the record there. The one writer whose claim crosses the end of the segment
+ * marks the rest unused and maps the next segment; writers that claimed past the end wait
+ * for it and retry. Each run of the application starts a new segment.
+ * <p>
+ * Records are in the page cache once appended, so they survive a crash of the process but
+ * not of the machine until the segment is flushed: a full segment on a background thread,
+ * the current one on shutdown. The journal is an audit trail, not the system of record: a
+ * failing journal disables itself and decisions go on.
+ */
+@Component
+@Slf4j
+public class DecisionJournal {
+
+    // A power of two, so a slot is picked with a mask; more appends rarely overlap
+    private static final int ENCODER_POOL_SIZE = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4);
+
+    private final FraudDetectionProperties.Journal properties;
+    // Lent out per append rather than kept per thread: with virtual threads every request
+    // is a new thread and would allocate an encoder of its own
+    private final AtomicReferenceArray<RecordEncoder> encoders = new AtomicReferenceArray<>(ENCODER_POOL_SIZE);
+    private final ExecutorService flusher;
+    // Null while disabled, closed or failed
+    private volatile JournalSegment current;
+
+    @Autowired
+    public DecisionJournal(FraudDetectionProperties properties) {
+        this.properties = properties.getJournal();
+        this.flusher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DecisionJournalFlush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    void open() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long segmentSize = properties.getSegmentSize().toBytes();
+        if (segmentSize < MIN_SEGMENT_SIZE || segmentSize > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("fraud.journal.segment-size must be between 1MB and 1GB: "
+                + properties.getSegmentSize());
+        }
+        Path directory = properties.getDirectory();
+        try {
+            Files.createDirectories(directory);
+            current = JournalSegment.create(directory, lastSegmentIndex(directory) + 1, (int) segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open decision journal in " + directory.toAbsolutePath(), e);
+        }
+        log.info("Decision journal enabled, writing {}", current.path().toAbsolutePath());
+    }
+
+    public boolean isEnabled() {
+        return current != null;
+    }
+
+    /**
+     * Appends the decision for {@code transaction}, whose status has been set from
+     * {@code result}. Does nothing while the journal is disabled, and never throws: a
+     * record that cannot be encoded or written disables the journal.
+     */
+    public void append(Transaction transaction, RuleEvaluationResult result, long latencyNanos) {
+        JournalSegment segment = current;
+        if (segment == null) {
+            return;
+        }
+        long amountMinorUnits = transaction.getAmountMinorUnits();
+        RecordEncoder encoder = borrowEncoder();
+        try {
+            int length = encoder.encode(System.currentTimeMillis(), latencyNanos, result.getRuleSetVersion(),
+                amountMinorUnits, transaction.getStatus(), result.getActionType(), transaction.getTransactionId(),
+                transaction.getIpAddress(), result.getRuleName(), transaction.getStatusReason(),
+                FixedPointAmount.isRepresentable(amountMinorUnits) || transaction.getAmount() == null
+                    ? null : transaction.getAmount().toPlainString());
+            appendEncoded(segment, encoder, length);
+        } catch (RuntimeException e) {
+            current = null;
+            log.error("Cannot journal decision for transaction {}, journal disabled: {}",
+                transaction.getTransactionId(), e.getMessage(), e);
+        } finally {
+            returnEncoder(encoder);
+        }
+    }
+
+    private void appendEncoded(JournalSegment segment, RecordEncoder encoder, int length) {
+        while (segment != null) {
+            long offset = segment.reserve(length);
+            if (offset + length <= segment.capacity()) {
+                segment.write((int) offset, encoder.buffer(), length, encoder.checksum());
+                return;
+            }
+            if (offset <= segment.capacity()) {
+                // The only claim that crosses (or starts at) the end - this writer rolls
+                roll(segment, (int) offset);
+            } else {
+                while (current == segment) {
+                    Thread.yield();
+                }
+            }
+            segment = current;
+        }
+    }
+
+    private void roll(JournalSegment full, int end) {
+        if (end < full.capacity()) {
+            full.markEnd(end);
+        }
+        try {
+            current = JournalSegment.create(full.path().getParent(), full.index() + 1, full.capacity());
+        } catch (IOException | RuntimeException e) {
+            current = null;
+            log.error("Cannot start decision journal segment after {}, journal disabled: {}",
+                full.path(), e.getMessage(), e);
+        }
+        // Off the append path: a flush of a large segment can take many milliseconds
+        try {
+            flusher.execute(full::force);
+        } catch (RejectedExecutionException e) {
+            full.force();
+        }
+    }
+
+    /**
+     * Takes an encoder from the pool, starting at a slot picked by thread so that platform
+     * threads tend to get the same one back; allocates one only if the pool is empty.
+     */
+    private RecordEncoder borrowEncoder() {
+        int start = (int) Thread.currentThread().getId();
+        for (int i = 0; i < ENCODER_POOL_SIZE; i++) {
+            int slot = (start + i) & (ENCODER_POOL_SIZE - 1);
+            if (encoders.get(slot) != null) {
+                RecordEncoder encoder = encoders.getAndSet(slot, null);
+                if (encoder != null) {
+                    return encoder;
+                }
+            }
+        }
+        return new RecordEncoder();
+    }
+
+    private void returnEncoder(RecordEncoder encoder) {
+        int start = (int) Thread.currentThread().getId();
+        for (int i = 0; i < ENCODER_POOL_SIZE; i++) {
+            int slot = (start + i) & (ENCODER_POOL_SIZE - 1);
+            if (encoders.get(slot) == null && encoders.compareAndSet(slot, null, encoder)) {
+                return;
+            }
+        }
+        // Pool full - more appends overlapped than it holds; this one is left to the GC
+    }
+
+    @PreDestroy
+    void close() {
+        JournalSegment segment = current;
+        current = null;
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Decision journal segment flush still running at shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (segment != null) {
+            segment.force();
+            log.info("Decision journal closed at {}", segment.path().toAbsolutePath());
+        }
+    }
+
+    private static long lastSegmentIndex(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(JournalFormat::segmentIndex).max().orElse(-1);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.frauddetectionsystem.journal;
+
+import com.example.frauddetectionsystem.domain.FixedPointAmount;
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.dto.TransactionStatus;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static com.example.frauddetectionsystem.journal.JournalFormat.*;
+
+/**
+ * Sequential reader of a {@link DecisionJournal} directory, oldest segment first and
+ * records in the order their space was claimed.
+ * <p>
+ * Records whose checksum does not match are skipped and counted. Space that was claimed
+ * but never written - a writer still copying, or one that died mid-append - has no header
+ * to say how long it is; the reader looks past it for the next intact record, so records
+ * claimed after it are not lost. On a journal that is still being written the newest
+ * records may be missing.
+ */
+public class DecisionJournalReader {
+
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+    private static final FraudRule.ActionType[] ACTION_TYPES = FraudRule.ActionType.values();
+
+    private final Path directory;
+
+    public DecisionJournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Passes every intact record to {@code consumer}.
+     */
+    public ScanResult scan(Consumer<? super DecisionRecord> consumer) throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(path -> segmentIndex(path) >= 0)
+                .sorted(Comparator.comparingLong(JournalFormat::segmentIndex))
+                .toList();
+        }
+        ScanResult result = new ScanResult(0, 0, 0, 0);
+        for (Path segment : segments) {
+            result = result.plus(scanSegment(segment, consumer));
+        }
+        return result;
+    }
+
+    public List<DecisionRecord> readAll() throws IOException {
+        List<DecisionRecord> records = new ArrayList<>();
+        scan(records::add);
+        return records;
+    }
+
+    private ScanResult scanSegment(Path path, Consumer<? super DecisionRecord> consumer) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < SEGMENT_HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a decision journal segment: " + path);
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported decision journal format " + buffer.getInt(4) + " in " + path);
+        }
+
+        CRC32C crc = new CRC32C();
+        long records = 0;
+        long corrupt = 0;
+        long unwritten = 0;
+        int offset = SEGMENT_HEADER_SIZE;
+        while (offset + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int checksum = (int) INT.getAcquire(buffer, offset + CRC_OFFSET);
+            int length = buffer.getInt(offset + LENGTH_OFFSET);
+            if (length == END_OF_SEGMENT) {
+                break;
+            }
+            if (length == 0 || !isPlausible(buffer, offset, length)) {
+                // No usable header: a damaged one, unwritten space or the end of what has been written
+                if (length != 0) {
+                    corrupt++;
+                }
+                int next = nextIntactRecord(buffer, offset + ALIGNMENT, crc);
+                if (next < 0) {
+                    break;
+                }
+                if (length == 0) {
+                    unwritten++;
+                }
+                offset = next;
+                continue;
+            }
+            if (checksumMatches(buffer, offset, length, checksum, crc)) {
+                consumer.accept(decode(buffer, offset + RECORD_HEADER_SIZE));
+                records++;
+            } else {
+                corrupt++;
+            }
+            offset += length;
+        }
+        return new ScanResult(1, records, corrupt, unwritten);
+    }
+
+    /**
+     * Finds the next record at or after {@code from} whose header and checksum are intact.
+     * Candidates are tried at every aligned offset, since an unwritten claim may already
+     * hold part of its body; a body that happens to look like a header also has to match
+     * its checksum, which makes a false find vanishingly unlikely.
+     *
+     * @return the offset of the record, or -1 if there is none
+     */
+    private static int nextIntactRecord(ByteBuffer buffer, int from, CRC32C crc) {
+        for (int offset = from; offset + RECORD_HEADER_SIZE <= buffer.capacity(); offset += ALIGNMENT) {
+            int length = buffer.getInt(offset + LENGTH_OFFSET);
+            if (length != 0 && isPlausible(buffer, offset, length)
+                    && checksumMatches(buffer, offset, length, (int) INT.getAcquire(buffer, offset + CRC_OFFSET), crc)) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isPlausible(ByteBuffer buffer, int offset, int length) {
+        return length >= RECORD_HEADER_SIZE + FIXED_BODY_SIZE && length <= MAX_RECORD_SIZE
+            && length % ALIGNMENT == 0 && offset + length <= buffer.capacity();
+    }
+
+    private static boolean checksumMatches(ByteBuffer buffer, int offset, int length, int checksum, CRC32C crc) {
+        crc.reset();
+        crc.update(buffer.slice(offset + RECORD_HEADER_SIZE, length - RECORD_HEADER_SIZE));
+        return (int) crc.getValue() == checksum;
+    }
+
+    private static DecisionRecord decode(ByteBuffer buffer, int offset) {
+        ByteBuffer body = buffer.slice(offset, buffer.capacity() - offset).order(ByteOrder.LITTLE_ENDIAN);
+        long decidedAt = body.getLong();
+        long latencyNanos = body.getLong();
+        long ruleSetVersion = body.getLong();
+        long amountMinorUnits = body.getLong();
+        byte status = body.get();
+        byte actionType = body.get();
+        String transactionId = getString(body);
+        String ipAddress = getString(body);
+        String ruleName = getString(body);
+        String reason = getString(body);
+        String amountText = getString(body);
+        BigDecimal amount = amountText != null ? new BigDecimal(amountText)
+            : FixedPointAmount.isRepresentable(amountMinorUnits) ? FixedPointAmount.toBigDecimal(amountMinorUnits)
+            : null;
+        return new DecisionRecord(Instant.ofEpochMilli(decidedAt), latencyNanos, ruleSetVersion, transactionId,
+            amount, ipAddress, status >= 0 ? STATUSES[status] : null,
+            actionType >= 0 ? ACTION_TYPES[actionType] : null, ruleName, reason);
+    }
+
+    private static String getString(ByteBuffer body) {
+        int length = Short.toUnsignedInt(body.getShort());
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param segments  number of segment files read
+     * @param records   records passed to the consumer
+     * @param corrupt   records skipped because their checksum or length was invalid
+     * @param unwritten runs of claimed space without a record that later records were found behind
+     */
+    public record ScanResult(int segments, long records, long corrupt, long unwritten) {
+
+        ScanResult plus(ScanResult other) {
+            return new ScanResult(segments + other.segments, records + other.records, corrupt + other.corrupt,
+                unwritten + other.unwritten);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.frauddetectionsystem.journal;
+
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.dto.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One decision read back from the {@link DecisionJournal}.
+ *
+ * @param decidedAt      when the decision was journaled, to the millisecond
+ * @param latencyNanos   time from the start of the check until the decision was stored
+ * @param ruleSetVersion version of the rule snapshot that made the decision
+ * @param ruleName       rule that decided, {@code DEFAULT_APPROVE} if none triggered
+ */
+public record DecisionRecord(
+    Instant decidedAt,
+    long latencyNanos,
+    long ruleSetVersion,
+    String transactionId,
+    BigDecimal amount,
+    String ipAddress,
+    TransactionStatus status,
+    FraudRule.ActionType actionType,
+    String ruleName,
+    String reason) {
+}
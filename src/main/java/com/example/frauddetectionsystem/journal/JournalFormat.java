@@ -0,0 +1,78 @@
+package com.example.frauddetectionsystem.journal;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+
+/**
+ * On-disk layout of the decision journal. All values are little-endian.
+ * <pre>
+ * segment  magic (int) | format version (int) | segment index (long) | record*
+ * record   length (int) | CRC32C of the body (int) | body, zero-padded to a multiple of 8
+ * body     decided at, epoch millis (long) | latency nanos (long) | rule set version (long)
+ *          | amount minor units (long) | status (byte) | action type (byte)
+ *          | transaction ID | IP address | rule name | reason | amount text
+ * string   UTF-8 byte count (unsigned short, {@code 0xFFFF} for null) | UTF-8 bytes
+ * </pre>
+ * Enums are stored as ordinals, -1 for null. The amount text is only present when the
+ * amount has no fixed-point representation. A record length of 0 marks the end of the
+ * written part of a segment, -1 that the rest of the segment was skipped.
+ */
+final class JournalFormat {
+
+    static final int MAGIC = 0x464A524E; // "NRJF"
+    static final int FORMAT_VERSION = 1;
+
+    static final int SEGMENT_HEADER_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 8;
+    static final int LENGTH_OFFSET = 0;
+    static final int CRC_OFFSET = 4;
+    static final int ALIGNMENT = 8;
+    static final int END_OF_SEGMENT = -1;
+
+    static final int FIXED_BODY_SIZE = 4 * Long.BYTES + 2;
+    static final int NULL_STRING = 0xFFFF;
+    static final int MAX_STRING_BYTES = 0xFFFE;
+    static final int STRING_FIELDS = 5;
+    static final int MAX_RECORD_SIZE = align(RECORD_HEADER_SIZE + FIXED_BODY_SIZE
+        + STRING_FIELDS * (Short.BYTES + MAX_STRING_BYTES));
+
+    static final long MIN_SEGMENT_SIZE = 1L << 20;
+    static final long MAX_SEGMENT_SIZE = 1L << 30;
+
+    /**
+     * Ordered int access to mapped segments; record headers are published with release
+     * semantics so a reader never sees a header before the body it describes.
+     */
+    static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final String SEGMENT_PREFIX = "decisions-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private JournalFormat() {
+    }
+
+    static int align(int length) {
+        return (length + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    static String segmentFileName(long index) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * @return the index of a segment file, or -1 if the path is not a segment file
+     */
+    static long segmentIndex(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.frauddetectionsystem.journal;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.frauddetectionsystem.journal.JournalFormat.*;
+
+/**
+ * One memory-mapped segment file being appended to. Writers claim space by advancing
+ * {@link #reserve} and then copy into their own range, so appends never lock; a
+ * reservation that runs past the end belongs to no record and means the segment is full.
+ */
+final class JournalSegment {
+
+    private final long index;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final AtomicLong reserved = new AtomicLong(SEGMENT_HEADER_SIZE);
+
+    private JournalSegment(long index, Path path, MappedByteBuffer buffer) {
+        this.index = index;
+        this.path = path;
+        this.buffer = buffer;
+        this.capacity = buffer.capacity();
+    }
+
+    /**
+     * Creates and maps a new zero-filled segment file of {@code size} bytes.
+     */
+    static JournalSegment create(Path directory, long index, int size) throws IOException {
+        Path path = directory.resolve(segmentFileName(index));
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putLong(8, index);
+        return new JournalSegment(index, path, buffer);
+    }
+
+    long index() {
+        return index;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the offset of {@code length} bytes claimed for the caller; the claim is only
+     *         usable if it ends within {@link #capacity()}
+     */
+    long reserve(int length) {
+        return reserved.getAndAdd(length);
+    }
+
+    /**
+     * Copies an encoded record into its reserved range. The header is written last, the
+     * checksum with release semantics, so a complete header implies a complete body.
+     */
+    void write(int offset, byte[] record, int length, int checksum) {
+        // Absolute bulk put: touches neither position nor limit, so disjoint ranges can be
+        // written from several threads at once
+        buffer.put(offset + RECORD_HEADER_SIZE, record, RECORD_HEADER_SIZE, length - RECORD_HEADER_SIZE);
+        buffer.putInt(offset + LENGTH_OFFSET, length);
+        INT.setRelease(buffer, offset + CRC_OFFSET, checksum);
+    }
+
+    /**
+     * Marks the space from {@code offset} on as unused, so readers move on to the next segment.
+     */
+    void markEnd(int offset) {
+        INT.setRelease(buffer, offset + LENGTH_OFFSET, END_OF_SEGMENT);
+    }
+
+    /**
+     * Flushes written records to the file. Best effort: records still being copied by
+     * other threads may miss the flush.
+     */
+    void force() {
+        buffer.force();
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.frauddetectionsystem.journal;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32C;
+
+import static com.example.frauddetectionsystem.journal.JournalFormat.*;
+
+/**
+ * Encodes one record at a time into a reusable buffer, header included. Not thread-safe;
+ * the journal lends encoders out from a pool, so steady-state encoding allocates nothing.
+ */
+final class RecordEncoder {
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INTS = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle SHORTS = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final CRC32C crc = new CRC32C();
+    private byte[] buffer = new byte[512];
+    private int position;
+    private int checksum;
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * @return the checksum of the last encoded record, also stored in its header
+     */
+    int checksum() {
+        return checksum;
+    }
+
+    /**
+     * @return the aligned record length; the record is in {@link #buffer()} from index 0
+     */
+    int encode(long decidedAtMillis, long latencyNanos, long ruleSetVersion, long amountMinorUnits,
+               Enum<?> status, Enum<?> actionType, String transactionId, String ipAddress,
+               String ruleName, String reason, String amountText) {
+        ensureCapacity(RECORD_HEADER_SIZE + FIXED_BODY_SIZE + maxEncodedLength(transactionId)
+            + maxEncodedLength(ipAddress) + maxEncodedLength(ruleName) + maxEncodedLength(reason)
+            + maxEncodedLength(amountText));
+        position = RECORD_HEADER_SIZE;
+        putLong(decidedAtMillis);
+        putLong(latencyNanos);
+        putLong(ruleSetVersion);
+        putLong(amountMinorUnits);
+        buffer[position++] = (byte) (status != null ? status.ordinal() : -1);
+        buffer[position++] = (byte) (actionType != null ? actionType.ordinal() : -1);
+        putString(transactionId);
+        putString(ipAddress);
+        putString(ruleName);
+        putString(reason);
+        putString(amountText);
+
+        int length = align(position);
+        // Padding must be zero: it is covered by the checksum
+        for (int i = position; i < length; i++) {
+            buffer[i] = 0;
+        }
+        crc.reset();
+        crc.update(buffer, RECORD_HEADER_SIZE, length - RECORD_HEADER_SIZE);
+        checksum = (int) crc.getValue();
+        INTS.set(buffer, LENGTH_OFFSET, length);
+        INTS.set(buffer, CRC_OFFSET, checksum);
+        return length;
+    }
+
+    private static int maxEncodedLength(String value) {
+        // UTF-8 needs at most three bytes per UTF-16 char (four per surrogate pair)
+        return Short.BYTES + (value == null ? 0 : (int) Math.min(3L * value.length(), MAX_STRING_BYTES));
+    }
+
+    private void ensureCapacity(int maxLength) {
+        int required = align(maxLength);
+        if (buffer.length < required) {
+            buffer = new byte[Math.max(required, buffer.length * 2)];
+        }
+    }
+
+    private void putLong(long value) {
+        LONGS.set(buffer, position, value);
+        position += Long.BYTES;
+    }
+
+    /**
+     * Writes UTF-8 without going through {@code String.getBytes}, truncating at a
+     * character boundary to {@link JournalFormat#MAX_STRING_BYTES}.
+     */
+    private void putString(String value) {
+        int lengthAt = position;
+        position += Short.BYTES;
+        if (value == null) {
+            SHORTS.set(buffer, lengthAt, (short) NULL_STRING);
+            return;
+        }
+        int start = position;
+        int limit = start + MAX_STRING_BYTES;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (position + 1 > limit) {
+                    break;
+                }
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                if (position + 2 > limit) {
+                    break;
+                }
+                buffer[position++] = (byte) (0xC0 | c >> 6);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                if (position + 4 > limit) {
+                    break;
+                }
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+                buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                if (position + 1 > limit) {
+                    break;
+                }
+                // A lone surrogate is replaced with '?', as String.getBytes does
+                buffer[position++] = '?';
+            } else {
+                if (position + 3 > limit) {
+                    break;
+                }
+                buffer[position++] = (byte) (0xE0 | c >> 12);
+                buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        SHORTS.set(buffer, lengthAt, (short) (position - start));
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.frauddetectionsystem.metrics;
+
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
+import com.example.frauddetectionsystem.domain.FraudRule;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Meters of the fraud decision pipeline, exported at {@code /actuator/prometheus}.
+ * <ul>
+ *   <li>{@code fraud.check.stage} - timer with a percentile histogram per {@link Stage}</li>
+ *   <li>{@code fraud.rule.hits} - triggered rules by {@code type} and {@code rule}; only the
+ *       first {@code fraud.metrics.max-tagged-rules} rules get their own series, later ones
+ *       are counted under {@code rule="other"} so the number of series stays bounded</li>
+ *   <li>{@code fraud.persistence.failed} - decided transactions the write-behind writer
+ *       could not store</li>
+ * </ul>
+ * All stage timers are registered up front, so recording is a lookup-free array access.
+ */
+@Component
+@Slf4j
+public class FraudDetectionMetrics {
+
+    static final String STAGE_TIMER = "fraud.check.stage";
+    static final String RULE_HITS = "fraud.rule.hits";
+    static final String OTHER_RULES = "other";
+    static final String FAILED_WRITES = "fraud.persistence.failed";
+
+    private final MeterRegistry registry;
+    private final int maxTaggedRules;
+    private final Timer[] stageTimers;
+    private final Map<FraudRule.RuleType, ConcurrentMap<String, Counter>> ruleHits =
+        new EnumMap<>(FraudRule.RuleType.class);
+    private final Map<FraudRule.RuleType, Counter> otherRuleHits = new EnumMap<>(FraudRule.RuleType.class);
+    private final AtomicInteger taggedRules = new AtomicInteger();
+    private final Counter failedWrites;
+
+    @Autowired
+    public FraudDetectionMetrics(MeterRegistry registry, FraudDetectionProperties properties) {
+        this.registry = registry;
+        this.maxTaggedRules = properties.getMetrics().getMaxTaggedRules();
+        Stage[] stages = Stage.values();
+        this.stageTimers = new Timer[stages.length];
+        for (Stage stage : stages) {
+            stageTimers[stage.ordinal()] = Timer.builder(STAGE_TIMER)
+                .description("Time spent in each stage of a fraud check")
+                .tag("stage", stage.tagValue)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry);
+        }
+        for (FraudRule.RuleType ruleType : FraudRule.RuleType.values()) {
+            ruleHits.put(ruleType, new ConcurrentHashMap<>());
+            otherRuleHits.put(ruleType, ruleHitCounter(ruleType, OTHER_RULES));
+        }
+        this.failedWrites = Counter.builder(FAILED_WRITES)
+            .description("Decided transactions the write-behind writer could not store")
+            .register(registry);
+    }
+
+    /**
+     * Records the time from {@code startNanos} (a {@link System#nanoTime()} reading) until now.
+     */
+    public void recordStage(Stage stage, long startNanos) {
+        stageTimers[stage.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRuleHit(FraudRule.RuleType ruleType, String ruleName) {
+        if (ruleType == null || ruleName == null) {
+            return;
+        }
+        Counter counter = ruleHits.get(ruleType).get(ruleName);
+        if (counter == null) {
+            counter = taggedRuleCounter(ruleType, ruleName);
+        }
+        counter.increment();
+    }
+
+    public void recordFailedWrite() {
+        failedWrites.increment();
+    }
+
+    private Counter taggedRuleCounter(FraudRule.RuleType ruleType, String ruleName) {
+        ConcurrentMap<String, Counter> counters = ruleHits.get(ruleType);
+        if (taggedRules.get() >= maxTaggedRules) {
+            return counters.getOrDefault(ruleName, otherRuleHits.get(ruleType));
+        }
+        return counters.computeIfAbsent(ruleName, name -> {
+            int tagged = taggedRules.incrementAndGet();
+            if (tagged > maxTaggedRules) {
+                // Lost the race for the last slot
+                taggedRules.decrementAndGet();
+                return otherRuleHits.get(ruleType);
+            }
+            if (tagged == maxTaggedRules) {
+                log.info("{} rules have their own {} series, further rules are counted as '{}'",
+                    maxTaggedRules, RULE_HITS, OTHER_RULES);
+            }
+            return ruleHitCounter(ruleType, name);
+        });
+    }
+
+    private Counter ruleHitCounter(FraudRule.RuleType ruleType, String ruleName) {
+        return Counter.builder(RULE_HITS)
+            .description("Transactions decided by a rule")
+            .tag("type", ruleType.name())
+            .tag("rule", ruleName)
+            .register(registry);
+    }
+
+    /**
+     * Stages of a single fraud check.
+     */
+    public enum Stage {
+        /** Lookup of the transaction ID among stored transactions. */
+        DUPLICATE_CHECK("duplicate_check"),
+        /** Wait for a thread of the rule evaluation pool. */
+        QUEUE_WAIT("queue_wait"),
+        /** Evaluation of the transaction against the rule snapshot. */
+        RULE_EVALUATION("rule_evaluation"),
+        /** Saving (or, with write-behind, queueing) the decided transaction. */
+        PERSISTENCE("persistence");
+
+        private final String tagValue;
+
+        Stage(String tagValue) {
+            this.tagValue = tagValue;
+        }
+    }
+}
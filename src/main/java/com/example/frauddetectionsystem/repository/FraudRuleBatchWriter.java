@@ -0,0 +1,62 @@
+package com.example.frauddetectionsystem.repository;
+
+import com.example.frauddetectionsystem.domain.FraudRule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Upserts rules by name with a single JDBC batch. Existing rules keep their ID and
+ * creation time; everything else is replaced.
+ */
+@Repository
+public class FraudRuleBatchWriter {
+
+    private static final String UPSERT_SQL =
+        "MERGE INTO fraud_rules t USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(50)), CAST(? AS VARCHAR(1000)), "
+            + "CAST(? AS VARCHAR(50)), CAST(? AS VARCHAR(255)), CAST(? AS INTEGER), CAST(? AS BOOLEAN), "
+            + "CAST(? AS DECIMAL(38,2)), CAST(? AS VARCHAR(255)), CAST(? AS TIMESTAMP))) "
+            + "s(rule_name, rule_type, rule_condition, action_type, action_message, priority, is_active, "
+            + "threshold_value, string_value, changed_at) "
+            + "ON t.rule_name = s.rule_name "
+            + "WHEN MATCHED THEN UPDATE SET rule_type = s.rule_type, rule_condition = s.rule_condition, "
+            + "action_type = s.action_type, action_message = s.action_message, priority = s.priority, "
+            + "is_active = s.is_active, threshold_value = s.threshold_value, string_value = s.string_value, "
+            + "updated_at = s.changed_at "
+            + "WHEN NOT MATCHED THEN INSERT (rule_name, rule_type, rule_condition, action_type, action_message, "
+            + "priority, is_active, threshold_value, string_value, created_at, updated_at) "
+            + "VALUES (s.rule_name, s.rule_type, s.rule_condition, s.action_type, s.action_message, s.priority, "
+            + "s.is_active, s.threshold_value, s.string_value, s.changed_at, s.changed_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public FraudRuleBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional
+    public void upsertAll(List<FraudRule> rules) {
+        if (rules.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rules, rules.size(), (ps, rule) -> {
+            ps.setString(1, rule.getRuleName());
+            ps.setString(2, rule.getRuleType().name());
+            ps.setString(3, rule.getRuleCondition());
+            ps.setString(4, rule.getActionType().name());
+            ps.setString(5, rule.getActionMessage());
+            ps.setInt(6, rule.getPriority());
+            ps.setBoolean(7, rule.getIsActive());
+            ps.setBigDecimal(8, rule.getThresholdValue());
+            ps.setString(9, rule.getStringValue());
+            ps.setTimestamp(10, now);
+        });
+    }
+}
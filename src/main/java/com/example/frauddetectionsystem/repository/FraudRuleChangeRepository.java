@@ -0,0 +1,26 @@
+package com.example.frauddetectionsystem.repository;
+
+import com.example.frauddetectionsystem.domain.FraudRuleChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface FraudRuleChangeRepository extends JpaRepository<FraudRuleChange, Long> {
+
+    List<FraudRuleChange> findByIdGreaterThanOrderByIdAsc(Long id);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM FraudRuleChange c")
+    long findLatestChangeId();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FraudRuleChange c WHERE c.changedAt < :cutoff")
+    int deleteChangesBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,38 @@
+package com.example.frauddetectionsystem.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out {@code transactions.id} values for rows written through JDBC rather than JPA.
+ * Uses the same sequence and block size as the entity mapping with Hibernate's
+ * {@code pooled-lo} optimizer: each sequence value {@code v} reserves the ids
+ * {@code [v, v + ALLOCATION_SIZE)}, so both writers can share the sequence without
+ * ever issuing the same id.
+ */
+@Component
+public class TransactionIdAllocator {
+
+    static final int ALLOCATION_SIZE = 50;
+
+    private static final String NEXT_VALUE_SQL = "SELECT NEXT VALUE FOR transactions_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+    private long next;
+    private long limit;
+
+    @Autowired
+    public TransactionIdAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public synchronized long nextId() {
+        if (next == limit) {
+            Long low = jdbcTemplate.queryForObject(NEXT_VALUE_SQL, Long.class);
+            next = low;
+            limit = low + ALLOCATION_SIZE;
+        }
+        return next++;
+    }
+}
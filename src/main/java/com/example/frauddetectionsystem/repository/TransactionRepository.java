@@ -2,9 +2,17 @@ package com.example.frauddetectionsystem.repository;
 
 import com.example.frauddetectionsystem.domain.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Set;
+
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     boolean existsByTransactionId(String transactionId);
+    
+    @Query("SELECT t.transactionId FROM Transaction t WHERE t.transactionId IN :transactionIds")
+    Set<String> findExistingTransactionIds(@Param("transactionIds") Collection<String> transactionIds);
 }
@@ -0,0 +1,126 @@
+package com.example.frauddetectionsystem.service;
+
+import com.example.frauddetectionsystem.engine.CompiledRule;
+import com.example.frauddetectionsystem.engine.RuleSnapshot;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The active rule list as ready-to-send JSON. It is serialized (and gzipped) at most once
+ * per rule snapshot version, on the first request that sees that version, and tagged with
+ * a content hash so clients can revalidate with {@code If-None-Match}. The hash, unlike the
+ * snapshot version, is the same on every instance serving the same rules.
+ */
+@Service
+@Slf4j
+public class ActiveRulesResponseCache {
+
+    private final RuleSnapshotService ruleSnapshotService;
+    private final ObjectMapper objectMapper;
+    private volatile SerializedRules current;
+
+    @Autowired
+    public ActiveRulesResponseCache(RuleSnapshotService ruleSnapshotService, ObjectMapper objectMapper) {
+        this.ruleSnapshotService = ruleSnapshotService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return the serialized rules of the current snapshot
+     */
+    public SerializedRules getActiveRules() {
+        RuleSnapshot snapshot = ruleSnapshotService.getCurrentSnapshot();
+        SerializedRules serialized = current;
+        if (serialized != null && serialized.version() == snapshot.getVersion()) {
+            return serialized;
+        }
+        return serialize(snapshot);
+    }
+
+    private synchronized SerializedRules serialize(RuleSnapshot snapshot) {
+        // Concurrent requests for a new version wait for one serialization instead of each doing it
+        SerializedRules serialized = current;
+        if (serialized != null && serialized.version() >= snapshot.getVersion()) {
+            return serialized;
+        }
+        long start = System.nanoTime();
+        try {
+            List<?> rules = snapshot.getRules().stream().map(rule -> rule.getDefinition().toEntity()).toList();
+            byte[] json = objectMapper.writeValueAsBytes(rules);
+            serialized = new SerializedRules(snapshot.getVersion(), etagOf(json), json, gzip(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize active rules", e);
+        }
+        current = serialized;
+        log.info("Serialized {} active rules of snapshot v{} ({} bytes, {} gzipped) in {} ms",
+            snapshot.size(), snapshot.getVersion(), serialized.json().length, serialized.gzip().length,
+            (System.nanoTime() - start) / 1_000_000);
+        return serialized;
+    }
+
+    private static String etagOf(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Serialized form of one snapshot's active rules. The arrays are shared between
+     * requests and must not be modified.
+     *
+     * @param etag strong entity tag of the uncompressed JSON, quoted
+     */
+    public record SerializedRules(long version, String etag, byte[] json, byte[] gzip) {
+
+        /**
+         * @return the tag of the gzip representation, which must differ from the identity one
+         */
+        public String gzipEtag() {
+            return etag.substring(0, etag.length() - 1) + "-gzip\"";
+        }
+
+        /**
+         * @return true if an {@code If-None-Match} header names either representation
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals("*") || candidate.equals(etag) || candidate.equals(gzipEtag())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.frauddetectionsystem.service;
+
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
+import com.example.frauddetectionsystem.dedup.ScalableBloomFilter;
+import com.example.frauddetectionsystem.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers "has this transaction ID been stored before?" without a database round trip
+ * for the common case of a new ID. A cache of recently stored IDs catches retries
+ * directly; a {@link ScalableBloomFilter} over every stored ID rules out the rest, and
+ * only the IDs the filter cannot rule out are checked against the database.
+ * <p>
+ * Cache and filter only learn the IDs stored through this instance, so an ID stored by
+ * another instance since startup is answered as new. Its insert then fails on the unique
+ * constraint, and {@link #confirmStored(String)} turns that failure into a duplicate. With
+ * write-behind the insert runs after the decision was returned; the writer can only log
+ * and count such a duplicate.
+ */
+@Service
+@Slf4j
+public class DuplicateDetectionService {
+
+    static final String RECENT_IDS_CACHE = "transactionCache";
+
+    private final TransactionRepository transactionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final FraudDetectionProperties.Dedup dedupProperties;
+    private final Cache recentIds;
+    private final ScalableBloomFilter bloomFilter;
+
+    private final LongAdder filterNegatives = new LongAdder();
+    private final LongAdder filterFalsePositives = new LongAdder();
+    private final Counter recentHits;
+    private final Counter databaseLookups;
+
+    @Autowired
+    public DuplicateDetectionService(
+            TransactionRepository transactionRepository,
+            JdbcTemplate jdbcTemplate,
+            CacheManager cacheManager,
+            FraudDetectionProperties properties,
+            MeterRegistry meterRegistry) {
+        this.transactionRepository = transactionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dedupProperties = properties.getDedup();
+        this.recentIds = cacheManager.getCache(RECENT_IDS_CACHE);
+        this.bloomFilter = new ScalableBloomFilter(
+            dedupProperties.getExpectedInsertions(), dedupProperties.getFalsePositiveRate());
+
+        this.recentHits = meterRegistry.counter("fraud.dedup.recent.hits");
+        this.databaseLookups = meterRegistry.counter("fraud.dedup.database.lookups");
+        Gauge.builder("fraud.dedup.bloom.memory", bloomFilter, ScalableBloomFilter::bitSizeBytes)
+            .baseUnit("bytes")
+            .description("Memory held by the transaction ID Bloom filter")
+            .register(meterRegistry);
+        Gauge.builder("fraud.dedup.bloom.elements", bloomFilter, ScalableBloomFilter::approximateElementCount)
+            .register(meterRegistry);
+        Gauge.builder("fraud.dedup.bloom.expected.false.positive.rate", bloomFilter,
+                ScalableBloomFilter::expectedFalsePositiveRate)
+            .register(meterRegistry);
+        Gauge.builder("fraud.dedup.bloom.false.positive.rate", this, DuplicateDetectionService::observedFalsePositiveRate)
+            .description("Share of new IDs the Bloom filter could not rule out")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Loads every stored transaction ID into the filter. Runs before the service is used,
+     * so the filter never answers "definitely new" for an ID that is already stored.
+     */
+    @PostConstruct
+    void rebuildFilter() {
+        long start = System.nanoTime();
+        // Private template so the streaming fetch size does not leak into the shared one
+        JdbcTemplate rebuildTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        rebuildTemplate.setFetchSize(dedupProperties.getRebuildFetchSize());
+        rebuildTemplate.query("SELECT transaction_id FROM transactions",
+            rs -> {
+                bloomFilter.put(rs.getString(1));
+            });
+        log.info("Transaction ID Bloom filter rebuilt with {} IDs ({} bytes) in {} ms",
+            bloomFilter.approximateElementCount(), bloomFilter.bitSizeBytes(),
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isDuplicate(String transactionId) {
+        if (recentIds != null && recentIds.get(transactionId) != null) {
+            recentHits.increment();
+            return true;
+        }
+        if (!bloomFilter.mightContain(transactionId)) {
+            filterNegatives.increment();
+            return false;
+        }
+
+        databaseLookups.increment();
+        if (transactionRepository.existsByTransactionId(transactionId)) {
+            rememberRecent(transactionId);
+            return true;
+        }
+        filterFalsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Batch form of {@link #isDuplicate(String)}: only IDs the filter cannot rule out are
+     * sent to the database, in a single query.
+     *
+     * @return the subset of the given IDs that are already stored
+     */
+    public Set<String> findDuplicates(Collection<String> transactionIds) {
+        Set<String> duplicates = new HashSet<>();
+        List<String> candidates = new ArrayList<>();
+        for (String transactionId : transactionIds) {
+            if (recentIds != null && recentIds.get(transactionId) != null) {
+                recentHits.increment();
+                duplicates.add(transactionId);
+            } else if (bloomFilter.mightContain(transactionId)) {
+                candidates.add(transactionId);
+            } else {
+                filterNegatives.increment();
+            }
+        }
+        if (candidates.isEmpty()) {
+            return duplicates;
+        }
+
+        databaseLookups.increment();
+        Set<String> stored = transactionRepository.findExistingTransactionIds(candidates);
+        stored.forEach(this::rememberRecent);
+        duplicates.addAll(stored);
+        filterFalsePositives.add(candidates.stream().filter(id -> !stored.contains(id)).distinct().count());
+        return duplicates;
+    }
+
+    /**
+     * Checks the database for an ID whose insert was rejected by the unique constraint,
+     * and remembers it if it is stored.
+     *
+     * @return true if the ID is stored - by another instance or a concurrent request
+     */
+    public boolean confirmStored(String transactionId) {
+        databaseLookups.increment();
+        if (transactionRepository.existsByTransactionId(transactionId)) {
+            recordStored(transactionId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Batch form of {@link #confirmStored(String)}.
+     *
+     * @return the subset of the given IDs that are stored
+     */
+    public Set<String> confirmStored(Collection<String> transactionIds) {
+        databaseLookups.increment();
+        Set<String> stored = transactionRepository.findExistingTransactionIds(transactionIds);
+        recordStored(stored);
+        return stored;
+    }
+
+    /**
+     * Must be called for every transaction that is stored, so it is found on retry.
+     */
+    public void recordStored(String transactionId) {
+        bloomFilter.put(transactionId);
+        rememberRecent(transactionId);
+    }
+
+    public void recordStored(Collection<String> transactionIds) {
+        transactionIds.forEach(this::recordStored);
+    }
+
+    double observedFalsePositiveRate() {
+        long falsePositives = filterFalsePositives.sum();
+        long total = falsePositives + filterNegatives.sum();
+        return total == 0 ? 0.0 : (double) falsePositives / total;
+    }
+
+    private void rememberRecent(String transactionId) {
+        if (recentIds != null) {
+            recentIds.put(transactionId, Boolean.TRUE);
+        }
+    }
+}
@@ -1,94 +1,305 @@
 package com.example.frauddetectionsystem.service;
 
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
 import com.example.frauddetectionsystem.domain.FraudRule;
 import com.example.frauddetectionsystem.domain.Transaction;
 import com.example.frauddetectionsystem.dto.FraudDetectionResult;
 import com.example.frauddetectionsystem.dto.RuleEvaluationResult;
 import com.example.frauddetectionsystem.dto.TransactionStatus;
+import com.example.frauddetectionsystem.journal.DecisionJournal;
+import com.example.frauddetectionsystem.metrics.FraudDetectionMetrics;
+import com.example.frauddetectionsystem.metrics.FraudDetectionMetrics.Stage;
+import com.example.frauddetectionsystem.repository.TransactionBatchWriter;
 import com.example.frauddetectionsystem.repository.TransactionRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @Slf4j
 public class FraudDetectionService {
 
     private final TransactionRepository transactionRepository;
+    private final TransactionBatchWriter transactionBatchWriter;
+    private final DuplicateDetectionService duplicateDetectionService;
+    private final TransactionWriteBehindService writeBehindService;
     private final RuleEngineService ruleEngineService;
     private final Executor fraudDetectionExecutor;
+    private final FraudDetectionProperties.Execution execution;
+    private final FraudDetectionProperties.Check checkProperties;
+    private final FraudDetectionMetrics metrics;
+    private final DecisionJournal decisionJournal;
 
     @Autowired
     public FraudDetectionService(
             TransactionRepository transactionRepository,
+            TransactionBatchWriter transactionBatchWriter,
+            DuplicateDetectionService duplicateDetectionService,
+            TransactionWriteBehindService writeBehindService,
             RuleEngineService ruleEngineService,
-            @Qualifier("fraudDetectionExecutor") Executor fraudDetectionExecutor) {
+            @Qualifier("fraudDetectionExecutor") Executor fraudDetectionExecutor,
+            FraudDetectionProperties properties,
+            FraudDetectionMetrics metrics,
+            DecisionJournal decisionJournal) {
         this.transactionRepository = transactionRepository;
+        this.transactionBatchWriter = transactionBatchWriter;
+        this.duplicateDetectionService = duplicateDetectionService;
+        this.writeBehindService = writeBehindService;
         this.ruleEngineService = ruleEngineService;
         this.fraudDetectionExecutor = fraudDetectionExecutor;
+        this.execution = properties.getExecution();
+        this.checkProperties = properties.getCheck();
+        this.metrics = metrics;
+        this.decisionJournal = decisionJournal;
     }
 
-    @Transactional
+    /**
+     * Runs outside any database transaction, so no connection is held while rules are
+     * evaluated: the duplicate check and the insert each borrow a connection only for
+     * their own statement.
+     */
     public FraudDetectionResult checkTransaction(Transaction transaction) {
+        long start = System.nanoTime();
         log.info("Starting fraud detection for transaction: {}", transaction.getTransactionId());
         
+        RuleEvaluationResult result;
         try {
             // Quick duplicate check first (synchronous)
-            if (transactionRepository.existsByTransactionId(transaction.getTransactionId())) {
-                log.warn("Duplicate transaction detected: {}", transaction.getTransactionId());
-                return new FraudDetectionResult(
-                    transaction.getTransactionId(),
-                    TransactionStatus.REJECTED,
-                    "Duplicate transaction ID"
-                );
+            if (isDuplicate(transaction)) {
+                return duplicateResult(transaction);
             }
 
-            // Evaluate rules asynchronously and wait for result
-            CompletableFuture<RuleEvaluationResult> ruleEvaluation = 
-                ruleEngineService.evaluateRulesAsync(transaction);
-            
-            // Wait for rule evaluation with timeout
-            RuleEvaluationResult result = ruleEvaluation.get();
-            
-            // Convert rule evaluation result to fraud detection result
-            TransactionStatus status = mapActionToStatus(result.getActionType());
-            String message = result.getMessage();
-            
-            // Save transaction with determined status
-            saveTransaction(transaction, status, message);
-            
-            log.info("Fraud detection completed for transaction {}: {} - {}", 
-                transaction.getTransactionId(), status, message);
-            
-            return new FraudDetectionResult(
+            result = evaluateRules(transaction);
+        } catch (Exception e) {
+            return rejectOnError(transaction, e);
+        }
+        
+        return completeCheck(transaction, result, start);
+    }
+    
+    private RuleEvaluationResult evaluateRules(Transaction transaction) throws Exception {
+        if (execution.useVirtualThreads()) {
+            // Already on a virtual request thread - evaluate inline, no blocking handoff to a pool
+            return ruleEngineService.evaluateRules(transaction);
+        }
+        
+        // Evaluate rules on the rule evaluation pool and wait for result
+        CompletableFuture<RuleEvaluationResult> ruleEvaluation = 
+            ruleEngineService.evaluateRulesAsync(transaction);
+        return ruleEvaluation.get();
+    }
+    
+    /**
+     * Non-blocking variant of {@link #checkTransaction(Transaction)}. Each stage is chained
+     * onto the previous one instead of waiting on it, so no thread is held while rules are
+     * evaluated. If the rules are not evaluated within {@code fraud.check.timeout} the
+     * transaction is rejected, exactly as for any other error. The timeout does not cover
+     * storing the decision: once rules have decided, that decision is stored and returned.
+     */
+    public CompletableFuture<FraudDetectionResult> checkTransactionAsync(Transaction transaction) {
+        long start = System.nanoTime();
+        log.info("Starting async fraud detection for transaction: {}", transaction.getTransactionId());
+        
+        return CompletableFuture
+            .supplyAsync(() -> isDuplicate(transaction), fraudDetectionExecutor)
+            .thenCompose(duplicate -> {
+                if (duplicate) {
+                    return CompletableFuture.completedFuture(duplicateResult(transaction));
+                }
+                // A late evaluation result is dropped by the timed-out future, so only one decision is stored
+                return ruleEngineService.evaluateRulesAsync(transaction)
+                    .orTimeout(checkProperties.getTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                    .handleAsync((result, e) -> e != null
+                        ? rejectOnError(transaction, e)
+                        : completeCheck(transaction, result, start), fraudDetectionExecutor);
+            })
+            // Only the duplicate check is left to fail here
+            .exceptionallyAsync(e -> rejectOnError(transaction, e), fraudDetectionExecutor);
+    }
+    
+    /**
+     * Checks a batch of transactions. Duplicates - against stored transactions and within
+     * the batch itself - are found with one set-based lookup, the remaining transactions
+     * are evaluated against a single rule snapshot and stored together: with one JDBC
+     * batch, or through the write-behind queue when it is enabled. Results are returned in
+     * input order. As with single checks, rules are evaluated without holding a database
+     * connection.
+     */
+    public List<FraudDetectionResult> checkTransactions(List<Transaction> transactions) {
+        long start = System.nanoTime();
+        log.info("Starting batch fraud detection for {} transactions", transactions.size());
+        
+        List<String> transactionIds = transactions.stream().map(Transaction::getTransactionId).toList();
+        Set<String> seen;
+        try {
+            seen = new HashSet<>(duplicateDetectionService.findDuplicates(transactionIds));
+        } finally {
+            metrics.recordStage(Stage.DUPLICATE_CHECK, start);
+        }
+        
+        FraudDetectionResult[] results = new FraudDetectionResult[transactions.size()];
+        List<Integer> pendingIndexes = new ArrayList<>(transactions.size());
+        List<Transaction> pending = new ArrayList<>(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            if (!seen.add(transaction.getTransactionId())) {
+                results[i] = duplicateResult(transaction);
+            } else {
+                pendingIndexes.add(i);
+                pending.add(transaction);
+            }
+        }
+        
+        List<RuleEvaluationResult> evaluations;
+        try {
+            evaluations = new ArrayList<>(ruleEngineService.evaluateBatch(pending));
+            for (int j = 0; j < pending.size(); j++) {
+                Transaction transaction = pending.get(j);
+                RuleEvaluationResult evaluation = evaluations.get(j);
+                transaction.setStatus(mapActionToStatus(evaluation.getActionType()));
+                transaction.setStatusReason(evaluation.getMessage());
+            }
+            try {
+                saveTransactions(pending);
+            } catch (DataIntegrityViolationException e) {
+                // Some IDs were stored since the lookup - by another instance or a concurrent request
+                Set<String> stored = duplicateDetectionService.confirmStored(
+                    pending.stream().map(Transaction::getTransactionId).toList());
+                if (stored.isEmpty()) {
+                    throw e;
+                }
+                for (int j = pending.size() - 1; j >= 0; j--) {
+                    if (stored.contains(pending.get(j).getTransactionId())) {
+                        results[pendingIndexes.get(j)] = duplicateResult(pending.get(j));
+                        pending.remove(j);
+                        pendingIndexes.remove(j);
+                        evaluations.remove(j);
+                    }
+                }
+                saveTransactions(pending);
+            }
+        } catch (Exception e) {
+            log.error("Error during batch fraud detection: {}", e.getMessage(), e);
+            // Fail safe - reject everything that was not already rejected as a duplicate
+            for (int j = 0; j < pending.size(); j++) {
+                results[pendingIndexes.get(j)] = systemErrorResult(pending.get(j));
+            }
+            return Arrays.asList(results);
+        }
+        
+        // Stored - from here on the decisions stand, whatever happens to the journal
+        long latency = System.nanoTime() - start;
+        for (int j = 0; j < pending.size(); j++) {
+            Transaction transaction = pending.get(j);
+            decisionJournal.append(transaction, evaluations.get(j), latency);
+            results[pendingIndexes.get(j)] = new FraudDetectionResult(
                 transaction.getTransactionId(),
-                status,
-                message
+                transaction.getStatus(),
+                transaction.getStatusReason(),
+                evaluations.get(j).getRuleSetVersion()
             );
-            
-        } catch (Exception e) {
+        }
+        
+        log.info("Batch fraud detection completed for {} transactions ({} duplicates)", 
+            transactions.size(), transactions.size() - pending.size());
+        return Arrays.asList(results);
+    }
+    
+    private boolean isDuplicate(Transaction transaction) {
+        long start = System.nanoTime();
+        try {
+            return duplicateDetectionService.isDuplicate(transaction.getTransactionId());
+        } finally {
+            metrics.recordStage(Stage.DUPLICATE_CHECK, start);
+        }
+    }
+    
+    private FraudDetectionResult duplicateResult(Transaction transaction) {
+        log.warn("Duplicate transaction detected: {}", transaction.getTransactionId());
+        return new FraudDetectionResult(
+            transaction.getTransactionId(),
+            TransactionStatus.REJECTED,
+            "Duplicate transaction ID"
+        );
+    }
+    
+    private FraudDetectionResult completeCheck(Transaction transaction, RuleEvaluationResult result, long startNanos) {
+        // Convert rule evaluation result to fraud detection result
+        TransactionStatus status = mapActionToStatus(result.getActionType());
+        String message = result.getMessage();
+        
+        // Save transaction with determined status
+        try {
+            saveTransaction(transaction, status, message);
+        } catch (DataIntegrityViolationException e) {
+            // Stored since the duplicate check - by another instance or a concurrent request
+            if (duplicateDetectionService.confirmStored(transaction.getTransactionId())) {
+                return duplicateResult(transaction);
+            }
+            return persistenceErrorResult(transaction, e);
+        } catch (RuntimeException e) {
+            return persistenceErrorResult(transaction, e);
+        }
+        // Outside the try: the decision is stored, so journaling must not turn it into a rejection
+        decisionJournal.append(transaction, result, System.nanoTime() - startNanos);
+        
+        log.info("Fraud detection completed for transaction {}: {} - {}", 
+            transaction.getTransactionId(), status, message);
+        
+        return new FraudDetectionResult(
+            transaction.getTransactionId(),
+            status,
+            message,
+            result.getRuleSetVersion()
+        );
+    }
+    
+    private FraudDetectionResult rejectOnError(Transaction transaction, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof TimeoutException) {
+            log.error("Fraud detection for transaction {} timed out after {}", 
+                transaction.getTransactionId(), checkProperties.getTimeout());
+        } else {
             log.error("Error during fraud detection for transaction {}: {}", 
-                transaction.getTransactionId(), e.getMessage(), e);
-            
-            // Fail safe - reject on error
+                transaction.getTransactionId(), cause.getMessage(), cause);
+        }
+        
+        // Fail safe - reject on error
+        try {
             saveTransaction(transaction, TransactionStatus.REJECTED, "System error during fraud detection");
-            return new FraudDetectionResult(
-                transaction.getTransactionId(),
-                TransactionStatus.REJECTED,
-                "System error during fraud detection"
-            );
+        } catch (RuntimeException saveError) {
+            log.error("Failed to persist rejection for transaction {}: {}", 
+                transaction.getTransactionId(), saveError.getMessage(), saveError);
         }
+        return systemErrorResult(transaction);
     }
     
-    @Async("fraudDetectionExecutor")
-    public CompletableFuture<FraudDetectionResult> checkTransactionAsync(Transaction transaction) {
-        return CompletableFuture.supplyAsync(() -> checkTransaction(transaction), fraudDetectionExecutor);
+    private FraudDetectionResult persistenceErrorResult(Transaction transaction, RuntimeException e) {
+        // The decision itself could not be stored - saving a rejection would fail the same way
+        log.error("Failed to persist decision for transaction {}: {}", 
+            transaction.getTransactionId(), e.getMessage(), e);
+        return systemErrorResult(transaction);
+    }
+    
+    private FraudDetectionResult systemErrorResult(Transaction transaction) {
+        return new FraudDetectionResult(
+            transaction.getTransactionId(),
+            TransactionStatus.REJECTED,
+            "System error during fraud detection"
+        );
     }
     
     private TransactionStatus mapActionToStatus(FraudRule.ActionType actionType) {
@@ -103,12 +314,39 @@ public class FraudDetectionService {
         };
     }
 
-    @Transactional
-    protected void saveTransaction(Transaction transaction, TransactionStatus status, String statusReason) {
+    private void saveTransactions(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            if (writeBehindService.isEnabled()) {
+                writeBehindService.enqueueAll(transactions);
+            } else {
+                transactionBatchWriter.insertAll(transactions);
+            }
+        } finally {
+            metrics.recordStage(Stage.PERSISTENCE, start);
+        }
+        duplicateDetectionService.recordStored(transactions.stream().map(Transaction::getTransactionId).toList());
+    }
+    
+    private void saveTransaction(Transaction transaction, TransactionStatus status, String statusReason) {
         // Set status and reason before saving
         transaction.setStatus(status);
         transaction.setStatusReason(statusReason);
-        transactionRepository.save(transaction);
+        long start = System.nanoTime();
+        try {
+            if (writeBehindService.isEnabled()) {
+                // Queued decisions count as stored, so a retry is caught before the row is written
+                writeBehindService.enqueue(transaction);
+            } else {
+                transactionRepository.save(transaction);
+            }
+        } finally {
+            metrics.recordStage(Stage.PERSISTENCE, start);
+        }
+        duplicateDetectionService.recordStored(transaction.getTransactionId());
         
         log.debug("Transaction {} saved with status: {} - {}", 
             transaction.getTransactionId(), status, statusReason);
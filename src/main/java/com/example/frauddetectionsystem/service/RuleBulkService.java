@@ -0,0 +1,202 @@
+package com.example.frauddetectionsystem.service;
+
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.domain.FraudRuleChange;
+import com.example.frauddetectionsystem.dto.BulkImportResult;
+import com.example.frauddetectionsystem.engine.RuleCompiler;
+import com.example.frauddetectionsystem.engine.RuleSnapshot;
+import com.example.frauddetectionsystem.exception.RuleCompilationException;
+import com.example.frauddetectionsystem.repository.FraudRuleBatchWriter;
+import com.example.frauddetectionsystem.repository.FraudRuleChangeRepository;
+import com.example.frauddetectionsystem.repository.FraudRuleRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Imports and exports rules as NDJSON (one JSON rule per line) without holding the whole
+ * rule set in memory. An import is written in JDBC batches within one transaction and
+ * becomes visible as one new snapshot version once it commits.
+ */
+@Service
+@Slf4j
+public class RuleBulkService {
+
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private final FraudRuleRepository fraudRuleRepository;
+    private final FraudRuleBatchWriter fraudRuleBatchWriter;
+    private final FraudRuleChangeRepository changeRepository;
+    private final RuleCompiler ruleCompiler;
+    private final RuleSnapshotService ruleSnapshotService;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader ruleReader;
+    private final FraudDetectionProperties.Rules rulesProperties;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public RuleBulkService(
+            FraudRuleRepository fraudRuleRepository,
+            FraudRuleBatchWriter fraudRuleBatchWriter,
+            FraudRuleChangeRepository changeRepository,
+            RuleCompiler ruleCompiler,
+            RuleSnapshotService ruleSnapshotService,
+            ObjectMapper objectMapper,
+            FraudDetectionProperties properties,
+            PlatformTransactionManager transactionManager) {
+        this.fraudRuleRepository = fraudRuleRepository;
+        this.fraudRuleBatchWriter = fraudRuleBatchWriter;
+        this.changeRepository = changeRepository;
+        this.ruleCompiler = ruleCompiler;
+        this.ruleSnapshotService = ruleSnapshotService;
+        this.objectMapper = objectMapper;
+        this.ruleReader = objectMapper.readerFor(FraudRule.class);
+        this.rulesProperties = properties.getRules();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Reads one rule per line, validates and compiles each, and upserts the valid ones by
+     * rule name. Invalid lines are skipped and reported; blank lines are ignored.
+     * <p>
+     * The whole import is one database transaction: if reading or writing fails, nothing
+     * is stored and no snapshot is built, so a partial import is never served.
+     */
+    public BulkImportResult importRules(InputStream input) throws IOException {
+        long start = System.nanoTime();
+        ImportOutcome outcome;
+        try {
+            outcome = transactionTemplate.execute(status -> {
+                try {
+                    return writeRules(input);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        // Built after commit, so other transactions - and rebuilds - never see half an import
+        RuleSnapshot snapshot = outcome.imported() > 0
+            ? ruleSnapshotService.refresh() : ruleSnapshotService.getCurrentSnapshot();
+        log.info("Bulk import of {} rules ({} rejected) completed in {} ms, rule snapshot v{}",
+            outcome.imported(), outcome.rejected(), (System.nanoTime() - start) / 1_000_000, snapshot.getVersion());
+        return new BulkImportResult(outcome.imported(), outcome.rejected(), snapshot.getVersion(), outcome.errors());
+    }
+
+    private ImportOutcome writeRules(InputStream input) throws IOException {
+        int batchSize = rulesProperties.getImportBatchSize();
+        List<FraudRule> batch = new ArrayList<>(batchSize);
+        // Within one import the last line for a name wins, as it would row by row
+        Map<String, Integer> batchIndexByName = new HashMap<>();
+        List<BulkImportResult.LineError> errors = new ArrayList<>();
+        int imported = 0;
+        int rejected = 0;
+        long lineNumber = 0;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            FraudRule rule;
+            try {
+                rule = parseAndValidate(line);
+            } catch (JsonProcessingException | RuleCompilationException | IllegalArgumentException e) {
+                rejected++;
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add(new BulkImportResult.LineError(lineNumber, errorMessage(e)));
+                }
+                continue;
+            }
+
+            Integer existing = batchIndexByName.putIfAbsent(rule.getRuleName(), batch.size());
+            if (existing != null) {
+                batch.set(existing, rule);
+            } else {
+                batch.add(rule);
+            }
+            imported++;
+            if (batch.size() >= batchSize) {
+                fraudRuleBatchWriter.upsertAll(batch);
+                batch.clear();
+                batchIndexByName.clear();
+            }
+        }
+        fraudRuleBatchWriter.upsertAll(batch);
+        if (imported > 0) {
+            // Logged last, so its ID is allocated just before commit and other instances
+            // do not wait out a long import as a gap in the change log
+            changeRepository.save(FraudRuleChange.fullReload());
+        }
+        return new ImportOutcome(imported, rejected, errors);
+    }
+
+    /**
+     * Writes every rule as one JSON line, reading them in ID order one page at a time so
+     * memory use does not grow with the number of rules.
+     */
+    public void exportRules(OutputStream output) throws IOException {
+        Limit page = Limit.of(rulesProperties.getExportPageSize());
+        long lastId = 0;
+        List<FraudRule> rules;
+        do {
+            rules = fraudRuleRepository.findByIdGreaterThanOrderByIdAsc(lastId, page);
+            for (FraudRule rule : rules) {
+                output.write(objectMapper.writeValueAsBytes(rule));
+                output.write('\n');
+                lastId = rule.getId();
+            }
+            output.flush();
+        } while (rules.size() == page.max());
+    }
+
+    private FraudRule parseAndValidate(String line) throws JsonProcessingException {
+        FraudRule rule = ruleReader.readValue(line);
+        if (rule.getRuleName() == null || rule.getRuleName().isBlank()) {
+            throw new IllegalArgumentException("ruleName is required");
+        }
+        if (rule.getRuleCondition() == null || rule.getRuleCondition().isBlank()) {
+            throw new IllegalArgumentException("ruleCondition is required for rule '" + rule.getRuleName() + "'");
+        }
+        if (rule.getIsActive() == null) {
+            rule.setIsActive(true);
+        }
+        // IDs are assigned by the database; imported rules are matched by name
+        rule.setId(null);
+        ruleCompiler.validate(rule);
+        return rule;
+    }
+
+    private static String errorMessage(Exception e) {
+        if (e instanceof JsonProcessingException json) {
+            return "Malformed rule: " + json.getOriginalMessage();
+        }
+        return e.getMessage();
+    }
+
+    private record ImportOutcome(int imported, int rejected, List<BulkImportResult.LineError> errors) {
+    }
+}
@@ -1,133 +1,152 @@
 package com.example.frauddetectionsystem.service;
 
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
 import com.example.frauddetectionsystem.domain.FraudRule;
 import com.example.frauddetectionsystem.domain.Transaction;
 import com.example.frauddetectionsystem.dto.RuleEvaluationResult;
-import com.example.frauddetectionsystem.repository.FraudRuleRepository;
+import com.example.frauddetectionsystem.engine.RuleSnapshot;
+import com.example.frauddetectionsystem.metrics.FraudDetectionMetrics;
+import com.example.frauddetectionsystem.metrics.FraudDetectionMetrics.Stage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 @Service
 @Slf4j
 public class RuleEngineService {
     
-    private final FraudRuleRepository fraudRuleRepository;
+    private static final RuleEvaluationResult EVALUATION_ERROR = new RuleEvaluationResult(
+        true, FraudRule.ActionType.REJECT, "System error during rule evaluation", "ERROR_HANDLER", -1);
+    
+    private final RuleSnapshotService ruleSnapshotService;
+    private final FraudDetectionProperties.Engine engineProperties;
+    private final ForkJoinPool ruleEvaluationForkJoinPool;
     private final Executor ruleExecutor;
+    private final FraudDetectionMetrics metrics;
+    // Default approval of the latest snapshot version seen, shared by every approved transaction
+    private volatile RuleEvaluationResult approvedResult = approved(0);
     
     @Autowired
-    public RuleEngineService(FraudRuleRepository fraudRuleRepository) {
-        this.fraudRuleRepository = fraudRuleRepository;
-        // Create a thread pool for rule evaluation - size based on expected load
-        this.ruleExecutor = Executors.newFixedThreadPool(20);
-    }
-    
-    @Cacheable(value = "activeRules", key = "'all'")
-    public List<FraudRule> getActiveRules() {
-        log.debug("Fetching active rules from database");
-        return fraudRuleRepository.findActiveRulesOrderedByPriority();
+    public RuleEngineService(
+            RuleSnapshotService ruleSnapshotService,
+            FraudDetectionProperties properties,
+            @Qualifier("ruleEvaluationExecutor") Executor ruleExecutor,
+            @Qualifier("ruleEvaluationForkJoinPool") ForkJoinPool ruleEvaluationForkJoinPool,
+            FraudDetectionMetrics metrics) {
+        this.ruleSnapshotService = ruleSnapshotService;
+        this.engineProperties = properties.getEngine();
+        this.ruleExecutor = ruleExecutor;
+        this.ruleEvaluationForkJoinPool = ruleEvaluationForkJoinPool;
+        this.metrics = metrics;
     }
     
     public CompletableFuture<RuleEvaluationResult> evaluateRulesAsync(Transaction transaction) {
+        long queuedAt = System.nanoTime();
         return CompletableFuture.supplyAsync(() -> {
-            try {
-                List<FraudRule> rules = getActiveRules();
-                log.debug("Evaluating {} rules for transaction {}", rules.size(), transaction.getTransactionId());
-                
-                // Evaluate rules in priority order - stop at first triggered rule
-                for (FraudRule rule : rules) {
-                    RuleEvaluationResult result = evaluateRule(rule, transaction);
-                    if (result.isTriggered()) {
-                        log.info("Rule '{}' triggered for transaction {}: {}", 
-                            rule.getRuleName(), transaction.getTransactionId(), result.getMessage());
-                        return result;
-                    }
-                }
-                
-                // No rules triggered - approve
-                return new RuleEvaluationResult(true, FraudRule.ActionType.APPROVE, "All checks passed", "DEFAULT_APPROVE", 0);
-                
-            } catch (Exception e) {
-                log.error("Error evaluating rules for transaction {}: {}", transaction.getTransactionId(), e.getMessage(), e);
-                // Fail safe - reject on error
-                return new RuleEvaluationResult(true, FraudRule.ActionType.REJECT, "System error during rule evaluation", "ERROR_HANDLER", -1);
-            }
+            metrics.recordStage(Stage.QUEUE_WAIT, queuedAt);
+            return evaluateRules(transaction);
         }, ruleExecutor);
     }
     
-    private RuleEvaluationResult evaluateRule(FraudRule rule, Transaction transaction) {
+    /**
+     * Evaluates the transaction on the calling thread. Used directly when the caller is
+     * already running on a virtual thread, so no executor handoff is needed.
+     */
+    public RuleEvaluationResult evaluateRules(Transaction transaction) {
+        long start = System.nanoTime();
         try {
-            switch (rule.getRuleType()) {
-                case AMOUNT_THRESHOLD:
-                    return evaluateAmountThreshold(rule, transaction);
-                case IP_BLACKLIST:
-                    return evaluateIpBlacklist(rule, transaction);
-                case DUPLICATE_TRANSACTION:
-                    return evaluateDuplicateTransaction(rule, transaction);
-                default:
-                    log.warn("Unknown rule type: {} for rule: {}", rule.getRuleType(), rule.getRuleName());
-                    return RuleEvaluationResult.notTriggered();
-            }
+            return evaluateRules(ruleSnapshotService.getCurrentSnapshot(), transaction);
         } catch (Exception e) {
-            log.error("Error evaluating rule '{}': {}", rule.getRuleName(), e.getMessage(), e);
-            return RuleEvaluationResult.notTriggered();
+            return evaluationError(transaction, e);
+        } finally {
+            metrics.recordStage(Stage.RULE_EVALUATION, start);
         }
     }
     
-    private RuleEvaluationResult evaluateAmountThreshold(FraudRule rule, Transaction transaction) {
-        if (transaction.getAmount() == null || rule.getThresholdValue() == null) {
-            return RuleEvaluationResult.notTriggered();
+    /**
+     * Evaluates a batch against one rule snapshot, so every transaction in the batch sees
+     * the same rule set. Transactions are spread over the rule evaluation fork/join pool;
+     * results are returned in input order.
+     */
+    public List<RuleEvaluationResult> evaluateBatch(List<Transaction> transactions) {
+        RuleSnapshot snapshot = ruleSnapshotService.getCurrentSnapshot();
+        RuleEvaluationResult[] results = new RuleEvaluationResult[transactions.size()];
+        try {
+            ruleEvaluationForkJoinPool.submit(() -> IntStream.range(0, results.length).parallel()
+                .forEach(i -> results[i] = evaluateOne(snapshot, transactions.get(i))))
+                .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during batch rule evaluation", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch rule evaluation failed", e.getCause());
         }
-        
-        // Rule condition format: "GREATER_THAN", "GREATER_THAN_OR_EQUAL", "LESS_THAN", "LESS_THAN_OR_EQUAL"
-        String condition = rule.getRuleCondition();
-        BigDecimal amount = transaction.getAmount();
-        BigDecimal threshold = rule.getThresholdValue();
-        
-        boolean triggered = switch (condition) {
-            case "GREATER_THAN" -> amount.compareTo(threshold) > 0;
-            case "GREATER_THAN_OR_EQUAL" -> amount.compareTo(threshold) >= 0;
-            case "LESS_THAN" -> amount.compareTo(threshold) < 0;
-            case "LESS_THAN_OR_EQUAL" -> amount.compareTo(threshold) <= 0;
-            default -> false;
-        };
-        
-        return triggered ? RuleEvaluationResult.triggered(rule) : RuleEvaluationResult.notTriggered();
+        return Arrays.asList(results);
     }
     
-    private RuleEvaluationResult evaluateIpBlacklist(FraudRule rule, Transaction transaction) {
-        if (transaction.getIpAddress() == null || rule.getStringValue() == null) {
-            return RuleEvaluationResult.notTriggered();
+    private RuleEvaluationResult evaluateOne(RuleSnapshot snapshot, Transaction transaction) {
+        try {
+            return evaluateRules(snapshot, transaction);
+        } catch (Exception e) {
+            return evaluationError(transaction, e);
+        }
+    }
+    
+    /**
+     * Allocates nothing per transaction for stateless rule sets: results are shared and
+     * logging is guarded, since varargs and boxing happen before the level check.
+     */
+    private RuleEvaluationResult evaluateRules(RuleSnapshot snapshot, Transaction transaction) {
+        if (log.isDebugEnabled()) {
+            log.debug("Evaluating {} rules (snapshot v{}) for transaction {}", 
+                snapshot.size(), snapshot.getVersion(), transaction.getTransactionId());
         }
         
-        String ipAddress = transaction.getIpAddress();
-        String blacklistPattern = rule.getStringValue();
-        
-        // Rule condition format: "STARTS_WITH", "EQUALS", "CONTAINS", "REGEX"
-        String condition = rule.getRuleCondition();
-        
-        boolean triggered = switch (condition) {
-            case "STARTS_WITH" -> ipAddress.startsWith(blacklistPattern);
-            case "EQUALS" -> ipAddress.equals(blacklistPattern);
-            case "CONTAINS" -> ipAddress.contains(blacklistPattern);
-            case "REGEX" -> ipAddress.matches(blacklistPattern);
-            default -> false;
-        };
+        // Evaluate rules in priority order - stop at first triggered rule
+        RuleEvaluationResult result = evaluateSnapshot(snapshot, transaction);
+        if (result.isTriggered()) {
+            // Per-rule hits are counted in fraud.rule.hits; the log line is for tracing single transactions
+            if (log.isDebugEnabled()) {
+                log.debug("Rule '{}' triggered for transaction {}: {}", 
+                    result.getRuleName(), transaction.getTransactionId(), result.getMessage());
+            }
+            metrics.recordRuleHit(result.getRuleType(), result.getRuleName());
+            return result;
+        }
         
-        return triggered ? RuleEvaluationResult.triggered(rule) : RuleEvaluationResult.notTriggered();
+        // No rules triggered - approve
+        RuleEvaluationResult approved = approvedResult;
+        if (approved.getRuleSetVersion() != snapshot.getVersion()) {
+            approved = approved(snapshot.getVersion());
+            approvedResult = approved;
+        }
+        return approved;
+    }
+    
+    private static RuleEvaluationResult approved(long ruleSetVersion) {
+        return new RuleEvaluationResult(true, FraudRule.ActionType.APPROVE, "All checks passed", "DEFAULT_APPROVE", 0,
+            ruleSetVersion);
     }
     
-    private RuleEvaluationResult evaluateDuplicateTransaction(FraudRule rule, Transaction transaction) {
-        // This would typically check against existing transactions
-        // For now, we'll implement a simple check
-        // In a real implementation, this would query the transaction repository
-        return RuleEvaluationResult.notTriggered();
+    private RuleEvaluationResult evaluationError(Transaction transaction, Exception e) {
+        log.error("Error evaluating rules for transaction {}: {}", transaction.getTransactionId(), e.getMessage(), e);
+        // Fail safe - reject on error
+        return EVALUATION_ERROR;
+    }
+    
+    private RuleEvaluationResult evaluateSnapshot(RuleSnapshot snapshot, Transaction transaction) {
+        if (snapshot.getResidualRuleCount() >= engineProperties.getParallelThreshold()) {
+            return snapshot.evaluateParallel(transaction, ruleEvaluationForkJoinPool, engineProperties.getParallelChunkSize());
+        }
+        return snapshot.evaluate(transaction);
     }
 }
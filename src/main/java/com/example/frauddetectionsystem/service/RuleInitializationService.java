@@ -1,6 +1,8 @@
 package com.example.frauddetectionsystem.service;
 
 import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.domain.FraudRuleChange;
+import com.example.frauddetectionsystem.repository.FraudRuleChangeRepository;
 import com.example.frauddetectionsystem.repository.FraudRuleRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,10 +19,14 @@ import java.util.List;
 public class RuleInitializationService implements CommandLineRunner {
     
     private final FraudRuleRepository fraudRuleRepository;
+    private final FraudRuleChangeRepository changeRepository;
     
     @Autowired
-    public RuleInitializationService(FraudRuleRepository fraudRuleRepository) {
+    public RuleInitializationService(
+            FraudRuleRepository fraudRuleRepository,
+            FraudRuleChangeRepository changeRepository) {
         this.fraudRuleRepository = fraudRuleRepository;
+        this.changeRepository = changeRepository;
     }
     
     @Override
@@ -76,6 +82,8 @@ public class RuleInitializationService implements CommandLineRunner {
         );
         
         fraudRuleRepository.saveAll(defaultRules);
+        // Instances already running pick the seeded rules up from the change log
+        changeRepository.saveAll(defaultRules.stream().map(rule -> new FraudRuleChange(rule.getId())).toList());
         log.info("Saved {} default fraud detection rules", defaultRules.size());
     }
     
@@ -1,11 +1,13 @@
 package com.example.frauddetectionsystem.service;
 
 import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.domain.FraudRuleChange;
+import com.example.frauddetectionsystem.engine.CompiledRule;
+import com.example.frauddetectionsystem.engine.RuleCompiler;
+import com.example.frauddetectionsystem.repository.FraudRuleChangeRepository;
 import com.example.frauddetectionsystem.repository.FraudRuleRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -20,28 +22,39 @@ import java.util.Optional;
 public class RuleManagementService {
     
     private final FraudRuleRepository fraudRuleRepository;
+    private final FraudRuleChangeRepository changeRepository;
+    private final RuleCompiler ruleCompiler;
+    private final RuleSnapshotService ruleSnapshotService;
     
     @Autowired
-    public RuleManagementService(FraudRuleRepository fraudRuleRepository) {
+    public RuleManagementService(
+            FraudRuleRepository fraudRuleRepository,
+            FraudRuleChangeRepository changeRepository,
+            RuleCompiler ruleCompiler,
+            RuleSnapshotService ruleSnapshotService) {
         this.fraudRuleRepository = fraudRuleRepository;
+        this.changeRepository = changeRepository;
+        this.ruleCompiler = ruleCompiler;
+        this.ruleSnapshotService = ruleSnapshotService;
     }
     
     @Transactional
-    @CacheEvict(value = {"activeRules", "rulesByType"}, allEntries = true)
     public FraudRule createRule(FraudRule rule) {
         rule.setCreatedAt(LocalDateTime.now());
         rule.setUpdatedAt(LocalDateTime.now());
         if (rule.getIsActive() == null) {
             rule.setIsActive(true);
         }
+        // Reject invalid conditions up front rather than at evaluation time
+        ruleCompiler.validate(rule);
         
         FraudRule savedRule = fraudRuleRepository.save(rule);
+        recordChange(savedRule.getId(), savedRule);
         log.info("Created new fraud rule: {} with ID: {}", rule.getRuleName(), savedRule.getId());
         return savedRule;
     }
     
     @Transactional
-    @CacheEvict(value = {"activeRules", "rulesByType"}, allEntries = true)
     public FraudRule updateRule(Long ruleId, FraudRule updatedRule) {
         Optional<FraudRule> existingRule = fraudRuleRepository.findById(ruleId);
         if (existingRule.isEmpty()) {
@@ -59,25 +72,26 @@ public class RuleManagementService {
         rule.setThresholdValue(updatedRule.getThresholdValue());
         rule.setStringValue(updatedRule.getStringValue());
         rule.setUpdatedAt(LocalDateTime.now());
+        ruleCompiler.validate(rule);
         
         FraudRule savedRule = fraudRuleRepository.save(rule);
+        recordChange(savedRule.getId(), savedRule);
         log.info("Updated fraud rule: {} with ID: {}", rule.getRuleName(), savedRule.getId());
         return savedRule;
     }
     
     @Transactional
-    @CacheEvict(value = {"activeRules", "rulesByType"}, allEntries = true)
     public void deleteRule(Long ruleId) {
         if (!fraudRuleRepository.existsById(ruleId)) {
             throw new IllegalArgumentException("Rule not found with ID: " + ruleId);
         }
         
         fraudRuleRepository.deleteById(ruleId);
+        recordChange(ruleId, null);
         log.info("Deleted fraud rule with ID: {}", ruleId);
     }
     
     @Transactional
-    @CacheEvict(value = {"activeRules", "rulesByType"}, allEntries = true)
     public FraudRule toggleRuleStatus(Long ruleId) {
         Optional<FraudRule> existingRule = fraudRuleRepository.findById(ruleId);
         if (existingRule.isEmpty()) {
@@ -89,6 +103,7 @@ public class RuleManagementService {
         rule.setUpdatedAt(LocalDateTime.now());
         
         FraudRule savedRule = fraudRuleRepository.save(rule);
+        recordChange(savedRule.getId(), savedRule);
         log.info("Toggled fraud rule status: {} - Active: {}", rule.getRuleName(), rule.getIsActive());
         return savedRule;
     }
@@ -103,16 +118,20 @@ public class RuleManagementService {
         return fraudRuleRepository.findAll(pageable);
     }
     
-    @Transactional(readOnly = true)
-    @Cacheable(value = "activeRules", key = "'all'")
+    /**
+     * @return the rules in force, in evaluation order, as held by the current rule snapshot
+     */
     public List<FraudRule> getActiveRules() {
-        return fraudRuleRepository.findActiveRulesOrderedByPriority();
+        return ruleSnapshotService.getCurrentSnapshot().getRules().stream()
+            .map(rule -> rule.getDefinition().toEntity())
+            .toList();
     }
     
-    @Transactional(readOnly = true)
-    @Cacheable(value = "rulesByType", key = "#ruleType")
     public List<FraudRule> getActiveRulesByType(FraudRule.RuleType ruleType) {
-        return fraudRuleRepository.findActiveRulesByTypeOrderedByPriority(ruleType);
+        return ruleSnapshotService.getCurrentSnapshot().getRules().stream()
+            .filter(rule -> rule.getRuleType() == ruleType)
+            .map(rule -> rule.getDefinition().toEntity())
+            .toList();
     }
     
     @Transactional(readOnly = true)
@@ -120,8 +139,17 @@ public class RuleManagementService {
         return fraudRuleRepository.countActiveRules();
     }
     
-    @CacheEvict(value = {"activeRules", "rulesByType"}, allEntries = true)
+    /**
+     * Logs the change for other instances and applies it to this instance's snapshot once
+     * the transaction commits.
+     */
+    private void recordChange(Long ruleId, FraudRule rule) {
+        FraudRuleChange change = changeRepository.save(new FraudRuleChange(ruleId));
+        ruleSnapshotService.applyAfterCommit(change.getId(), ruleId, rule);
+    }
+    
     public void clearRuleCache() {
-        log.info("Cleared fraud rule cache");
+        ruleSnapshotService.requestRefresh();
+        log.info("Cleared fraud rule cache, rule snapshot reload requested");
     }
 }
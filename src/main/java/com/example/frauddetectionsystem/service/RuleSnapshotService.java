@@ -0,0 +1,345 @@
+package com.example.frauddetectionsystem.service;
+
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.domain.FraudRuleChange;
+import com.example.frauddetectionsystem.engine.RuleCompiler;
+import com.example.frauddetectionsystem.engine.RuleSnapshot;
+import com.example.frauddetectionsystem.repository.FraudRuleChangeRepository;
+import com.example.frauddetectionsystem.repository.FraudRuleRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the rule snapshot every request is evaluated against. Every change swaps in a
+ * new snapshot atomically with the next version number, so requests never wait for a
+ * reload and keep using the previous snapshot until the new one is complete.
+ * <p>
+ * Changes to single rules are applied incrementally - only the changed rule is compiled
+ * and only its index re-built. Full rebuilds from the database run on a background
+ * thread, on a fixed schedule and on demand.
+ * <p>
+ * Changes made on other instances are picked up from the {@link FraudRuleChange} log,
+ * which is polled on the same background thread; only the rules named by new entries are
+ * read and applied, so staleness is bounded by the poll interval. Entries for changes this
+ * instance already applied itself are read as well - after-commit callbacks of concurrent
+ * edits can run out of commit order - but a rule the snapshot already holds as stored is
+ * not applied again, so a local edit normally bumps the version once.
+ */
+@Service
+@Slf4j
+public class RuleSnapshotService {
+
+    private final FraudRuleRepository fraudRuleRepository;
+    private final FraudRuleChangeRepository changeRepository;
+    private final RuleCompiler ruleCompiler;
+    private final FraudDetectionProperties.Rules rulesProperties;
+    private final AtomicReference<RuleSnapshot> current = new AtomicReference<>();
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final ScheduledExecutorService refresher;
+    // Highest change log ID already covered by a full rebuild
+    private volatile long rebuiltThroughChange;
+
+    // Change log position, advanced by the refresher thread: every entry up to the
+    // watermark has been applied (or given up on), appliedChanges holds those above it,
+    // including entries applied locally by request threads
+    private volatile long changeWatermark;
+    private final NavigableSet<Long> appliedChanges = new ConcurrentSkipListSet<>();
+    // Entries applied locally from the in-memory entity, which the poll still reads once
+    private final NavigableSet<Long> localChanges = new ConcurrentSkipListSet<>();
+    private long gapSince;
+
+    @Autowired
+    public RuleSnapshotService(
+            FraudRuleRepository fraudRuleRepository,
+            FraudRuleChangeRepository changeRepository,
+            RuleCompiler ruleCompiler,
+            FraudDetectionProperties properties) {
+        this.fraudRuleRepository = fraudRuleRepository;
+        this.changeRepository = changeRepository;
+        this.ruleCompiler = ruleCompiler;
+        this.rulesProperties = properties.getRules();
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "RuleSnapshotRefresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loads the first snapshot once startup runners have seeded the rules, then starts
+     * following the change log and the periodic full rebuild.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void startRefreshing() {
+        // Read before the rules, so changes committed during the load are applied again
+        changeWatermark = changeRepository.findLatestChangeId();
+        refresh();
+        long interval = rulesProperties.getRefreshInterval().toMillis();
+        refresher.scheduleWithFixedDelay(this::scheduledRebuild, interval, interval, TimeUnit.MILLISECONDS);
+        long pollInterval = rulesProperties.getChangePollInterval().toMillis();
+        refresher.scheduleWithFixedDelay(this::pollChangesQuietly, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * @return the current snapshot; only a request arriving before the first load waits for it
+     */
+    public RuleSnapshot getCurrentSnapshot() {
+        RuleSnapshot snapshot = current.get();
+        return snapshot != null ? snapshot : loadInitial();
+    }
+
+    /**
+     * Schedules a background rebuild, after the current transaction commits if there is
+     * one so the rebuild sees the change. Requests made while a rebuild is still queued
+     * are coalesced into it.
+     */
+    public void requestRefresh() {
+        runAfterCommit(this::scheduleRefresh);
+    }
+
+    /**
+     * Applies a change to one rule once the current transaction (if any) commits. The rule
+     * with {@code ruleId} is replaced by {@code rule}, or removed if {@code rule} is null
+     * (deleted) or inactive. {@code changeId} is the change log entry recording it; a
+     * change the poll got to first is not applied again. The poll still reads the rule for
+     * entries applied here, correcting the snapshot if an older edit's callback ran last.
+     */
+    public void applyAfterCommit(Long changeId, Long ruleId, FraudRule rule) {
+        runAfterCommit(() -> {
+            // Claimed and applied under the poll's lock, so a poll sees either both or neither
+            synchronized (this) {
+                if (changeId <= changeWatermark || !appliedChanges.add(changeId)) {
+                    return;
+                }
+                localChanges.add(changeId);
+                try {
+                    applyChange(ruleId, rule);
+                } catch (RuntimeException e) {
+                    log.error("Incremental update for rule {} failed, requesting full rebuild: {}",
+                        ruleId, e.getMessage(), e);
+                    scheduleRefresh();
+                }
+            }
+        });
+    }
+
+    /**
+     * Applies a single rule change to the current snapshot and swaps in the result.
+     * Serialized with full rebuilds, so a change is never lost to a concurrent rebuild.
+     */
+    public RuleSnapshot applyChange(Long ruleId, FraudRule rule) {
+        Map<Long, FraudRule> changes = new LinkedHashMap<>();
+        changes.put(ruleId, rule);
+        return applyChanges(changes);
+    }
+
+    /**
+     * Applies several rule changes as one new snapshot version; a null value removes the rule.
+     */
+    public synchronized RuleSnapshot applyChanges(Map<Long, FraudRule> changes) {
+        RuleSnapshot base = current.get();
+        if (base == null) {
+            // Nothing loaded yet - the first load reads the changes from the database
+            return loadInitial();
+        }
+        long version = base.getVersion() + 1;
+        RuleSnapshot snapshot = base;
+        for (Map.Entry<Long, FraudRule> change : changes.entrySet()) {
+            snapshot = ruleCompiler.applyChange(snapshot, change.getKey(), change.getValue(), version);
+        }
+        current.set(snapshot);
+        log.info("Rule snapshot v{} active after {} rule change(s) ({} rules)",
+            version, changes.size(), snapshot.size());
+        return snapshot;
+    }
+
+    /**
+     * Applies rule changes logged since the last poll, by this or any other instance. Rules
+     * changed by this instance are read too, since their after-commit applies may have run
+     * out of commit order; rules the snapshot already holds as stored are left out, so only
+     * a real difference bumps the version.
+     */
+    synchronized void pollChanges() {
+        List<FraudRuleChange> entries = changeRepository.findByIdGreaterThanOrderByIdAsc(changeWatermark);
+        Map<Long, FraudRule> changes = new LinkedHashMap<>();
+        List<Long> claimed = new ArrayList<>();
+        List<Long> rereadLocal = new ArrayList<>();
+        boolean fullReload = false;
+        for (FraudRuleChange entry : entries) {
+            // Claimed before applying, so a local apply of the same change skips it
+            if (appliedChanges.add(entry.getId())) {
+                claimed.add(entry.getId());
+            } else if (localChanges.remove(entry.getId())) {
+                rereadLocal.add(entry.getId());
+            } else {
+                continue;
+            }
+            if (entry.isFullReload()) {
+                fullReload |= entry.getId() > rebuiltThroughChange;
+            } else {
+                changes.put(entry.getRuleId(), null);
+            }
+        }
+        try {
+            if (fullReload) {
+                refresh();
+            } else if (!changes.isEmpty()) {
+                // Rules not found were deleted and stay mapped to null
+                fraudRuleRepository.findAllById(changes.keySet()).forEach(rule -> changes.put(rule.getId(), rule));
+                RuleSnapshot snapshot = getCurrentSnapshot();
+                changes.entrySet().removeIf(change -> snapshot.reflects(change.getKey(), change.getValue()));
+                if (!changes.isEmpty()) {
+                    applyChanges(changes);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Released so the next poll retries them
+            claimed.forEach(appliedChanges::remove);
+            localChanges.addAll(rereadLocal);
+            throw e;
+        }
+        advanceWatermark();
+    }
+
+    private void advanceWatermark() {
+        while (!appliedChanges.isEmpty()) {
+            long next = appliedChanges.first();
+            if (next <= changeWatermark) {
+                // Applied locally after the watermark had already passed it
+                appliedChanges.remove(next);
+                localChanges.remove(next);
+                continue;
+            }
+            if (localChanges.contains(next)) {
+                // Applied locally but committed after this poll's read; the next poll reads it
+                return;
+            }
+            if (next == changeWatermark + 1) {
+                appliedChanges.remove(next);
+                changeWatermark = next;
+                gapSince = 0;
+                continue;
+            }
+            // A lower ID is not visible yet: its transaction is still open or was rolled back
+            long now = System.nanoTime();
+            if (gapSince == 0) {
+                gapSince = now;
+            } else if (now - gapSince > rulesProperties.getChangeGapTimeout().toNanos()) {
+                log.debug("Skipping rule change IDs {} to {}", changeWatermark + 1, next - 1);
+                changeWatermark = next - 1;
+                continue;
+            }
+            return;
+        }
+    }
+
+    /**
+     * Loads and compiles the active rules and swaps the result in. Rebuilds are serialized;
+     * readers are never blocked and see either the old or the new snapshot.
+     */
+    public synchronized RuleSnapshot refresh() {
+        long start = System.nanoTime();
+        // Read before the rules: every change up to this ID is included in the rebuild
+        long latestChange = changeRepository.findLatestChangeId();
+        RuleSnapshot previous = current.get();
+        long version = previous != null ? previous.getVersion() + 1 : 1;
+        RuleSnapshot snapshot = ruleCompiler.compile(fraudRuleRepository.findActiveRulesOrderedByPriority(), version);
+        current.set(snapshot);
+        rebuiltThroughChange = latestChange;
+        log.info("Rule snapshot v{} active with {} rules, built in {} ms",
+            version, snapshot.size(), (System.nanoTime() - start) / 1_000_000);
+        return snapshot;
+    }
+
+    private synchronized RuleSnapshot loadInitial() {
+        RuleSnapshot snapshot = current.get();
+        return snapshot != null ? snapshot : refresh();
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void scheduleRefresh() {
+        if (!refreshPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                // Cleared before loading, so a change committed during the rebuild schedules another
+                refreshPending.set(false);
+                refreshQuietly();
+            });
+        } catch (RejectedExecutionException e) {
+            refreshPending.set(false);
+            log.debug("Rule snapshot refresh skipped, shutting down");
+        }
+    }
+
+    private void scheduledRebuild() {
+        refreshQuietly();
+        try {
+            int deleted = changeRepository.deleteChangesBefore(
+                LocalDateTime.now().minus(rulesProperties.getChangeRetention()));
+            if (deleted > 0) {
+                log.debug("Deleted {} expired rule change log entries", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Rule change log cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private void pollChangesQuietly() {
+        try {
+            pollChanges();
+        } catch (RuntimeException e) {
+            log.warn("Rule change log poll failed, retrying in {}: {}",
+                rulesProperties.getChangePollInterval(), e.getMessage());
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            RuleSnapshot snapshot = current.get();
+            log.error("Rule snapshot refresh failed, still serving v{}: {}",
+                snapshot != null ? snapshot.getVersion() : 0, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.frauddetectionsystem.service;
+
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
+import com.example.frauddetectionsystem.domain.Transaction;
+import com.example.frauddetectionsystem.metrics.FraudDetectionMetrics;
+import com.example.frauddetectionsystem.repository.TransactionBatchWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Write-behind persistence for fraud decisions ({@code fraud.persistence.mode=WRITE_BEHIND}).
+ * Decided transactions are put on a bounded queue and a single background writer inserts
+ * them in JDBC batches, so insert latency is no longer part of the decision latency.
+ * <p>
+ * When the queue is full a request waits up to {@code offer-timeout} for space and then
+ * writes its own decision synchronously - the same caller-runs backpressure the executors
+ * use - so decisions are never dropped. On shutdown the queue is closed to new decisions
+ * and drained before the data source goes away.
+ * <p>
+ * Callers already have their decision, so a queued decision is only given up when it
+ * can never be stored: a row rejected as a duplicate (or otherwise invalid) is logged
+ * with its decision and counted in {@code fraud.persistence.failed}. Any other failure
+ * is taken as transient - the failed rows stay at the head of the queue and are retried
+ * with a doubling delay. Rows still failing after {@code max-retries}, or at shutdown,
+ * are appended to {@code fallback-file} and queued again on the next start.
+ */
+@Service
+@Slf4j
+public class TransactionWriteBehindService {
+
+    private final TransactionBatchWriter transactionBatchWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final FraudDetectionProperties.Persistence persistence;
+    private final FraudDetectionMetrics metrics;
+    private final BlockingQueue<Transaction> queue;
+    // Offers hold the read lock, closing takes the write lock: no offer succeeds after the final drain
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+
+    private volatile boolean accepting;
+    private Thread writerThread;
+    // Rows the writer was still retrying when it stopped, read by shutdown after joining it
+    private final List<Transaction> unwritten = new ArrayList<>();
+
+    @Autowired
+    public TransactionWriteBehindService(
+            TransactionBatchWriter transactionBatchWriter,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            FraudDetectionProperties properties,
+            FraudDetectionMetrics metrics) {
+        this.transactionBatchWriter = transactionBatchWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.persistence = properties.getPersistence();
+        this.metrics = metrics;
+        this.queue = new ArrayBlockingQueue<>(persistence.getQueueCapacity());
+    }
+
+    @PostConstruct
+    void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        requeueFallback();
+        accepting = true;
+        writerThread = new Thread(this::runWriter, "TransactionWriteBehind");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Write-behind persistence enabled (queue capacity {}, batch size {})",
+            persistence.getQueueCapacity(), persistence.getBatchSize());
+    }
+
+    public boolean isEnabled() {
+        return persistence.getMode() == FraudDetectionProperties.PersistenceMode.WRITE_BEHIND;
+    }
+
+    /**
+     * Queues a decided transaction for writing. Blocks for at most {@code offer-timeout}
+     * when the queue is full, then writes the transaction on the calling thread instead.
+     */
+    public void enqueue(Transaction transaction) {
+        if (offer(transaction)) {
+            return;
+        }
+        log.debug("Write-behind queue unavailable, writing transaction {} directly", transaction.getTransactionId());
+        transactionBatchWriter.insertAll(List.of(transaction));
+    }
+
+    /**
+     * Queues decided transactions in order. From the first one that does not fit within
+     * {@code offer-timeout}, the rest are written on the calling thread with one batch insert.
+     */
+    public void enqueueAll(List<Transaction> transactions) {
+        int queued = 0;
+        while (queued < transactions.size() && offer(transactions.get(queued))) {
+            queued++;
+        }
+        if (queued < transactions.size()) {
+            log.debug("Write-behind queue unavailable, writing {} transactions directly", transactions.size() - queued);
+            transactionBatchWriter.insertAll(transactions.subList(queued, transactions.size()));
+        }
+    }
+
+    private boolean offer(Transaction transaction) {
+        acceptLock.readLock().lock();
+        try {
+            return accepting && queue.offer(transaction, persistence.getOfferTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        // Not interrupted: an interrupt mid-insert could break the JDBC connection.
+        // The writer notices within one flush interval.
+        acceptLock.writeLock().lock();
+        try {
+            // Waits out offers in progress, so nothing is queued once the writer has stopped
+            accepting = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+        writerThread.join();
+        // Whatever the writer had not taken yet is written here, or kept in the fallback file
+        flushRemaining();
+        log.info("Write-behind persistence drained");
+    }
+
+    private void runWriter() {
+        List<Transaction> batch = new ArrayList<>(persistence.getBatchSize());
+        int failures = 0;
+        while (accepting) {
+            try {
+                if (batch.isEmpty()) {
+                    Transaction first = queue.poll(persistence.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, persistence.getBatchSize() - 1);
+                } else if (!awaitRetry(failures)) {
+                    break;
+                }
+                List<Transaction> failed = write(batch);
+                batch.clear();
+                if (failed.isEmpty()) {
+                    failures = 0;
+                } else if (++failures > persistence.getMaxRetries()) {
+                    log.error("{} decisions still not written after {} retries, moving them to {}",
+                        failed.size(), persistence.getMaxRetries(), persistence.getFallbackFile());
+                    spill(failed);
+                    failures = 0;
+                } else {
+                    // Retried before anything queued behind them
+                    batch.addAll(failed);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        unwritten.addAll(batch);
+    }
+
+    /**
+     * Waits before retry number {@code failures}, returning early (false) on shutdown.
+     */
+    private boolean awaitRetry(int failures) throws InterruptedException {
+        long backoff = persistence.getRetryBackoff().toMillis() << Math.min(failures - 1, 20);
+        long deadline = System.nanoTime()
+            + TimeUnit.MILLISECONDS.toNanos(Math.min(backoff, persistence.getMaxRetryBackoff().toMillis()));
+        long step = Math.max(1, persistence.getFlushInterval().toMillis());
+        while (accepting) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return true;
+            }
+            Thread.sleep(Math.min(remaining, step));
+        }
+        return false;
+    }
+
+    private void flushRemaining() {
+        List<Transaction> failed = new ArrayList<>(write(unwritten));
+        unwritten.clear();
+        List<Transaction> batch = new ArrayList<>(persistence.getBatchSize());
+        while (queue.drainTo(batch, persistence.getBatchSize()) > 0) {
+            failed.addAll(write(batch));
+            batch.clear();
+        }
+        if (!failed.isEmpty()) {
+            log.error("{} decisions could not be written before shutdown, moving them to {}",
+                failed.size(), persistence.getFallbackFile());
+            spill(failed);
+        }
+    }
+
+    /**
+     * Writes the batch in one transaction, so a failed batch leaves no partial rows behind.
+     *
+     * @return the rows that failed for a reason that may pass, to be retried
+     */
+    private List<Transaction> write(List<Transaction> batch) {
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> transactionBatchWriter.insertAll(batch));
+            return List.of();
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Batch insert of {} transactions failed, retrying row by row: {}", batch.size(), e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Batch insert of {} transactions failed, will retry: {}", batch.size(), e.getMessage());
+            return List.copyOf(batch);
+        }
+        List<Transaction> failed = new ArrayList<>();
+        for (Transaction transaction : batch) {
+            try {
+                transactionBatchWriter.insertAll(List.of(transaction));
+            } catch (DataIntegrityViolationException rejected) {
+                // The filter only knows IDs stored through this instance; retrying cannot help
+                metrics.recordFailedWrite();
+                log.error("Transaction {} rejected by the database, likely stored by another instance; "
+                        + "decision {} - {} not stored: {}", transaction.getTransactionId(),
+                    transaction.getStatus(), transaction.getStatusReason(), rejected.getMessage());
+            } catch (RuntimeException rowError) {
+                failed.add(transaction);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Appends the rows to the fallback file and forces it to disk. Only a failure here
+     * loses decisions, each of which is then logged and counted.
+     */
+    private void spill(List<Transaction> transactions) {
+        Path file = persistence.getFallbackFile();
+        try {
+            StringBuilder lines = new StringBuilder();
+            for (Transaction transaction : transactions) {
+                lines.append(objectMapper.writeValueAsString(transaction)).append('\n');
+            }
+            Path directory = file.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            log.error("Cannot write fallback file {}: {}", file.toAbsolutePath(), e.getMessage(), e);
+            for (Transaction transaction : transactions) {
+                metrics.recordFailedWrite();
+                log.error("Decision for transaction {} not stored: {} - {}",
+                    transaction.getTransactionId(), transaction.getStatus(), transaction.getStatusReason());
+            }
+        }
+    }
+
+    /**
+     * Queues the decisions a previous run left in the fallback file, ahead of new ones,
+     * and removes the file. Rows that do not fit into the queue are written right away.
+     */
+    private void requeueFallback() {
+        Path file = persistence.getFallbackFile();
+        if (!Files.exists(file)) {
+            return;
+        }
+        List<Transaction> overflow = new ArrayList<>();
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            for (String line : (Iterable<String>) lines::iterator) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Transaction transaction = objectMapper.readValue(line, Transaction.class);
+                if (!queue.offer(transaction)) {
+                    overflow.add(transaction);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read write-behind fallback file " + file.toAbsolutePath(), e);
+        }
+        for (int from = 0; from < overflow.size(); from += persistence.getBatchSize()) {
+            int to = Math.min(overflow.size(), from + persistence.getBatchSize());
+            List<Transaction> failed = write(overflow.subList(from, to));
+            if (!failed.isEmpty()) {
+                throw new IllegalStateException("Cannot write decisions from fallback file " + file.toAbsolutePath());
+            }
+        }
+        try {
+            Files.delete(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot remove write-behind fallback file " + file.toAbsolutePath(), e);
+        }
+        log.info("Queued {} decisions from write-behind fallback file {}", queue.size() + overflow.size(), file);
+    }
+}
@@ -28,3 +28,18 @@ COMMENT ON COLUMN fraud_rules.action_type IS 'Action to take: APPROVE, REJECT, H
 COMMENT ON COLUMN fraud_rules.priority IS 'Rule execution priority (lower number = higher priority)';
 COMMENT ON COLUMN fraud_rules.threshold_value IS 'Numeric threshold for amount-based rules';
 COMMENT ON COLUMN fraud_rules.string_value IS 'String value for pattern-based rules';
+
+-- Rule Change Log Table
+CREATE TABLE IF NOT EXISTS fraud_rule_changes (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    rule_id BIGINT,
+    changed_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_fraud_rule_changes_changed_at ON fraud_rule_changes (changed_at);
+
+COMMENT ON TABLE fraud_rule_changes IS 'Append-only log of rule changes, polled by every instance to update its rule snapshot';
+
+-- Transaction ID sequence, shared by the JPA mapping and the JDBC batch writer
+-- (TransactionIdAllocator); each value reserves a block of 50 IDs
+CREATE SEQUENCE IF NOT EXISTS transactions_seq START WITH 1 INCREMENT BY 50;
@@ -0,0 +1,35 @@
+package com.example.frauddetectionsystem;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class PrometheusEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void prometheusEndpoint_ExposesPipelineMeters() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("fraud_check_stage_seconds_bucket{")))
+                .andExpect(content().string(containsString("stage=\"rule_evaluation\"")))
+                .andExpect(content().string(containsString("fraud_rule_hits_total{")))
+                .andExpect(content().string(containsString("executor_queued_tasks{name=\"ruleEvaluationExecutor\"")))
+                .andExpect(content().string(containsString("executor_active_threads{name=\"fraudDetectionExecutor\"")))
+                .andExpect(content().string(containsString("name=\"ruleEvaluationForkJoinPool\"")))
+                .andExpect(content().string(containsString("cache_gets_total{cache=\"transactionCache\"")));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.frauddetectionsystem;
+
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.engine.CompiledRule;
+import com.example.frauddetectionsystem.engine.RuleSnapshot;
+import com.example.frauddetectionsystem.service.RuleManagementService;
+import com.example.frauddetectionsystem.service.RuleSnapshotService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two application instances sharing one file-based database: rule changes made through
+ * one instance reach the other's snapshot through the rule change log.
+ */
+class RuleChangePropagationTest {
+
+    @TempDir
+    Path databaseDir;
+
+    @Test
+    void ruleChangesOnOneNodeReachTheOther() throws InterruptedException {
+        try (ConfigurableApplicationContext nodeA = startNode();
+             ConfigurableApplicationContext nodeB = startNode()) {
+            // Given
+            RuleManagementService rulesOnA = nodeA.getBean(RuleManagementService.class);
+            RuleSnapshotService snapshotsOnB = nodeB.getBean(RuleSnapshotService.class);
+            long initialVersion = snapshotsOnB.getCurrentSnapshot().getVersion();
+
+            // When - created on A
+            FraudRule created = rulesOnA.createRule(newRule("CLUSTER_AMOUNT_LIMIT"));
+
+            // Then - B applies just that change, without a full reload
+            RuleSnapshot afterCreate = awaitSnapshot(snapshotsOnB, snapshot -> contains(snapshot, "CLUSTER_AMOUNT_LIMIT"));
+            assertEquals(initialVersion + 1, afterCreate.getVersion());
+
+            // When / Then - toggled off and deleted on A
+            rulesOnA.toggleRuleStatus(created.getId());
+            awaitSnapshot(snapshotsOnB, snapshot -> !contains(snapshot, "CLUSTER_AMOUNT_LIMIT"));
+
+            rulesOnA.toggleRuleStatus(created.getId());
+            awaitSnapshot(snapshotsOnB, snapshot -> contains(snapshot, "CLUSTER_AMOUNT_LIMIT"));
+
+            rulesOnA.deleteRule(created.getId());
+            awaitSnapshot(snapshotsOnB, snapshot -> !contains(snapshot, "CLUSTER_AMOUNT_LIMIT"));
+        }
+    }
+
+    private ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(FraudDetectionSystemApplication.class)
+            .properties(
+                "spring.main.web-application-type=none",
+                "spring.datasource.url=jdbc:h2:file:" + databaseDir.resolve("frauddb").toAbsolutePath(),
+                "spring.jpa.hibernate.ddl-auto=update",
+                "spring.jpa.show-sql=false",
+                "spring.h2.console.enabled=false",
+                "fraud.rules.change-poll-interval=50ms")
+            .run();
+    }
+
+    private static RuleSnapshot awaitSnapshot(RuleSnapshotService snapshots, Predicate<RuleSnapshot> condition)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        RuleSnapshot snapshot = snapshots.getCurrentSnapshot();
+        while (!condition.test(snapshot) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            snapshot = snapshots.getCurrentSnapshot();
+        }
+        assertTrue(condition.test(snapshot), "Change did not reach the other node");
+        return snapshot;
+    }
+
+    private static boolean contains(RuleSnapshot snapshot, String ruleName) {
+        return snapshot.getRules().stream().map(CompiledRule::getRuleName).anyMatch(ruleName::equals);
+    }
+
+    private static FraudRule newRule(String name) {
+        FraudRule rule = new FraudRule();
+        rule.setRuleName(name);
+        rule.setRuleType(FraudRule.RuleType.AMOUNT_THRESHOLD);
+        rule.setRuleCondition("GREATER_THAN");
+        rule.setActionType(FraudRule.ActionType.REJECT);
+        rule.setActionMessage("Amount exceeds cluster limit");
+        rule.setPriority(10);
+        rule.setThresholdValue(new BigDecimal("5000"));
+        return rule;
+    }
+}
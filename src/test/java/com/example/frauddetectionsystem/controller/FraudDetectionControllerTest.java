@@ -14,15 +14,22 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 
 import java.math.BigDecimal;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -67,6 +74,69 @@ class FraudDetectionControllerTest {
                 .andExpect(jsonPath("$.reason").value("Approved"));
     }
 
+    @Test
+    void testCheckFraudAsync_Hold() throws Exception {
+        // Arrange
+        TransactionRequest request = createTestRequest("1500", "192.168.1.1");
+        FraudDetectionResult expectedResult = new FraudDetectionResult(
+            "tx123", 
+            TransactionStatus.HOLD, 
+            "Requires manual review"
+        );
+
+        when(fraudDetectionService.checkTransactionAsync(any(Transaction.class)))
+            .thenReturn(CompletableFuture.completedFuture(expectedResult));
+
+        // Act
+        MvcResult mvcResult = mockMvc.perform(post("/v1/fraud-check/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionId").value("tx123"))
+                .andExpect(jsonPath("$.status").value("HOLD"))
+                .andExpect(jsonPath("$.reason").value("Requires manual review"));
+    }
+
+    @Test
+    void testCheckFraudBatch_ResultsInInputOrder() throws Exception {
+        // Arrange
+        TransactionRequest first = createTestRequest("500", "192.168.1.1");
+        TransactionRequest second = createTestRequest("1500", "192.168.1.1");
+        second.setTransactionId("tx456");
+        when(fraudDetectionService.checkTransactions(anyList())).thenReturn(List.of(
+            new FraudDetectionResult("tx123", TransactionStatus.APPROVED, "All checks passed"),
+            new FraudDetectionResult("tx456", TransactionStatus.HOLD, "Requires manual review")));
+
+        // Act & Assert
+        mockMvc.perform(post("/v1/fraud-check/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(first, second))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].transactionId").value("tx123"))
+                .andExpect(jsonPath("$[0].status").value("APPROVED"))
+                .andExpect(jsonPath("$[1].transactionId").value("tx456"))
+                .andExpect(jsonPath("$[1].status").value("HOLD"));
+    }
+
+    @Test
+    void testCheckFraudBatch_InvalidItemRejected() throws Exception {
+        // Arrange
+        TransactionRequest valid = createTestRequest("500", "192.168.1.1");
+        TransactionRequest invalid = createTestRequest("500", "not-an-ip");
+
+        // Act & Assert
+        mockMvc.perform(post("/v1/fraud-check/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(valid, invalid))))
+                .andExpect(status().isBadRequest());
+        verify(fraudDetectionService, never()).checkTransactions(anyList());
+    }
+
     private TransactionRequest createTestRequest(String amount, String ipAddress) {
         TransactionRequest request = new TransactionRequest();
         request.setTransactionId("tx123");
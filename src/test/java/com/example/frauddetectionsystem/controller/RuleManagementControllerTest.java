@@ -0,0 +1,173 @@
+package com.example.frauddetectionsystem.controller;
+
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.dto.BulkImportResult;
+import com.example.frauddetectionsystem.exception.GlobalExceptionHandler;
+import com.example.frauddetectionsystem.exception.RuleCompilationException;
+import com.example.frauddetectionsystem.service.ActiveRulesResponseCache;
+import com.example.frauddetectionsystem.service.RuleBulkService;
+import com.example.frauddetectionsystem.service.RuleManagementService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class RuleManagementControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private RuleManagementService ruleManagementService;
+
+    @Mock
+    private RuleBulkService ruleBulkService;
+
+    @Mock
+    private ActiveRulesResponseCache activeRulesResponseCache;
+
+    @InjectMocks
+    private RuleManagementController ruleManagementController;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        mockMvc = MockMvcBuilders.standaloneSetup(ruleManagementController)
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+    }
+
+    @Test
+    void testCreateRule_InvalidRegexReportsCompileError() throws Exception {
+        // Arrange
+        FraudRule rule = createTestRule("BAD_REGEX", "REGEX", "10\\.(");
+        when(ruleManagementService.createRule(any(FraudRule.class)))
+            .thenThrow(new RuleCompilationException("BAD_REGEX", "invalid regular expression: Unclosed group"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/rules")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(rule)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid Rule"))
+                .andExpect(jsonPath("$.message").value("Invalid rule 'BAD_REGEX': invalid regular expression: Unclosed group"));
+    }
+
+    @Test
+    void testUpdateRule_InvalidConditionReportsCompileError() throws Exception {
+        // Arrange
+        FraudRule rule = createTestRule("IP_RULE", "MATCHES", "10.");
+        when(ruleManagementService.updateRule(eq(5L), any(FraudRule.class)))
+            .thenThrow(new RuleCompilationException("IP_RULE", "unsupported IP condition 'MATCHES'"));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/rules/5")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(rule)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid rule 'IP_RULE': unsupported IP condition 'MATCHES'"));
+    }
+
+    @Test
+    void testImportRules_ReturnsImportSummary() throws Exception {
+        // Arrange
+        when(ruleBulkService.importRules(any(InputStream.class))).thenReturn(new BulkImportResult(
+            1, 1, 4L, List.of(new BulkImportResult.LineError(2, "ruleName is required"))));
+        String body = objectMapper.writeValueAsString(createTestRule("IP_RULE", "STARTS_WITH", "10.")) + "\n{}\n";
+
+        // Act & Assert
+        mockMvc.perform(post("/api/rules/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.ruleSetVersion").value(4))
+                .andExpect(jsonPath("$.errors[0].line").value(2));
+    }
+
+    @Test
+    void testExportRules_StreamsNdjson() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(0);
+            output.write("{\"ruleName\":\"A\"}\n{\"ruleName\":\"B\"}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(ruleBulkService).exportRules(any(OutputStream.class));
+
+        // Act
+        MvcResult started = mockMvc.perform(get("/api/rules/bulk"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"ruleName\":\"A\"}\n{\"ruleName\":\"B\"}\n"));
+    }
+
+    @Test
+    void testGetActiveRules_ServesPreSerializedBodyAndNotModified() throws Exception {
+        // Arrange
+        byte[] json = "[{\"ruleName\":\"A\"}]".getBytes(StandardCharsets.UTF_8);
+        when(activeRulesResponseCache.getActiveRules()).thenReturn(
+            new ActiveRulesResponseCache.SerializedRules(3L, "\"abc\"", json, new byte[] {1, 2, 3}));
+
+        // Act & Assert - full body with the ETag
+        mockMvc.perform(get("/api/rules/active"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(content().bytes(json));
+
+        // gzip variant has its own tag
+        mockMvc.perform(get("/api/rules/active").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("ETag", "\"abc-gzip\""))
+                .andExpect(content().bytes(new byte[] {1, 2, 3}));
+
+        // Revalidation with either tag
+        mockMvc.perform(get("/api/rules/active").header("If-None-Match", "\"abc\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get("/api/rules/active").header("If-None-Match", "W/\"abc-gzip\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/rules/active").header("If-None-Match", "\"older\""))
+                .andExpect(status().isOk());
+    }
+
+    private FraudRule createTestRule(String name, String condition, String stringValue) {
+        FraudRule rule = new FraudRule();
+        rule.setRuleName(name);
+        rule.setRuleType(FraudRule.RuleType.IP_BLACKLIST);
+        rule.setRuleCondition(condition);
+        rule.setActionType(FraudRule.ActionType.REJECT);
+        rule.setActionMessage("IP address is blocked");
+        rule.setPriority(10);
+        rule.setStringValue(stringValue);
+        return rule;
+    }
+}
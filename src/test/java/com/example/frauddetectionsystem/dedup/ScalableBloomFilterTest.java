@@ -0,0 +1,46 @@
+package com.example.frauddetectionsystem.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void testMightContain_NoFalseNegativesAcrossStages() {
+        // Given - ten times the initial capacity forces several stages
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("tx-" + i);
+        }
+
+        // Then
+        assertTrue(filter.stageCount() > 1);
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("tx-" + i), "tx-" + i);
+        }
+    }
+
+    @Test
+    void testMightContain_FalsePositiveRateWithinTarget() {
+        // Given
+        ScalableBloomFilter filter = new ScalableBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 50_000; i++) {
+            filter.put("stored-" + i);
+        }
+
+        // When
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("new-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Then - compound rate stays under the configured target
+        assertTrue((double) falsePositives / probes < 0.01, "false positives: " + falsePositives);
+        assertTrue(filter.expectedFalsePositiveRate() < 0.01);
+        assertTrue(filter.bitSizeBytes() > 0);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.frauddetectionsystem.engine;
+
+import com.example.frauddetectionsystem.domain.FixedPointAmount;
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.domain.Transaction;
+import com.example.frauddetectionsystem.dto.RuleEvaluationResult;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AmountRuleIndexTest {
+
+    private final RuleCompiler ruleCompiler = new RuleCompiler();
+
+    @Test
+    void testSnapshot_BoundariesPerOperator() {
+        // Given
+        RuleSnapshot snapshot = ruleCompiler.compile(List.of(
+            createAmountRule(1L, "GT_2000", "GREATER_THAN", 1, "2000"),
+            createAmountRule(2L, "GTE_1000", "GREATER_THAN_OR_EQUAL", 2, "1000"),
+            createAmountRule(3L, "LT_1", "LESS_THAN", 3, "1"),
+            createAmountRule(4L, "LTE_5", "LESS_THAN_OR_EQUAL", 4, "5")
+        ), 1L);
+
+        // Then
+        assertEquals(4, snapshot.getAmountIndexedRuleCount());
+        assertEquals("GTE_1000", ruleNameFor(snapshot, "2000"));
+        assertEquals("GT_2000", ruleNameFor(snapshot, "2000.01"));
+        assertEquals("GTE_1000", ruleNameFor(snapshot, "1000.00"));
+        assertNull(ruleNameFor(snapshot, "999.99"));
+        assertEquals("LTE_5", ruleNameFor(snapshot, "5"));
+        assertEquals("LTE_5", ruleNameFor(snapshot, "1"));
+        assertEquals("LT_1", ruleNameFor(snapshot, "0.99"));
+    }
+
+    @Test
+    void testToMinorUnits_FallsBackForOverPreciseOrOversizedValues() {
+        assertEquals(20_000_000L, FixedPointAmount.toMinorUnits(new BigDecimal("2000")));
+        assertEquals(12_345L, FixedPointAmount.toMinorUnits(new BigDecimal("1.234500")));
+        assertEquals(FixedPointAmount.NOT_REPRESENTABLE, FixedPointAmount.toMinorUnits(new BigDecimal("1.23456")));
+        assertEquals(FixedPointAmount.NOT_REPRESENTABLE, FixedPointAmount.toMinorUnits(new BigDecimal("1e30")));
+        assertEquals(FixedPointAmount.NOT_REPRESENTABLE, FixedPointAmount.toMinorUnits(null));
+        assertEquals(FixedPointAmount.NOT_REPRESENTABLE, FixedPointAmount.toMinorUnits(new BigDecimal("0.00001")));
+        assertEquals(0L, FixedPointAmount.toMinorUnits(new BigDecimal("0E-20000000")));
+    }
+
+    @Test
+    void testToMinorUnits_RejectsExtremeExponentsWithoutRescaling() {
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+            assertEquals(FixedPointAmount.NOT_REPRESENTABLE, FixedPointAmount.toMinorUnits(new BigDecimal("1E+20000000")));
+            assertEquals(FixedPointAmount.NOT_REPRESENTABLE, FixedPointAmount.toMinorUnits(new BigDecimal("1E-20000000")));
+            assertEquals(FixedPointAmount.NOT_REPRESENTABLE,
+                FixedPointAmount.toMinorUnits(new BigDecimal("1E+20000000"), RoundingMode.HALF_UP));
+            assertEquals(0L, FixedPointAmount.toMinorUnits(new BigDecimal("1E-20000000"), RoundingMode.HALF_UP));
+            assertEquals(1L, FixedPointAmount.toMinorUnits(new BigDecimal("1E-20000000"), RoundingMode.UP));
+        });
+        assertEquals(12_346L, FixedPointAmount.toMinorUnits(new BigDecimal("1.23456"), RoundingMode.HALF_UP));
+        assertEquals(1L, FixedPointAmount.toMinorUnits(new BigDecimal("0.00005"), RoundingMode.HALF_UP));
+    }
+
+    @Test
+    void testSnapshot_BigDecimalFallbackForUnrepresentableValues() {
+        // Given
+        RuleSnapshot snapshot = ruleCompiler.compile(List.of(
+            createAmountRule(1L, "GT_2000", "GREATER_THAN", 1, "2000"),
+            createAmountRule(2L, "GT_PRECISE", "GREATER_THAN", 2, "1000.000001"),
+            createAmountRule(3L, "LT_HUGE", "LESS_THAN", 3, "1e30")
+        ), 1L);
+
+        // Then
+        assertEquals("GT_2000", ruleNameFor(snapshot, "2000.00001"));
+        assertEquals("GT_PRECISE", ruleNameFor(snapshot, "1000.000002"));
+        assertEquals("GT_PRECISE", ruleNameFor(snapshot, "1000.01"));
+        assertEquals("LT_HUGE", ruleNameFor(snapshot, "1000.000001"));
+        assertEquals("GT_2000", ruleNameFor(snapshot, "1e25"));
+        assertEquals("GT_2000", ruleNameFor(snapshot, "1e31"));
+    }
+
+    @Test
+    void testSnapshot_MatchesLinearEvaluationOnRandomRules() {
+        Random random = new Random(7);
+        String[] conditions = {"GREATER_THAN", "GREATER_THAN_OR_EQUAL", "LESS_THAN", "LESS_THAN_OR_EQUAL"};
+        List<FraudRule> rules = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            String threshold = random.nextInt(10) == 0
+                ? random.nextInt(5000) + "." + String.format("%06d", random.nextInt(1_000_000))
+                : random.nextInt(5000) + "." + random.nextInt(100);
+            rules.add(createAmountRule(id, "RULE_" + id, conditions[random.nextInt(conditions.length)],
+                random.nextInt(200), threshold));
+        }
+        RuleSnapshot snapshot = ruleCompiler.compile(rules, 1L);
+
+        for (int i = 0; i < 5000; i++) {
+            Transaction transaction = new Transaction();
+            String fraction = random.nextBoolean()
+                ? String.valueOf(random.nextInt(100))
+                : String.format("%06d", random.nextInt(1_000_000));
+            transaction.setAmount(new BigDecimal(random.nextInt(5000) + "." + fraction));
+
+            String expected = null;
+            for (CompiledRule rule : snapshot.getRules()) {
+                if (rule.matches(transaction)) {
+                    expected = rule.getRuleName();
+                    break;
+                }
+            }
+            assertEquals(expected, snapshot.evaluate(transaction).getRuleName(), transaction.getAmount().toString());
+        }
+    }
+
+    private String ruleNameFor(RuleSnapshot snapshot, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal(amount));
+        RuleEvaluationResult result = snapshot.evaluate(transaction);
+        return result.isTriggered() ? result.getRuleName() : null;
+    }
+
+    private FraudRule createAmountRule(Long id, String name, String condition, int priority, String threshold) {
+        FraudRule rule = new FraudRule();
+        rule.setId(id);
+        rule.setRuleName(name);
+        rule.setRuleType(FraudRule.RuleType.AMOUNT_THRESHOLD);
+        rule.setRuleCondition(condition);
+        rule.setActionType(FraudRule.ActionType.HOLD);
+        rule.setActionMessage("Requires manual review");
+        rule.setPriority(priority);
+        rule.setIsActive(true);
+        rule.setThresholdValue(new BigDecimal(threshold));
+        return rule;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.frauddetectionsystem.engine;
+
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.domain.Transaction;
+import com.example.frauddetectionsystem.domain.TransactionDetails;
+import com.example.frauddetectionsystem.exception.RuleCompilationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DuplicateTransactionRuleTest {
+
+    private static final String FIELDS = "originatorDetails.account,amount,eTransferDetails.recipientAccount";
+
+    private final MutableClock clock = new MutableClock();
+    private final RuleCompiler ruleCompiler = new RuleCompiler(new RuleStateRegistry(clock));
+
+    @Test
+    void testEvaluate_NearDuplicateWithinWindowTriggers() {
+        // Given
+        RuleSnapshot snapshot = ruleCompiler.compile(List.of(
+            createDuplicateRule(1L, "WINDOW_SECONDS=60", FIELDS)), 1L);
+
+        // When
+        boolean first = snapshot.evaluate(createTransaction("tx1", "250.00", "recipient-1")).isTriggered();
+        clock.advanceSeconds(30);
+        boolean second = snapshot.evaluate(createTransaction("tx2", "250", "recipient-1")).isTriggered();
+        boolean otherRecipient = snapshot.evaluate(createTransaction("tx3", "250", "recipient-2")).isTriggered();
+
+        // Then
+        assertFalse(first);
+        assertTrue(second);
+        assertFalse(otherRecipient);
+        assertEquals(1, snapshot.getStatefulRuleCount());
+    }
+
+    @Test
+    void testEvaluate_ExpiresAfterWindow() {
+        // Given
+        RuleSnapshot snapshot = ruleCompiler.compile(List.of(
+            createDuplicateRule(1L, "WINDOW_SECONDS=60", FIELDS)), 1L);
+        snapshot.evaluate(createTransaction("tx1", "250", "recipient-1"));
+
+        // When
+        clock.advanceSeconds(61);
+        boolean afterWindow = snapshot.evaluate(createTransaction("tx2", "250", "recipient-1")).isTriggered();
+        clock.advanceSeconds(600);
+        boolean muchLater = snapshot.evaluate(createTransaction("tx3", "250", "recipient-1")).isTriggered();
+
+        // Then
+        assertFalse(afterWindow);
+        assertFalse(muchLater);
+    }
+
+    @Test
+    void testEvaluate_RecordsEvenWhenHigherPriorityRuleWins() {
+        // Given - the IP rule outranks the duplicate rule
+        RuleSnapshot snapshot = ruleCompiler.compile(List.of(
+            createDuplicateRule(2L, "WINDOW_SECONDS=60", FIELDS),
+            createIpRule(1L, "IP_BLOCK", "10.0.0.1")), 1L);
+
+        // When
+        String first = snapshot.evaluate(createTransaction("tx1", "250", "recipient-1", "10.0.0.1")).getRuleName();
+        String second = snapshot.evaluate(createTransaction("tx2", "250", "recipient-1", "172.16.0.1")).getRuleName();
+
+        // Then
+        assertEquals("IP_BLOCK", first);
+        assertEquals("DUPLICATE_2", second);
+    }
+
+    @Test
+    void testEvaluate_MissingFieldNeverMatches() {
+        RuleSnapshot snapshot = ruleCompiler.compile(List.of(
+            createDuplicateRule(1L, "WINDOW_SECONDS=60", FIELDS)), 1L);
+        Transaction withoutDetails = new Transaction();
+        withoutDetails.setTransactionId("tx1");
+        withoutDetails.setAmount(new BigDecimal("250"));
+
+        assertFalse(snapshot.evaluate(withoutDetails).isTriggered());
+        assertFalse(snapshot.evaluate(withoutDetails).isTriggered());
+    }
+
+    @Test
+    void testCompile_StateSurvivesReloadButNotReconfiguration() {
+        // Given
+        ruleCompiler.compile(List.of(createDuplicateRule(1L, "WINDOW_SECONDS=60", FIELDS)), 1L)
+            .evaluate(createTransaction("tx1", "250", "recipient-1"));
+
+        // When
+        RuleSnapshot reloaded = ruleCompiler.compile(List.of(createDuplicateRule(1L, "WINDOW_SECONDS=60", FIELDS)), 2L);
+        boolean seenAfterReload = reloaded.evaluate(createTransaction("tx2", "250", "recipient-1")).isTriggered();
+        RuleSnapshot reconfigured = ruleCompiler.compile(List.of(createDuplicateRule(1L, "WINDOW_SECONDS=120", FIELDS)), 3L);
+        boolean seenAfterReconfigure = reconfigured.evaluate(createTransaction("tx3", "250", "recipient-1")).isTriggered();
+
+        // Then
+        assertTrue(seenAfterReload);
+        assertFalse(seenAfterReconfigure);
+    }
+
+    @Test
+    void testCompile_RejectsInvalidWindowOrFields() {
+        assertThrows(RuleCompilationException.class,
+            () -> ruleCompiler.compile(createDuplicateRule(1L, "WINDOW_SECONDS=0", FIELDS)));
+        assertThrows(RuleCompilationException.class,
+            () -> ruleCompiler.compile(createDuplicateRule(1L, "EXACT", FIELDS)));
+        assertThrows(RuleCompilationException.class,
+            () -> ruleCompiler.compile(createDuplicateRule(1L, "WINDOW_SECONDS=60", "amount,recipient")));
+        assertThrows(RuleCompilationException.class,
+            () -> ruleCompiler.compile(createDuplicateRule(1L, "WINDOW_SECONDS=60", null)));
+    }
+
+    private Transaction createTransaction(String transactionId, String amount, String recipientAccount) {
+        return createTransaction(transactionId, amount, recipientAccount, "172.16.0.1");
+    }
+
+    private Transaction createTransaction(String transactionId, String amount, String recipientAccount, String ipAddress) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(transactionId);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setIpAddress(ipAddress);
+
+        TransactionDetails originator = new TransactionDetails();
+        originator.setDetails(Map.of("account", "123456"));
+        TransactionDetails eTransfer = new TransactionDetails();
+        eTransfer.setDetails(Map.of("recipientAccount", recipientAccount));
+        transaction.setOriginatorDetails(originator);
+        transaction.setETransferDetails(eTransfer);
+        return transaction;
+    }
+
+    private FraudRule createDuplicateRule(Long id, String condition, String fields) {
+        FraudRule rule = new FraudRule();
+        rule.setId(id);
+        rule.setRuleName("DUPLICATE_" + id);
+        rule.setRuleType(FraudRule.RuleType.DUPLICATE_TRANSACTION);
+        rule.setRuleCondition(condition);
+        rule.setActionType(FraudRule.ActionType.REJECT);
+        rule.setActionMessage("Possible duplicate transaction");
+        rule.setPriority(id.intValue());
+        rule.setIsActive(true);
+        rule.setStringValue(fields);
+        return rule;
+    }
+
+    private FraudRule createIpRule(Long id, String name, String ipAddress) {
+        FraudRule rule = new FraudRule();
+        rule.setId(id);
+        rule.setRuleName(name);
+        rule.setRuleType(FraudRule.RuleType.IP_BLACKLIST);
+        rule.setRuleCondition("EQUALS");
+        rule.setActionType(FraudRule.ActionType.REJECT);
+        rule.setActionMessage("IP address is blocked");
+        rule.setPriority(id.intValue());
+        rule.setIsActive(true);
+        rule.setStringValue(ipAddress);
+        return rule;
+    }
+}
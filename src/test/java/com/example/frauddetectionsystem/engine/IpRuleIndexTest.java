@@ -0,0 +1,124 @@
+package com.example.frauddetectionsystem.engine;
+
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.domain.Transaction;
+import com.example.frauddetectionsystem.dto.RuleEvaluationResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IpRuleIndexTest {
+
+    private final RuleCompiler ruleCompiler = new RuleCompiler();
+
+    @Test
+    void testParse_AcceptsOnlyCanonicalDottedQuads() {
+        assertEquals(0xC0000001L, IpAddresses.parse("192.0.0.1"));
+        assertEquals(0xFFFFFFFFL, IpAddresses.parse("255.255.255.255"));
+        assertEquals(IpAddresses.INVALID, IpAddresses.parse("192.0.0.01"));
+        assertEquals(IpAddresses.INVALID, IpAddresses.parse("256.0.0.1"));
+        assertEquals(IpAddresses.INVALID, IpAddresses.parse("1.2.3"));
+        assertEquals(IpAddresses.INVALID, IpAddresses.parse("1.2.3.4.5"));
+        assertEquals(IpAddresses.INVALID, IpAddresses.parse("1..3.4"));
+    }
+
+    @Test
+    void testSnapshot_IndexesExactPrefixAndCidrRules() {
+        // Given
+        RuleSnapshot snapshot = ruleCompiler.compile(List.of(
+            createIpRule(1L, "EXACT", "EQUALS", 5, "10.1.2.3"),
+            createIpRule(2L, "PREFIX", "STARTS_WITH", 3, "192.0.0."),
+            createIpRule(3L, "CIDR", "CIDR", 4, "10.1.0.0/16"),
+            createIpRule(4L, "CONTAINS", "CONTAINS", 2, ".99."),
+            createIpRule(5L, "PARTIAL_PREFIX", "STARTS_WITH", 6, "172.16.1")
+        ), 1L);
+
+        // Then
+        assertEquals(3, snapshot.getIpIndexedRuleCount());
+        assertEquals("PREFIX", ruleNameFor(snapshot, "192.0.0.200"));
+        assertEquals("CIDR", ruleNameFor(snapshot, "10.1.2.3"));
+        assertEquals("CIDR", ruleNameFor(snapshot, "10.1.200.3"));
+        assertEquals("CONTAINS", ruleNameFor(snapshot, "10.1.99.3"));
+        assertEquals("PARTIAL_PREFIX", ruleNameFor(snapshot, "172.16.10.1"));
+        assertNull(ruleNameFor(snapshot, "10.2.0.1"));
+    }
+
+    @Test
+    void testSnapshot_ContainsPatternsResolvedInSinglePass() {
+        // Given - overlapping patterns exercise the automaton's failure links
+        RuleSnapshot snapshot = ruleCompiler.compile(List.of(
+            createIpRule(1L, "LONG", "CONTAINS", 5, "10.20.30"),
+            createIpRule(2L, "SUFFIX", "CONTAINS", 2, "0.30"),
+            createIpRule(3L, "OTHER", "CONTAINS", 1, "99.99"),
+            createIpRule(4L, "REGEX", "REGEX", 3, "10\\..*")
+        ), 1L);
+
+        // Then
+        assertEquals(3, snapshot.getContainsIndexedRuleCount());
+        assertEquals("SUFFIX", ruleNameFor(snapshot, "10.20.30.1"));
+        assertEquals("REGEX", ruleNameFor(snapshot, "10.20.31.1"));
+        assertEquals("OTHER", ruleNameFor(snapshot, "10.99.99.1"));
+        assertNull(ruleNameFor(snapshot, "11.20.31.1"));
+    }
+
+    @Test
+    void testSnapshot_MatchesLinearEvaluationOnRandomRules() {
+        Random random = new Random(42);
+        String[] conditions = {"EQUALS", "STARTS_WITH", "CIDR", "CONTAINS"};
+        List<FraudRule> rules = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            String condition = conditions[random.nextInt(conditions.length)];
+            String pattern = switch (condition) {
+                case "EQUALS" -> randomIp(random);
+                case "STARTS_WITH" -> random.nextInt(4) + "." + random.nextInt(4) + ".";
+                case "CIDR" -> randomIp(random) + "/" + (8 + random.nextInt(17));
+                default -> "." + random.nextInt(4) + "." + random.nextInt(4);
+            };
+            rules.add(createIpRule(id, "RULE_" + id, condition, random.nextInt(50), pattern));
+        }
+        RuleSnapshot snapshot = ruleCompiler.compile(rules, 1L);
+
+        for (int i = 0; i < 5000; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setIpAddress(randomIp(random));
+
+            String expected = null;
+            for (CompiledRule rule : snapshot.getRules()) {
+                if (rule.matches(transaction)) {
+                    expected = rule.getRuleName();
+                    break;
+                }
+            }
+            assertEquals(expected, snapshot.evaluate(transaction).getRuleName(), transaction.getIpAddress());
+        }
+    }
+
+    private String ruleNameFor(RuleSnapshot snapshot, String ipAddress) {
+        Transaction transaction = new Transaction();
+        transaction.setIpAddress(ipAddress);
+        RuleEvaluationResult result = snapshot.evaluate(transaction);
+        return result.isTriggered() ? result.getRuleName() : null;
+    }
+
+    private static String randomIp(Random random) {
+        return random.nextInt(4) + "." + random.nextInt(4) + "." + random.nextInt(4) + "." + random.nextInt(256);
+    }
+
+    private FraudRule createIpRule(Long id, String name, String condition, int priority, String pattern) {
+        FraudRule rule = new FraudRule();
+        rule.setId(id);
+        rule.setRuleName(name);
+        rule.setRuleType(FraudRule.RuleType.IP_BLACKLIST);
+        rule.setRuleCondition(condition);
+        rule.setActionType(FraudRule.ActionType.REJECT);
+        rule.setActionMessage("IP address is blocked");
+        rule.setPriority(priority);
+        rule.setIsActive(true);
+        rule.setStringValue(pattern);
+        return rule;
+    }
+}
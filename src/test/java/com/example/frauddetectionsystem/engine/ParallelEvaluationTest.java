@@ -0,0 +1,89 @@
+package com.example.frauddetectionsystem.engine;
+
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.domain.Transaction;
+import com.example.frauddetectionsystem.dto.RuleEvaluationResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelEvaluationTest {
+
+    private final RuleCompiler ruleCompiler = new RuleCompiler();
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void testEvaluateParallel_MatchesSequentialResult() {
+        // Given - mostly residual rules (partial-octet prefixes and regexes) plus some indexed ones
+        Random random = new Random(11);
+        List<FraudRule> rules = new ArrayList<>();
+        for (long id = 1; id <= 20_000; id++) {
+            int priority = random.nextInt(5_000);
+            FraudRule rule = switch (random.nextInt(10)) {
+                case 0 -> createRule(id, FraudRule.RuleType.AMOUNT_THRESHOLD, "GREATER_THAN", priority,
+                    new BigDecimal(random.nextInt(10_000)), null);
+                case 1 -> createRule(id, FraudRule.RuleType.IP_BLACKLIST, "REGEX", priority, null,
+                    random.nextInt(8) + "\\." + random.nextInt(8) + "\\..*");
+                default -> createRule(id, FraudRule.RuleType.IP_BLACKLIST, "STARTS_WITH", priority, null,
+                    random.nextInt(8) + "." + random.nextInt(8) + "." + random.nextInt(8));
+            };
+            rules.add(rule);
+        }
+        RuleSnapshot snapshot = ruleCompiler.compile(rules, 1L);
+        assertTrue(snapshot.getResidualRuleCount() > 15_000);
+
+        // Then
+        for (int i = 0; i < 2_000; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setAmount(new BigDecimal(random.nextInt(12_000)));
+            transaction.setIpAddress(random.nextInt(8) + "." + random.nextInt(8) + "."
+                + random.nextInt(8) + "." + random.nextInt(256));
+
+            RuleEvaluationResult sequential = snapshot.evaluate(transaction);
+            RuleEvaluationResult parallel = snapshot.evaluateParallel(transaction, pool, 64);
+            assertEquals(sequential, parallel, transaction.getIpAddress() + " / " + transaction.getAmount());
+        }
+    }
+
+    @Test
+    void testEvaluateParallel_NoMatchReturnsNotTriggered() {
+        List<FraudRule> rules = new ArrayList<>();
+        for (long id = 1; id <= 1_000; id++) {
+            rules.add(createRule(id, FraudRule.RuleType.IP_BLACKLIST, "REGEX", (int) id, null, "10\\.0\\." + id + "\\..*"));
+        }
+        RuleSnapshot snapshot = ruleCompiler.compile(rules, 1L);
+
+        Transaction transaction = new Transaction();
+        transaction.setIpAddress("172.16.0.1");
+
+        assertFalse(snapshot.evaluateParallel(transaction, pool, 16).isTriggered());
+    }
+
+    private FraudRule createRule(Long id, FraudRule.RuleType type, String condition, int priority,
+                                 BigDecimal threshold, String stringValue) {
+        FraudRule rule = new FraudRule();
+        rule.setId(id);
+        rule.setRuleName("RULE_" + id);
+        rule.setRuleType(type);
+        rule.setRuleCondition(condition);
+        rule.setActionType(FraudRule.ActionType.HOLD);
+        rule.setActionMessage("Requires manual review");
+        rule.setPriority(priority);
+        rule.setIsActive(true);
+        rule.setThresholdValue(threshold);
+        rule.setStringValue(stringValue);
+        return rule;
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.frauddetectionsystem.engine;
+
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.domain.Transaction;
+import com.example.frauddetectionsystem.dto.RuleEvaluationResult;
+import com.example.frauddetectionsystem.exception.RuleCompilationException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleCompilerTest {
+
+    private final RuleCompiler ruleCompiler = new RuleCompiler();
+
+    @Test
+    void testCompile_RejectsUnknownAmountCondition() {
+        FraudRule rule = createTestRule(1L, "BAD_AMOUNT", FraudRule.RuleType.AMOUNT_THRESHOLD,
+            "BETWEEN", 1, new BigDecimal("100"), null);
+
+        RuleCompilationException e = assertThrows(RuleCompilationException.class, () -> ruleCompiler.compile(rule));
+        assertEquals("BAD_AMOUNT", e.getRuleName());
+    }
+
+    @Test
+    void testCompile_RejectsMissingThreshold() {
+        FraudRule rule = createTestRule(1L, "NO_THRESHOLD", FraudRule.RuleType.AMOUNT_THRESHOLD,
+            "GREATER_THAN", 1, null, null);
+
+        assertThrows(RuleCompilationException.class, () -> ruleCompiler.compile(rule));
+    }
+
+    @Test
+    void testCompile_RejectsInvalidRegex() {
+        FraudRule rule = createTestRule(1L, "BAD_REGEX", FraudRule.RuleType.IP_BLACKLIST,
+            "REGEX", 1, null, "10\\.(");
+
+        assertThrows(RuleCompilationException.class, () -> ruleCompiler.compile(rule));
+    }
+
+    @Test
+    void testCompileSnapshot_SkipsInvalidRulesAndOrdersByPriority() {
+        // Given
+        List<FraudRule> rules = List.of(
+            createTestRule(3L, "IP_BLOCK", FraudRule.RuleType.IP_BLACKLIST, "STARTS_WITH", 3, null, "192.0.0."),
+            createTestRule(1L, "BROKEN", FraudRule.RuleType.IP_BLACKLIST, "UNKNOWN", 1, null, "10."),
+            createTestRule(2L, "AMOUNT_HOLD", FraudRule.RuleType.AMOUNT_THRESHOLD,
+                "GREATER_THAN_OR_EQUAL", 2, new BigDecimal("1000"), null)
+        );
+
+        // When
+        RuleSnapshot snapshot = ruleCompiler.compile(rules, 7L);
+
+        // Then
+        assertEquals(7L, snapshot.getVersion());
+        assertEquals(2, snapshot.size());
+        assertEquals("AMOUNT_HOLD", snapshot.getRules().get(0).getRuleName());
+        assertEquals("IP_BLOCK", snapshot.getRules().get(1).getRuleName());
+    }
+
+    @Test
+    void testSnapshotEvaluate_FirstMatchingRuleWins() {
+        // Given
+        RuleSnapshot snapshot = ruleCompiler.compile(List.of(
+            createTestRule(1L, "AMOUNT_REJECT", FraudRule.RuleType.AMOUNT_THRESHOLD,
+                "GREATER_THAN", 1, new BigDecimal("2000"), null),
+            createTestRule(2L, "IP_REGEX", FraudRule.RuleType.IP_BLACKLIST,
+                "REGEX", 2, null, "10\\.0\\.0\\.[0-9]+")
+        ), 1L);
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal("2500"));
+        transaction.setIpAddress("10.0.0.5");
+
+        // When
+        RuleEvaluationResult result = snapshot.evaluate(transaction);
+
+        // Then
+        assertTrue(result.isTriggered());
+        assertEquals("AMOUNT_REJECT", result.getRuleName());
+
+        transaction.setAmount(new BigDecimal("50"));
+        assertEquals("IP_REGEX", snapshot.evaluate(transaction).getRuleName());
+
+        transaction.setIpAddress("10.0.1.5");
+        assertFalse(snapshot.evaluate(transaction).isTriggered());
+    }
+
+    @Test
+    void testApplyChange_UpdatesSingleRuleWithoutTouchingBase() {
+        // Given
+        FraudRule amountReject = createTestRule(1L, "AMOUNT_REJECT", FraudRule.RuleType.AMOUNT_THRESHOLD,
+            "GREATER_THAN", 1, new BigDecimal("2000"), null);
+        FraudRule ipBlock = createTestRule(2L, "IP_BLOCK", FraudRule.RuleType.IP_BLACKLIST,
+            "STARTS_WITH", 2, null, "10.0.");
+        FraudRule amountHold = createTestRule(3L, "AMOUNT_HOLD", FraudRule.RuleType.AMOUNT_THRESHOLD,
+            "GREATER_THAN_OR_EQUAL", 3, new BigDecimal("1000"), null);
+        RuleSnapshot base = ruleCompiler.compile(List.of(amountReject, ipBlock, amountHold), 1L);
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal("2500"));
+        transaction.setIpAddress("10.0.0.5");
+
+        // When - toggle off, then raise a priority, then delete
+        amountReject.setIsActive(false);
+        RuleSnapshot toggled = ruleCompiler.applyChange(base, 1L, amountReject, 2L);
+        amountHold.setPriority(0);
+        RuleSnapshot reprioritized = ruleCompiler.applyChange(toggled, 3L, amountHold, 3L);
+        RuleSnapshot deleted = ruleCompiler.applyChange(reprioritized, 2L, null, 4L);
+
+        // Then
+        assertEquals("AMOUNT_REJECT", base.evaluate(transaction).getRuleName());
+        assertEquals(3, base.size());
+
+        assertEquals(2L, toggled.getVersion());
+        assertEquals("IP_BLOCK", toggled.evaluate(transaction).getRuleName());
+
+        assertEquals("AMOUNT_HOLD", reprioritized.getRules().get(0).getRuleName());
+        assertEquals("AMOUNT_HOLD", reprioritized.evaluate(transaction).getRuleName());
+
+        assertEquals(1, deleted.size());
+        transaction.setAmount(new BigDecimal("50"));
+        assertFalse(deleted.evaluate(transaction).isTriggered());
+        assertEquals("IP_BLOCK", reprioritized.evaluate(transaction).getRuleName());
+    }
+
+    @Test
+    void testApplyChange_MatchesFullCompile() {
+        // Given
+        FraudRule ipBlock = createTestRule(1L, "IP_BLOCK", FraudRule.RuleType.IP_BLACKLIST,
+            "STARTS_WITH", 5, null, "172.16.");
+        FraudRule ipContains = createTestRule(2L, "IP_CONTAINS", FraudRule.RuleType.IP_BLACKLIST,
+            "CONTAINS", 4, null, ".66.");
+        FraudRule amountReject = createTestRule(3L, "AMOUNT_REJECT", FraudRule.RuleType.AMOUNT_THRESHOLD,
+            "GREATER_THAN", 3, new BigDecimal("900"), null);
+        RuleSnapshot base = ruleCompiler.compile(List.of(ipBlock, amountReject), 1L);
+
+        // When - a rule is added to a partition the base did not have
+        RuleSnapshot incremental = ruleCompiler.applyChange(base, 2L, ipContains, 2L);
+        RuleSnapshot full = ruleCompiler.compile(List.of(ipBlock, ipContains, amountReject), 2L);
+
+        // Then
+        assertEquals(full.getRules().stream().map(CompiledRule::getRuleName).toList(),
+            incremental.getRules().stream().map(CompiledRule::getRuleName).toList());
+        for (String ip : List.of("172.16.0.1", "10.66.0.1", "172.16.66.1", "8.8.8.8")) {
+            for (String amount : List.of("100", "1000")) {
+                Transaction transaction = new Transaction();
+                transaction.setIpAddress(ip);
+                transaction.setAmount(new BigDecimal(amount));
+                assertEquals(full.evaluate(transaction).getRuleName(), incremental.evaluate(transaction).getRuleName(),
+                    ip + " / " + amount);
+            }
+        }
+    }
+
+    @Test
+    void testCompile_DetachedFromEntity() {
+        // Given
+        FraudRule rule = createTestRule(1L, "AMOUNT_REJECT", FraudRule.RuleType.AMOUNT_THRESHOLD,
+            "GREATER_THAN", 1, new BigDecimal("2000"), null);
+        rule.setCreatedAt(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000));
+        RuleSnapshot snapshot = ruleCompiler.compile(List.of(rule), 1L);
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal("2500"));
+
+        // When - the entity is changed after compilation
+        rule.setActionType(FraudRule.ActionType.HOLD);
+        rule.setActionMessage("changed");
+        rule.setPriority(99);
+
+        // Then
+        RuleEvaluationResult result = snapshot.evaluate(transaction);
+        assertEquals(FraudRule.ActionType.REJECT, result.getActionType());
+        assertEquals("Transaction rejected", result.getMessage());
+        assertEquals(1, result.getPriority());
+
+        FraudRule copy = snapshot.getRules().get(0).getDefinition().toEntity();
+        assertNotSame(rule, copy);
+        assertEquals(1L, copy.getId());
+        assertEquals(new BigDecimal("2000"), copy.getThresholdValue());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000), copy.getCreatedAt());
+        assertNull(copy.getUpdatedAt());
+    }
+
+    @Test
+    void testCompile_InternsSharedStrings() {
+        // Given - equal but distinct strings, as read from separate rows
+        FraudRule first = createTestRule(1L, "IP_A", FraudRule.RuleType.IP_BLACKLIST,
+            new String("STARTS_WITH"), 1, null, "10.");
+        FraudRule second = createTestRule(2L, "IP_B", FraudRule.RuleType.IP_BLACKLIST,
+            new String("STARTS_WITH"), 2, null, "11.");
+        second.setActionMessage(new String(first.getActionMessage()));
+
+        // When
+        RuleDefinition a = ruleCompiler.compile(first).getDefinition();
+        RuleDefinition b = ruleCompiler.compile(second).getDefinition();
+
+        // Then
+        assertSame(a.getRuleCondition(), b.getRuleCondition());
+        assertSame(a.getActionMessage(), b.getActionMessage());
+    }
+
+    @Test
+    void testLiteralPrefix() {
+        assertEquals("10.0.", RuleCompiler.literalPrefix("10\\.0\\.[0-9]+\\.[0-9]+"));
+        assertEquals("192.168", RuleCompiler.literalPrefix("192\\.168(\\.\\d+){2}"));
+        // A literal followed by a quantifier is optional or repeated
+        assertEquals("10", RuleCompiler.literalPrefix("10\\.?0"));
+        assertEquals("", RuleCompiler.literalPrefix("^10\\..*"));
+        assertEquals("", RuleCompiler.literalPrefix("10\\..*|11\\..*"));
+        assertEquals("", RuleCompiler.literalPrefix("\\d+\\.0\\.0\\.1"));
+    }
+
+    @Test
+    void testSnapshotEvaluate_AllocationFree() {
+        // Given - every stateless condition, with a regex whose literal prefix never matches
+        RuleSnapshot snapshot = ruleCompiler.compile(List.of(
+            createTestRule(1L, "AMOUNT_REJECT", FraudRule.RuleType.AMOUNT_THRESHOLD,
+                "GREATER_THAN", 1, new BigDecimal("2000"), null),
+            createTestRule(2L, "IP_PREFIX", FraudRule.RuleType.IP_BLACKLIST, "STARTS_WITH", 2, null, "192.0.0."),
+            createTestRule(3L, "IP_CIDR", FraudRule.RuleType.IP_BLACKLIST, "CIDR", 3, null, "172.16.0.0/12"),
+            createTestRule(4L, "IP_CONTAINS", FraudRule.RuleType.IP_BLACKLIST, "CONTAINS", 4, null, ".66."),
+            createTestRule(5L, "IP_REGEX", FraudRule.RuleType.IP_BLACKLIST,
+                "REGEX", 5, null, "10\\.0\\.0\\.[0-9]+")
+        ), 1L);
+        Transaction hit = new Transaction();
+        hit.setAmount(new BigDecimal("2500.00"));
+        hit.setIpAddress("172.20.1.1");
+        Transaction miss = new Transaction();
+        miss.setAmount(new BigDecimal("50.00"));
+        miss.setIpAddress("8.8.8.8");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < 20_000; i++) {
+            snapshot.evaluate(hit);
+            snapshot.evaluate(miss);
+        }
+
+        // When
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(snapshot.evaluate(hit).isTriggered());
+            assertFalse(snapshot.evaluate(miss).isTriggered());
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        // Then - a single allocation per evaluation would be over 300 KB
+        assertTrue(allocated < 16 * 1024, "allocated " + allocated + " bytes");
+        assertSame(snapshot.evaluate(hit), snapshot.evaluate(hit));
+    }
+
+    private FraudRule createTestRule(Long id, String name, FraudRule.RuleType type, String condition,
+                                     int priority, BigDecimal threshold, String stringValue) {
+        FraudRule rule = new FraudRule();
+        rule.setId(id);
+        rule.setRuleName(name);
+        rule.setRuleType(type);
+        rule.setRuleCondition(condition);
+        rule.setActionType(FraudRule.ActionType.REJECT);
+        rule.setActionMessage("Transaction rejected");
+        rule.setPriority(priority);
+        rule.setIsActive(true);
+        rule.setThresholdValue(threshold);
+        rule.setStringValue(stringValue);
+        return rule;
+    }
+}
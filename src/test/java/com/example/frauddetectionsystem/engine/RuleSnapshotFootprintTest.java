@@ -0,0 +1,83 @@
+package com.example.frauddetectionsystem.engine;
+
+import com.example.frauddetectionsystem.domain.FraudRule;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleSnapshotFootprintTest {
+
+    private static final int RULE_COUNT = 40_000;
+
+    @Test
+    void testCompiledSnapshot_RetainedHeapPerRule() {
+        // Given - half amount thresholds, half STARTS_WITH IP rules, kept alive throughout
+        List<FraudRule> rules = new ArrayList<>(RULE_COUNT);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < RULE_COUNT; i++) {
+            FraudRule rule = i % 2 == 0
+                ? createRule(i, FraudRule.RuleType.AMOUNT_THRESHOLD, "GREATER_THAN", BigDecimal.valueOf(1_000 + i), null)
+                : createRule(i, FraudRule.RuleType.IP_BLACKLIST, "STARTS_WITH", null,
+                    "10." + (i >> 8 & 0xff) + "." + (i & 0xff) + ".");
+            rule.setCreatedAt(now);
+            rule.setUpdatedAt(now);
+            rules.add(rule);
+        }
+        RuleCompiler ruleCompiler = new RuleCompiler();
+        ruleCompiler.compile(rules.subList(0, 100), 0L);
+        long before = usedHeapAfterGc();
+
+        // When
+        RuleSnapshot snapshot = ruleCompiler.compile(rules, 1L);
+        long retained = usedHeapAfterGc() - before;
+
+        // Then - everything the snapshot holds beyond the entities it was compiled from;
+        // about 226 bytes per rule on JDK 17 with G1 and compressed oops
+        long perRule = retained / RULE_COUNT;
+        assertEquals(RULE_COUNT, snapshot.size());
+        assertTrue(perRule > 0 && perRule < 320, "retained " + perRule + " bytes per rule");
+        Reference.reachabilityFence(rules);
+        Reference.reachabilityFence(snapshot);
+    }
+
+    /**
+     * Used heap once a full collection no longer frees anything.
+     */
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long now = memory.getHeapMemoryUsage().getUsed();
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+
+    private static FraudRule createRule(long id, FraudRule.RuleType type, String condition,
+                                        BigDecimal threshold, String stringValue) {
+        FraudRule rule = new FraudRule();
+        rule.setId(id + 1);
+        rule.setRuleName(type.name() + "_" + id);
+        rule.setRuleType(type);
+        rule.setRuleCondition(condition);
+        rule.setActionType(FraudRule.ActionType.REJECT);
+        rule.setActionMessage("Transaction rejected");
+        rule.setPriority((int) id + 1);
+        rule.setIsActive(true);
+        rule.setThresholdValue(threshold);
+        rule.setStringValue(stringValue);
+        return rule;
+    }
+}
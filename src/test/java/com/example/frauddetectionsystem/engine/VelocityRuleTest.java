@@ -0,0 +1,158 @@
+package com.example.frauddetectionsystem.engine;
+
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.domain.Transaction;
+import com.example.frauddetectionsystem.domain.TransactionDetails;
+import com.example.frauddetectionsystem.exception.RuleCompilationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VelocityRuleTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final RuleStateRegistry stateRegistry = new RuleStateRegistry(clock);
+    private final RuleCompiler ruleCompiler = new RuleCompiler(stateRegistry);
+
+    @Test
+    void testCountGreaterThan_TriggersAboveLimitPerIp() {
+        // Given - more than 3 transactions from one IP in 10 minutes
+        RuleSnapshot snapshot = ruleCompiler.compile(List.of(
+            createVelocityRule(1L, "COUNT_GREATER_THAN;WINDOW_SECONDS=600", "3", "ipAddress")), 1L);
+
+        // When
+        List<Boolean> triggered = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            triggered.add(snapshot.evaluate(createTransaction("10.0.0.1", "10", "acc-1")).isTriggered());
+            clock.advanceSeconds(60);
+        }
+        boolean otherIp = snapshot.evaluate(createTransaction("10.0.0.2", "10", "acc-1")).isTriggered();
+
+        // Then
+        assertEquals(List.of(false, false, false, true, true), triggered);
+        assertFalse(otherIp);
+    }
+
+    @Test
+    void testCountGreaterThan_SlidesOutOldTransactions() {
+        RuleSnapshot snapshot = ruleCompiler.compile(List.of(
+            createVelocityRule(1L, "COUNT_GREATER_THAN;WINDOW_SECONDS=600", "1", "ipAddress")), 1L);
+
+        assertFalse(snapshot.evaluate(createTransaction("10.0.0.1", "10", "acc-1")).isTriggered());
+        clock.advanceSeconds(300);
+        assertTrue(snapshot.evaluate(createTransaction("10.0.0.1", "10", "acc-1")).isTriggered());
+
+        // First transaction has left the window, second is still in it
+        clock.advanceSeconds(360);
+        assertTrue(snapshot.evaluate(createTransaction("10.0.0.1", "10", "acc-1")).isTriggered());
+        clock.advanceSeconds(1200);
+        assertFalse(snapshot.evaluate(createTransaction("10.0.0.1", "10", "acc-1")).isTriggered());
+    }
+
+    @Test
+    void testAmountGreaterThan_SumsPerOriginator() {
+        // Given - more than $5,000 from one originator account in 10 minutes
+        RuleSnapshot snapshot = ruleCompiler.compile(List.of(
+            createVelocityRule(1L, "AMOUNT_GREATER_THAN;WINDOW_SECONDS=600", "5000", "originatorDetails.account")), 1L);
+
+        // Then
+        assertFalse(snapshot.evaluate(createTransaction("10.0.0.1", "2500", "acc-1")).isTriggered());
+        assertFalse(snapshot.evaluate(createTransaction("10.0.0.2", "2500.00", "acc-1")).isTriggered());
+        assertFalse(snapshot.evaluate(createTransaction("10.0.0.3", "4999.99", "acc-2")).isTriggered());
+        assertTrue(snapshot.evaluate(createTransaction("10.0.0.4", "0.01", "acc-1")).isTriggered());
+    }
+
+    @Test
+    void testCounters_ExactUnderConcurrentUpdates() throws Exception {
+        // Given
+        RuleSnapshot snapshot = ruleCompiler.compile(List.of(
+            createVelocityRule(1L, "COUNT_GREATER_THAN;WINDOW_SECONDS=600", "40000", "ipAddress")), 1L);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger triggered = new AtomicInteger();
+
+        // When - 40,000 updates to one hot key plus noise on other keys
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    if (snapshot.evaluate(createTransaction("10.0.0.1", "1", "acc")).isTriggered()) {
+                        triggered.incrementAndGet();
+                    }
+                    snapshot.evaluate(createTransaction("10.1." + thread + "." + (i % 200), "1", "acc"));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then - no update was double counted, and none was lost
+        assertEquals(0, triggered.get());
+        assertTrue(snapshot.evaluate(createTransaction("10.0.0.1", "1", "acc")).isTriggered());
+    }
+
+    @Test
+    void testCompile_RejectsInvalidVelocityRules() {
+        assertThrows(RuleCompilationException.class, () -> ruleCompiler.compile(
+            createVelocityRule(1L, "WINDOW_SECONDS=600", "3", "ipAddress")));
+        assertThrows(RuleCompilationException.class, () -> ruleCompiler.compile(
+            createVelocityRule(1L, "COUNT_GREATER_THAN", "3", "ipAddress")));
+        assertThrows(RuleCompilationException.class, () -> ruleCompiler.compile(
+            createVelocityRule(1L, "COUNT_GREATER_THAN;WINDOW_SECONDS=600", "2.5", "ipAddress")));
+        assertThrows(RuleCompilationException.class, () -> ruleCompiler.compile(
+            createVelocityRule(1L, "COUNT_GREATER_THAN;WINDOW_SECONDS=600", "3", "deviceId")));
+    }
+
+    @Test
+    void testValidate_LeavesStateRegistryUntouched() {
+        // Given - an unsaved rule, as validated before it is stored
+        FraudRule rule = createVelocityRule(1L, "COUNT_GREATER_THAN;WINDOW_SECONDS=600", "3", "ipAddress");
+        rule.setId(null);
+
+        // When
+        ruleCompiler.validate(rule);
+
+        // Then
+        assertEquals(0, stateRegistry.size());
+        assertThrows(RuleCompilationException.class, () -> ruleCompiler.validate(
+            createVelocityRule(2L, "COUNT_GREATER_THAN", "3", "ipAddress")));
+    }
+
+    private Transaction createTransaction(String ipAddress, String amount, String account) {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setIpAddress(ipAddress);
+        TransactionDetails originator = new TransactionDetails();
+        originator.setDetails(Map.of("account", account));
+        transaction.setOriginatorDetails(originator);
+        return transaction;
+    }
+
+    private FraudRule createVelocityRule(Long id, String condition, String threshold, String keyField) {
+        FraudRule rule = new FraudRule();
+        rule.setId(id);
+        rule.setRuleName("VELOCITY_" + id);
+        rule.setRuleType(FraudRule.RuleType.VELOCITY);
+        rule.setRuleCondition(condition);
+        rule.setActionType(FraudRule.ActionType.HOLD);
+        rule.setActionMessage("Unusual transaction velocity");
+        rule.setPriority(id.intValue());
+        rule.setIsActive(true);
+        rule.setThresholdValue(new BigDecimal(threshold));
+        rule.setStringValue(keyField);
+        return rule;
+    }
+}
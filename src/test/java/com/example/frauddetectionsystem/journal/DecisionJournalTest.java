@@ -0,0 +1,273 @@
+package com.example.frauddetectionsystem.journal;
+
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.domain.Transaction;
+import com.example.frauddetectionsystem.dto.RuleEvaluationResult;
+import com.example.frauddetectionsystem.dto.TransactionStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecisionJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testAppendAndScan_RoundTripsDecision() throws IOException {
+        // Given
+        DecisionJournal journal = openJournal(DataSize.ofMegabytes(1));
+        Transaction approved = createTransaction("tx-1", "125.50", "192.168.1.1",
+            TransactionStatus.APPROVED, "All checks passed");
+        Transaction held = createTransaction("tx-2", "0.123456", null,
+            TransactionStatus.HOLD, "Prüfung erforderlich 🔎");
+
+        // When
+        journal.append(approved, new RuleEvaluationResult(true, FraudRule.ActionType.APPROVE,
+            "All checks passed", "DEFAULT_APPROVE", 0, 7L), 42_000);
+        journal.append(held, new RuleEvaluationResult(true, FraudRule.ActionType.FLAG_FOR_REVIEW,
+            held.getStatusReason(), "PRECISE_AMOUNT", 3, 8L), 1_500);
+        journal.close();
+
+        // Then
+        List<DecisionRecord> records = new DecisionJournalReader(directory).readAll();
+        assertEquals(2, records.size());
+        DecisionRecord first = records.get(0);
+        assertEquals("tx-1", first.transactionId());
+        assertEquals(new BigDecimal("125.5000"), first.amount());
+        assertEquals("192.168.1.1", first.ipAddress());
+        assertEquals(TransactionStatus.APPROVED, first.status());
+        assertEquals(FraudRule.ActionType.APPROVE, first.actionType());
+        assertEquals("DEFAULT_APPROVE", first.ruleName());
+        assertEquals(7L, first.ruleSetVersion());
+        assertEquals(42_000, first.latencyNanos());
+        assertNotNull(first.decidedAt());
+
+        DecisionRecord second = records.get(1);
+        assertEquals(new BigDecimal("0.123456"), second.amount());
+        assertNull(second.ipAddress());
+        assertEquals("Prüfung erforderlich 🔎", second.reason());
+        assertEquals(FraudRule.ActionType.FLAG_FOR_REVIEW, second.actionType());
+        assertEquals(8L, second.ruleSetVersion());
+    }
+
+    @Test
+    void testConcurrentAppends_RollSegmentsWithoutLosingRecords() throws Exception {
+        // Given - enough records from several threads to fill a few 1MB segments
+        DecisionJournal journal = openJournal(DataSize.ofMegabytes(1));
+        int threads = 4;
+        int perThread = 8_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        Transaction transaction = createTransaction("tx-" + thread + "-" + i, "10.00", "10.0.0.1",
+                            TransactionStatus.REJECTED, "IP address is blocked");
+                        journal.append(transaction, new RuleEvaluationResult(true, FraudRule.ActionType.REJECT,
+                            "IP address is blocked", "IP_BLOCK", 1, 1L), i);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        journal.close();
+
+        // Then
+        Set<String> ids = new HashSet<>();
+        DecisionJournalReader.ScanResult result = new DecisionJournalReader(directory)
+            .scan(record -> assertTrue(ids.add(record.transactionId()), record.transactionId()));
+        assertEquals(threads * perThread, result.records());
+        assertEquals(threads * perThread, ids.size());
+        assertEquals(0, result.corrupt());
+        assertTrue(result.segments() > 1, "segments: " + result.segments());
+    }
+
+    @Test
+    void testScan_SkipsCorruptRecord() throws IOException {
+        // Given
+        DecisionJournal journal = openJournal(DataSize.ofMegabytes(1));
+        for (int i = 0; i < 3; i++) {
+            journal.append(createTransaction("tx-" + i, "10.00", "10.0.0.1", TransactionStatus.APPROVED, "ok"),
+                new RuleEvaluationResult(true, FraudRule.ActionType.APPROVE, "ok", "DEFAULT_APPROVE", 0, 1L), 0);
+        }
+        journal.close();
+
+        // When - a byte in the body of the second record flips
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        int recordLength = recordLength(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int position = JournalFormat.SEGMENT_HEADER_SIZE + recordLength + JournalFormat.RECORD_HEADER_SIZE + 3;
+            buffer.put(position, (byte) (buffer.get(position) ^ 0x40));
+        }
+
+        // Then
+        List<String> ids = new ArrayList<>();
+        DecisionJournalReader.ScanResult result = new DecisionJournalReader(directory)
+            .scan(record -> ids.add(record.transactionId()));
+        assertEquals(List.of("tx-0", "tx-2"), ids);
+        assertEquals(1, result.corrupt());
+    }
+
+    @Test
+    void testScan_FindsRecordsBehindUnwrittenClaims() throws IOException {
+        // Given - two claims whose writers never finished: one untouched, one with its
+        // body copied but not its header
+        JournalSegment segment = JournalSegment.create(directory, 0, (int) DataSize.ofMegabytes(1).toBytes());
+        RecordEncoder encoder = new RecordEncoder();
+        appendRecord(segment, encoder, "tx-1");
+        segment.reserve(encode(encoder, "tx-lost"));
+        appendRecord(segment, encoder, "tx-2");
+        int halfWritten = appendRecord(segment, encoder, "tx-half");
+        appendRecord(segment, encoder, "tx-3");
+        segment.force();
+        try (FileChannel channel = FileChannel.open(segment.path(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            buffer.putLong(halfWritten, 0L);
+        }
+
+        // When
+        List<String> ids = new ArrayList<>();
+        DecisionJournalReader.ScanResult result = new DecisionJournalReader(directory)
+            .scan(record -> ids.add(record.transactionId()));
+
+        // Then
+        assertEquals(List.of("tx-1", "tx-2", "tx-3"), ids);
+        assertEquals(2, result.unwritten());
+        assertEquals(0, result.corrupt());
+    }
+
+    @Test
+    void testReopen_StartsNewSegment() throws IOException {
+        // Given
+        DecisionJournal first = openJournal(DataSize.ofMegabytes(1));
+        first.append(createTransaction("tx-1", "1.00", null, TransactionStatus.APPROVED, "ok"),
+            new RuleEvaluationResult(true, FraudRule.ActionType.APPROVE, "ok", "DEFAULT_APPROVE", 0, 1L), 0);
+        first.close();
+
+        // When
+        DecisionJournal second = openJournal(DataSize.ofMegabytes(1));
+        second.append(createTransaction("tx-2", "1.00", null, TransactionStatus.APPROVED, "ok"),
+            new RuleEvaluationResult(true, FraudRule.ActionType.APPROVE, "ok", "DEFAULT_APPROVE", 0, 2L), 0);
+        second.close();
+
+        // Then
+        List<DecisionRecord> records = new DecisionJournalReader(directory).readAll();
+        assertEquals(List.of("tx-1", "tx-2"), records.stream().map(DecisionRecord::transactionId).toList());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void testAppend_DisabledDoesNothing() {
+        DecisionJournal journal = new DecisionJournal(new FraudDetectionProperties());
+        journal.open();
+
+        assertFalse(journal.isEnabled());
+        journal.append(createTransaction("tx-1", "1.00", null, TransactionStatus.APPROVED, "ok"),
+            RuleEvaluationResult.notTriggered(), 0);
+    }
+
+    @Test
+    void testAppend_FailureDisablesJournalInsteadOfThrowing() throws IOException {
+        // Given
+        DecisionJournal journal = openJournal(DataSize.ofMegabytes(1));
+        Transaction broken = new Transaction() {
+            @Override
+            public String getIpAddress() {
+                throw new IllegalStateException("detached entity");
+            }
+        };
+        broken.setTransactionId("tx-broken");
+
+        // When
+        journal.append(broken, RuleEvaluationResult.notTriggered(), 0);
+        journal.append(createTransaction("tx-2", "1.00", null, TransactionStatus.APPROVED, "ok"),
+            RuleEvaluationResult.notTriggered(), 0);
+        journal.close();
+
+        // Then - nothing written after the failure
+        assertFalse(journal.isEnabled());
+        assertTrue(new DecisionJournalReader(directory).readAll().isEmpty());
+    }
+
+    private DecisionJournal openJournal(DataSize segmentSize) {
+        FraudDetectionProperties properties = new FraudDetectionProperties();
+        properties.getJournal().setEnabled(true);
+        properties.getJournal().setDirectory(directory);
+        properties.getJournal().setSegmentSize(segmentSize);
+        DecisionJournal journal = new DecisionJournal(properties);
+        journal.open();
+        return journal;
+    }
+
+    private static int appendRecord(JournalSegment segment, RecordEncoder encoder, String transactionId) {
+        int length = encode(encoder, transactionId);
+        int offset = (int) segment.reserve(length);
+        segment.write(offset, encoder.buffer(), length, encoder.checksum());
+        return offset;
+    }
+
+    private static int encode(RecordEncoder encoder, String transactionId) {
+        return encoder.encode(System.currentTimeMillis(), 0, 1L, 1_000_000, TransactionStatus.APPROVED,
+            FraudRule.ActionType.APPROVE, transactionId, "10.0.0.1", "DEFAULT_APPROVE", "ok", null);
+    }
+
+    private static int recordLength(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, JournalFormat.SEGMENT_HEADER_SIZE + 4)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            return buffer.getInt(JournalFormat.SEGMENT_HEADER_SIZE);
+        }
+    }
+
+    private static Transaction createTransaction(String transactionId, String amount, String ipAddress,
+                                                 TransactionStatus status, String reason) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(transactionId);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setIpAddress(ipAddress);
+        transaction.setStatus(status);
+        transaction.setStatusReason(reason);
+        return transaction;
+    }
+}
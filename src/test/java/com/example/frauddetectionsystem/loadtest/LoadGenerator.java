@@ -0,0 +1,225 @@
+package com.example.frauddetectionsystem.loadtest;
+
+import com.example.frauddetectionsystem.FraudDetectionSystemApplication;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator for {@code POST /v1/fraud-check}. Starts the application on a
+ * random port (or targets {@code --url}), then runs one step per arrival rate: requests
+ * arrive as a Poisson process at that rate regardless of how fast responses come back, with
+ * bodies drawn from a {@link TransactionMix}.
+ * <p>
+ * Latency is measured from each request's <em>scheduled</em> send time, not from when it
+ * was actually sent, so time a request spends waiting because the server (or the client)
+ * is falling behind is counted - the coordinated omission correction. Service time from the
+ * actual send is recorded alongside for comparison. Steps stop at the first rate whose
+ * latency at the SLO percentile exceeds the SLO.
+ * <p>
+ * Options ({@code name=value}, optionally prefixed with {@code --}): {@code rates} (requests/s, comma separated, default
+ * {@code 100,250,500,1000,2000,4000}), {@code step} and {@code warmup} (ISO durations,
+ * default {@code PT20S} and {@code PT10S}), {@code slo} (default {@code PT0.05S}),
+ * {@code slo-percentile} (default {@code 99}), {@code mix} (unique, duplicate, high amount
+ * and blocklisted weights, default {@code 70,10,10,10}), {@code path} (default
+ * {@code /v1/fraud-check}), {@code url}, {@code seed}. Run with
+ * {@code mvn -Ploadtest -DskipTests verify -Dloadtest.args="rates=500,1000"}.
+ */
+public final class LoadGenerator {
+
+    private final URI target;
+    private final Options options;
+    private final HttpClient client;
+    private final TransactionMix mix;
+    private final Random arrivals;
+
+    private LoadGenerator(URI target, Options options) {
+        this.target = target;
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+            .build();
+        this.mix = new TransactionMix(options.mix(), options.seed());
+        this.arrivals = new Random(options.seed() + 1);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.url();
+        if (baseUrl == null) {
+            context = startApplication();
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port;
+        }
+        try {
+            LoadGenerator generator = new LoadGenerator(URI.create(baseUrl + options.path()), options);
+            generator.run();
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext startApplication() {
+        // Passed as arguments, which take precedence over application.properties
+        return new SpringApplicationBuilder(FraudDetectionSystemApplication.class).run(
+            "--server.port=0",
+            "--spring.jpa.show-sql=false",
+            "--spring.h2.console.enabled=false",
+            "--logging.level.com.example.frauddetectionsystem=WARN",
+            "--logging.level.org.springframework.cache=WARN",
+            "--logging.level.com.github.benmanes.caffeine=WARN");
+    }
+
+    private void run() {
+        System.out.printf(Locale.ROOT, "Target %s, mix %s, SLO p%s <= %d ms%n", target,
+            Arrays.toString(options.mix()), format(options.sloPercentile()), options.slo().toMillis());
+        if (!options.warmup().isZero()) {
+            System.out.printf(Locale.ROOT, "Warming up at %d req/s for %ds%n",
+                options.rates()[0], options.warmup().toSeconds());
+            runStep(options.rates()[0], options.warmup());
+        }
+
+        System.out.printf(Locale.ROOT, "%n%10s %10s %9s %9s %9s %9s %12s %7s  %s%n",
+            "rate/s", "achieved/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99 ms", "errors", "SLO");
+        int lastPassing = -1;
+        StepResult breaking = null;
+        for (int rate : options.rates()) {
+            StepResult result = runStep(rate, options.step());
+            boolean met = result.meetsSlo(options);
+            System.out.printf(Locale.ROOT, "%10d %10.0f %9.2f %9.2f %9.2f %9.2f %12.2f %7d  %s%n",
+                rate, result.achievedRate(),
+                millis(result.latency(), 50), millis(result.latency(), 99), millis(result.latency(), 99.9),
+                result.latency().getMaxValue() / 1000.0, millis(result.serviceTime(), 99), result.errors(),
+                met ? "met" : "BROKEN");
+            if (!met) {
+                breaking = result;
+                break;
+            }
+            lastPassing = rate;
+        }
+
+        System.out.println();
+        if (breaking == null) {
+            System.out.printf(Locale.ROOT, "SLO held at every rate up to %d req/s%n", lastPassing);
+        } else if (lastPassing < 0) {
+            System.out.printf(Locale.ROOT, "SLO broken already at %d req/s%n", breaking.rate());
+        } else {
+            System.out.printf(Locale.ROOT, "SLO held up to %d req/s and broke at %d req/s (achieved %.0f req/s)%n",
+                lastPassing, breaking.rate(), breaking.achievedRate());
+        }
+    }
+
+    private StepResult runStep(int rate, Duration duration) {
+        Recorder latency = new Recorder(3);
+        Recorder serviceTime = new Recorder(3);
+        AtomicLong errors = new AtomicLong();
+        AtomicLong lastResponse = new AtomicLong();
+        List<CompletableFuture<?>> inFlight = new ArrayList<>();
+
+        double meanIntervalNanos = 1e9 / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long scheduled = start;
+        while (scheduled < end) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long intended = scheduled;
+            HttpRequest request = HttpRequest.newBuilder(target)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(mix.next()))
+                .build();
+            long sent = System.nanoTime();
+            inFlight.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    long now = System.nanoTime();
+                    lastResponse.accumulateAndGet(now, Math::max);
+                    if (failure != null || response.statusCode() != 200) {
+                        errors.incrementAndGet();
+                    }
+                    latency.recordValue(TimeUnit.NANOSECONDS.toMicros(now - intended));
+                    serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(now - sent));
+                }));
+            // Exponential inter-arrival times make the arrivals a Poisson process
+            scheduled += (long) (-Math.log(1 - arrivals.nextDouble()) * meanIntervalNanos);
+        }
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+
+        double elapsedSeconds = Math.max(lastResponse.get() - start, 1) / 1e9;
+        return new StepResult(rate, inFlight.size() / elapsedSeconds, errors.get(),
+            latency.getIntervalHistogram(), serviceTime.getIntervalHistogram());
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    private record StepResult(int rate, double achievedRate, long errors, Histogram latency, Histogram serviceTime) {
+
+        boolean meetsSlo(Options options) {
+            return latency.getValueAtPercentile(options.sloPercentile()) <= options.slo().toNanos() / 1000;
+        }
+    }
+
+    private record Options(int[] rates, Duration step, Duration warmup, Duration slo, double sloPercentile,
+                           int[] mix, String path, String url, long seed) {
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                String option = arg.startsWith("--") ? arg.substring(2) : arg;
+                int separator = option.indexOf('=');
+                if (separator <= 0) {
+                    throw new IllegalArgumentException("Expected name=value, got '" + arg + "'");
+                }
+                values.put(option.substring(0, separator), option.substring(separator + 1));
+            }
+            return new Options(
+                ints(values.getOrDefault("rates", "100,250,500,1000,2000,4000")),
+                Duration.parse(values.getOrDefault("step", "PT20S")),
+                Duration.parse(values.getOrDefault("warmup", "PT10S")),
+                Duration.parse(values.getOrDefault("slo", "PT0.05S")),
+                Double.parseDouble(values.getOrDefault("slo-percentile", "99")),
+                ints(values.getOrDefault("mix", "70,10,10,10")),
+                values.getOrDefault("path", "/v1/fraud-check"),
+                values.get("url"),
+                Long.parseLong(values.getOrDefault("seed", "42")));
+        }
+
+        private static int[] ints(String csv) {
+            return Arrays.stream(csv.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.frauddetectionsystem.loadtest;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Request bodies for the load generator, drawn from a weighted mix of the traffic the
+ * default rules see in production:
+ * <ul>
+ *   <li>unique - new ID, ordinary amount and address, approved</li>
+ *   <li>duplicate - resends the ID of an earlier transaction, rejected by the duplicate check</li>
+ *   <li>high amount - at or above the hold and reject limits</li>
+ *   <li>blocklisted - from the blocked {@code 192.0.0.} range</li>
+ * </ul>
+ * Not thread-safe; the generator draws every request from its single scheduling thread.
+ */
+final class TransactionMix {
+
+    private static final int RECENT_IDS = 1024;
+
+    private final Random random;
+    private final int[] cumulativeWeights;
+    private final String runId;
+    private final String[] recentIds = new String[RECENT_IDS];
+    private long sequence;
+
+    /**
+     * @param weights relative weights of unique, duplicate, high amount and blocklisted
+     *                transactions, e.g. {@code 70,10,10,10}
+     */
+    TransactionMix(int[] weights, long seed) {
+        if (weights.length != Kind.values().length) {
+            throw new IllegalArgumentException("Expected " + Kind.values().length + " weights, got " + weights.length);
+        }
+        this.random = new Random(seed);
+        this.cumulativeWeights = new int[weights.length];
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            cumulativeWeights[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("At least one weight must be positive");
+        }
+        this.runId = Long.toString(System.currentTimeMillis(), 36);
+    }
+
+    String next() {
+        Kind kind = nextKind();
+        if (kind == Kind.DUPLICATE && sequence > 0) {
+            String id = recentIds[random.nextInt((int) Math.min(sequence, RECENT_IDS))];
+            return body(id, amount(10, 900), address());
+        }
+        String id = "LT-" + runId + "-" + sequence;
+        recentIds[(int) (sequence++ % RECENT_IDS)] = id;
+        return switch (kind) {
+            case HIGH_AMOUNT -> body(id, amount(1000, 5000), address());
+            case BLOCKLISTED -> body(id, amount(10, 900), "192.0.0." + random.nextInt(256));
+            default -> body(id, amount(10, 900), address());
+        };
+    }
+
+    private Kind nextKind() {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (draw < cumulativeWeights[i]) {
+                return Kind.values()[i];
+            }
+        }
+        return Kind.UNIQUE;
+    }
+
+    private String amount(int min, int max) {
+        return String.format(Locale.ROOT, "%.2f", min + random.nextDouble() * (max - min));
+    }
+
+    private String address() {
+        // Anything outside 192.0.0.0/24
+        return (10 + random.nextInt(150)) + "." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256);
+    }
+
+    private static String body(String id, String amount, String ip) {
+        return "{\"transactionId\":\"" + id + "\",\"amount\":" + amount + ",\"ipAddress\":\"" + ip + "\","
+            + "\"originatorDetails\":{\"name\":\"Load Test\",\"account\":\"" + (id.hashCode() & 0xFFFFFF) + "\"},"
+            + "\"eTransferDetails\":{\"recipient\":\"Recipient\",\"recipientAccount\":\"654321\"}}";
+    }
+
+    private enum Kind {
+        UNIQUE,
+        DUPLICATE,
+        HIGH_AMOUNT,
+        BLOCKLISTED
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.frauddetectionsystem.metrics;
+
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
+import com.example.frauddetectionsystem.domain.FraudRule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FraudDetectionMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void testRecordRuleHit_CardinalityBounded() {
+        // Given
+        FraudDetectionProperties properties = new FraudDetectionProperties();
+        properties.getMetrics().setMaxTaggedRules(2);
+        FraudDetectionMetrics metrics = new FraudDetectionMetrics(registry, properties);
+
+        // When
+        metrics.recordRuleHit(FraudRule.RuleType.AMOUNT_THRESHOLD, "AMOUNT_REJECT");
+        metrics.recordRuleHit(FraudRule.RuleType.IP_BLACKLIST, "IP_BLOCK");
+        metrics.recordRuleHit(FraudRule.RuleType.IP_BLACKLIST, "IP_BLOCK");
+        metrics.recordRuleHit(FraudRule.RuleType.IP_BLACKLIST, "IP_REGEX");
+        metrics.recordRuleHit(FraudRule.RuleType.VELOCITY, "VELOCITY_IP");
+
+        // Then
+        assertEquals(2, registry.get(FraudDetectionMetrics.RULE_HITS).tag("rule", "IP_BLOCK").counter().count());
+        assertEquals(1, registry.get(FraudDetectionMetrics.RULE_HITS)
+            .tags("type", "IP_BLACKLIST", "rule", FraudDetectionMetrics.OTHER_RULES).counter().count());
+        assertEquals(1, registry.get(FraudDetectionMetrics.RULE_HITS)
+            .tags("type", "VELOCITY", "rule", FraudDetectionMetrics.OTHER_RULES).counter().count());
+        assertTrue(registry.find(FraudDetectionMetrics.RULE_HITS).tag("rule", "IP_REGEX").counters().isEmpty());
+        // Two named series plus one "other" series per rule type
+        assertEquals(2 + FraudRule.RuleType.values().length,
+            registry.find(FraudDetectionMetrics.RULE_HITS).counters().size());
+    }
+
+    @Test
+    void testRecordStage_RecordsElapsedTime() {
+        // Given
+        FraudDetectionMetrics metrics = new FraudDetectionMetrics(registry, new FraudDetectionProperties());
+
+        // When
+        metrics.recordStage(FraudDetectionMetrics.Stage.RULE_EVALUATION, System.nanoTime() - 2_000_000);
+
+        // Then
+        var timer = registry.get(FraudDetectionMetrics.STAGE_TIMER).tag("stage", "rule_evaluation").timer();
+        assertEquals(1, timer.count());
+        assertTrue(timer.totalTime(TimeUnit.MILLISECONDS) >= 2);
+        assertEquals(FraudDetectionMetrics.Stage.values().length,
+            registry.find(FraudDetectionMetrics.STAGE_TIMER).timers().size());
+    }
+}
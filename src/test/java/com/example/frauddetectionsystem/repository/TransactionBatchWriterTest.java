@@ -0,0 +1,112 @@
+package com.example.frauddetectionsystem.repository;
+
+import com.example.frauddetectionsystem.domain.Transaction;
+import com.example.frauddetectionsystem.domain.TransactionDetails;
+import com.example.frauddetectionsystem.dto.TransactionStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({TransactionBatchWriter.class, TransactionIdAllocator.class})
+class TransactionBatchWriterTest {
+
+    @Autowired
+    private TransactionBatchWriter transactionBatchWriter;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    void testInsertAll_RowsReadableThroughJpa() {
+        // Given
+        Transaction approved = createTransaction("tx1", "500", TransactionStatus.APPROVED, "All checks passed");
+        Transaction held = createTransaction("tx2", "1500", TransactionStatus.HOLD, "Requires manual review");
+
+        // When
+        transactionBatchWriter.insertAll(List.of(approved, held));
+
+        // Then
+        assertEquals(2, transactionRepository.count());
+        Transaction stored = transactionRepository.findAll().stream()
+            .filter(t -> t.getTransactionId().equals("tx2"))
+            .findFirst()
+            .orElseThrow();
+        assertEquals(TransactionStatus.HOLD, stored.getStatus());
+        assertEquals("Requires manual review", stored.getStatusReason());
+        assertEquals(0, new BigDecimal("1500").compareTo(stored.getAmount()));
+        assertEquals("Test User", stored.getOriginatorDetails().getDetails().get("name"));
+    }
+
+    @Test
+    void testFindExistingTransactionIds_ReturnsOnlyStoredIds() {
+        // Given
+        transactionBatchWriter.insertAll(List.of(
+            createTransaction("tx1", "500", TransactionStatus.APPROVED, "All checks passed")));
+
+        // When
+        Set<String> existing = transactionRepository.findExistingTransactionIds(List.of("tx1", "tx2"));
+
+        // Then
+        assertEquals(Set.of("tx1"), existing);
+    }
+
+    @Test
+    void testInsertAll_SharesSequenceWithJpaWithoutCollisions() {
+        // Given - ids drawn alternately by Hibernate and by the JDBC writer
+        for (int i = 0; i < 120; i++) {
+            transactionRepository.saveAndFlush(
+                createTransaction("jpa-" + i, "10", TransactionStatus.APPROVED, "All checks passed"));
+            transactionBatchWriter.insertAll(List.of(
+                createTransaction("jdbc-" + i, "10", TransactionStatus.APPROVED, "All checks passed")));
+        }
+
+        // Then
+        List<Transaction> stored = transactionRepository.findAll();
+        assertEquals(240, stored.size());
+        assertEquals(240, stored.stream().map(Transaction::getId).distinct().count());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testDuplicateTransactionId_RaisesDataIntegrityViolation() {
+        // Given - a row stored elsewhere, as by another instance
+        transactionBatchWriter.insertAll(List.of(
+            createTransaction("tx1", "500", TransactionStatus.APPROVED, "All checks passed")));
+
+        try {
+            // When / Then - both write paths report it in the form the duplicate fallback catches
+            assertThrows(DataIntegrityViolationException.class, () -> transactionBatchWriter.insertAll(List.of(
+                createTransaction("tx1", "600", TransactionStatus.APPROVED, "All checks passed"))));
+            assertThrows(DataIntegrityViolationException.class, () -> transactionRepository.save(
+                createTransaction("tx1", "600", TransactionStatus.APPROVED, "All checks passed")));
+        } finally {
+            transactionRepository.deleteAll();
+        }
+    }
+
+    private Transaction createTransaction(String transactionId, String amount, TransactionStatus status, String reason) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(transactionId);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setIpAddress("192.168.1.1");
+        transaction.setStatus(status);
+        transaction.setStatusReason(reason);
+
+        TransactionDetails originator = new TransactionDetails();
+        originator.setDetails(Map.of("name", "Test User"));
+        transaction.setOriginatorDetails(originator);
+        return transaction;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.frauddetectionsystem.service;
+
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.engine.RuleCompiler;
+import com.example.frauddetectionsystem.engine.RuleSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ActiveRulesResponseCacheTest {
+
+    private final RuleCompiler ruleCompiler = new RuleCompiler();
+    private final ObjectMapper objectMapper = spy(new ObjectMapper());
+    private final RuleSnapshotService ruleSnapshotService = mock(RuleSnapshotService.class);
+    private final ActiveRulesResponseCache cache = new ActiveRulesResponseCache(ruleSnapshotService, objectMapper);
+
+    @Test
+    void testGetActiveRules_SerializesOncePerSnapshotVersion() throws Exception {
+        // Given
+        FraudRule rule = amountRule();
+        RuleSnapshot v1 = ruleCompiler.compile(List.of(rule), 1L);
+        RuleSnapshot v2 = ruleCompiler.compile(List.of(rule), 2L);
+        when(ruleSnapshotService.getCurrentSnapshot()).thenReturn(v1, v1, v2);
+
+        // When
+        ActiveRulesResponseCache.SerializedRules first = cache.getActiveRules();
+        ActiveRulesResponseCache.SerializedRules second = cache.getActiveRules();
+        ActiveRulesResponseCache.SerializedRules third = cache.getActiveRules();
+
+        // Then - same rules under a new version keep the tag, so clients do not refetch
+        assertSame(first, second);
+        assertEquals(2L, third.version());
+        assertEquals(first.etag(), third.etag());
+        verify(objectMapper, times(2)).writeValueAsBytes(any());
+
+        FraudRule[] decoded = objectMapper.readValue(first.json(), FraudRule[].class);
+        assertEquals("AMOUNT_HOLD", decoded[0].getRuleName());
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(first.gzip()))) {
+            assertArrayEquals(first.json(), gzip.readAllBytes());
+        }
+    }
+
+    @Test
+    void testGetActiveRules_ChangedRulesChangeEtag() {
+        // Given
+        FraudRule rule = amountRule();
+        RuleSnapshot before = ruleCompiler.compile(List.of(rule), 1L);
+        FraudRule changed = amountRule();
+        changed.setThresholdValue(new BigDecimal("2000"));
+        RuleSnapshot after = ruleCompiler.compile(List.of(changed), 2L);
+        when(ruleSnapshotService.getCurrentSnapshot()).thenReturn(before, after);
+
+        // When
+        ActiveRulesResponseCache.SerializedRules first = cache.getActiveRules();
+        ActiveRulesResponseCache.SerializedRules second = cache.getActiveRules();
+
+        // Then
+        assertNotEquals(first.etag(), second.etag());
+        assertFalse(second.matches(first.etag()));
+        assertTrue(second.matches("\"other\", " + second.gzipEtag()));
+        assertTrue(second.matches("*"));
+    }
+
+    private FraudRule amountRule() {
+        FraudRule rule = new FraudRule();
+        rule.setId(1L);
+        rule.setRuleName("AMOUNT_HOLD");
+        rule.setRuleType(FraudRule.RuleType.AMOUNT_THRESHOLD);
+        rule.setRuleCondition("GREATER_THAN_OR_EQUAL");
+        rule.setActionType(FraudRule.ActionType.HOLD);
+        rule.setActionMessage("Requires manual review");
+        rule.setPriority(1);
+        rule.setIsActive(true);
+        rule.setThresholdValue(new BigDecimal("1000"));
+        return rule;
+    }
+}
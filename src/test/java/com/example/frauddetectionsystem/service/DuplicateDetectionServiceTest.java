@@ -0,0 +1,100 @@
+package com.example.frauddetectionsystem.service;
+
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
+import com.example.frauddetectionsystem.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DuplicateDetectionServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ConcurrentMapCacheManager cacheManager =
+        new ConcurrentMapCacheManager(DuplicateDetectionService.RECENT_IDS_CACHE);
+
+    private DuplicateDetectionService duplicateDetectionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        duplicateDetectionService = new DuplicateDetectionService(
+            transactionRepository,
+            jdbcTemplate,
+            cacheManager,
+            new FraudDetectionProperties(),
+            meterRegistry);
+    }
+
+    @Test
+    void testIsDuplicate_NewIdSkipsDatabase() {
+        // When
+        boolean duplicate = duplicateDetectionService.isDuplicate("tx123");
+
+        // Then
+        assertFalse(duplicate);
+        verify(transactionRepository, never()).existsByTransactionId(any());
+    }
+
+    @Test
+    void testIsDuplicate_RecordedIdAnsweredFromRecentCache() {
+        // Given
+        duplicateDetectionService.recordStored("tx123");
+
+        // When
+        boolean duplicate = duplicateDetectionService.isDuplicate("tx123");
+
+        // Then
+        assertTrue(duplicate);
+        verify(transactionRepository, never()).existsByTransactionId(any());
+        assertEquals(1.0, meterRegistry.get("fraud.dedup.recent.hits").counter().count());
+    }
+
+    @Test
+    void testFindDuplicates_OnlyFilterHitsQueried() {
+        // Given - tx1 stored earlier and since evicted from the recent-ID cache
+        duplicateDetectionService.recordStored("tx1");
+        cacheManager.getCache(DuplicateDetectionService.RECENT_IDS_CACHE).clear();
+        when(transactionRepository.findExistingTransactionIds(any())).thenReturn(Set.of("tx1"));
+
+        // When
+        Set<String> duplicates = duplicateDetectionService.findDuplicates(List.of("tx1", "tx2", "tx3"));
+
+        // Then
+        assertEquals(Set.of("tx1"), duplicates);
+        verify(transactionRepository).findExistingTransactionIds(List.of("tx1"));
+        assertTrue(meterRegistry.get("fraud.dedup.bloom.memory").gauge().value() > 0);
+    }
+
+    @Test
+    void testConfirmStored_IdStoredElsewhereIsRemembered() {
+        // Given - stored by another instance, unknown to this one
+        when(transactionRepository.existsByTransactionId("tx123")).thenReturn(true);
+        assertFalse(duplicateDetectionService.isDuplicate("tx123"));
+
+        // When
+        boolean stored = duplicateDetectionService.confirmStored("tx123");
+
+        // Then - later checks answer without the database
+        assertTrue(stored);
+        assertTrue(duplicateDetectionService.isDuplicate("tx123"));
+        verify(transactionRepository, times(1)).existsByTransactionId("tx123");
+    }
+}
@@ -1,26 +1,42 @@
 package com.example.frauddetectionsystem.service;
 
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
 import com.example.frauddetectionsystem.domain.FraudRule;
 import com.example.frauddetectionsystem.domain.Transaction;
 import com.example.frauddetectionsystem.domain.TransactionDetails;
 import com.example.frauddetectionsystem.dto.FraudDetectionResult;
 import com.example.frauddetectionsystem.dto.RuleEvaluationResult;
 import com.example.frauddetectionsystem.dto.TransactionStatus;
+import com.example.frauddetectionsystem.engine.RuleCompiler;
+import com.example.frauddetectionsystem.journal.DecisionJournal;
+import com.example.frauddetectionsystem.metrics.FraudDetectionMetrics;
+import com.example.frauddetectionsystem.repository.FraudRuleChangeRepository;
+import com.example.frauddetectionsystem.repository.FraudRuleRepository;
+import com.example.frauddetectionsystem.repository.TransactionBatchWriter;
 import com.example.frauddetectionsystem.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 class FraudDetectionServiceTest {
@@ -28,11 +44,31 @@ class FraudDetectionServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
     
+    @Mock
+    private TransactionBatchWriter transactionBatchWriter;
+    
+    @Mock
+    private DuplicateDetectionService duplicateDetectionService;
+    
+    @Mock
+    private TransactionWriteBehindService writeBehindService;
+    
     @Mock
     private RuleEngineService ruleEngineService;
     
     @Mock
     private Executor fraudDetectionExecutor;
+    
+    @Spy
+    private FraudDetectionProperties properties = new FraudDetectionProperties();
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    
+    @Spy
+    private FraudDetectionMetrics metrics = new FraudDetectionMetrics(meterRegistry, new FraudDetectionProperties());
+    
+    @Mock
+    private DecisionJournal decisionJournal;
 
     @InjectMocks
     private FraudDetectionService fraudDetectionService;
@@ -73,7 +109,7 @@ class FraudDetectionServiceTest {
     void testCheckTransaction_Approved() {
         // Arrange
         Transaction transaction = createTestTransaction("tx123", "500", "192.168.1.1");
-        when(transactionRepository.existsByTransactionId("tx123")).thenReturn(false);
+        when(duplicateDetectionService.isDuplicate("tx123")).thenReturn(false);
         
         RuleEvaluationResult approveResult = new RuleEvaluationResult(
             true, FraudRule.ActionType.APPROVE, "All checks passed", "DEFAULT_APPROVE", 0);
@@ -87,13 +123,16 @@ class FraudDetectionServiceTest {
         assertEquals(TransactionStatus.APPROVED, result.getStatus());
         assertEquals("All checks passed", result.getReason());
         verify(transactionRepository, times(1)).save(any(Transaction.class));
+        assertEquals(1, meterRegistry.get("fraud.check.stage").tag("stage", "duplicate_check").timer().count());
+        assertEquals(1, meterRegistry.get("fraud.check.stage").tag("stage", "persistence").timer().count());
+        verify(decisionJournal).append(same(transaction), same(approveResult), anyLong());
     }
 
     @Test
     void testCheckTransaction_Rejected_DuplicateId() {
         // Arrange
         Transaction transaction = createTestTransaction("tx123", "500", "192.168.1.1");
-        when(transactionRepository.existsByTransactionId("tx123")).thenReturn(true);
+        when(duplicateDetectionService.isDuplicate("tx123")).thenReturn(true);
 
         // Act
         FraudDetectionResult result = fraudDetectionService.checkTransaction(transaction);
@@ -102,13 +141,14 @@ class FraudDetectionServiceTest {
         assertEquals(TransactionStatus.REJECTED, result.getStatus());
 assertEquals("Duplicate transaction ID", result.getReason());
         verify(transactionRepository, never()).save(any(Transaction.class));
+        verifyNoInteractions(decisionJournal);
     }
 
     @Test
     void testCheckTransaction_Rejected_BlockedIp() {
         // Arrange
         Transaction transaction = createTestTransaction("tx123", "500", "192.0.0.10");
-        when(transactionRepository.existsByTransactionId("tx123")).thenReturn(false);
+        when(duplicateDetectionService.isDuplicate("tx123")).thenReturn(false);
         
         RuleEvaluationResult rejectResult = new RuleEvaluationResult(
             true, FraudRule.ActionType.REJECT, "IP address is blocked", "IP_BLACKLIST_192_SUBNET", 3);
@@ -128,7 +168,7 @@ assertEquals("Duplicate transaction ID", result.getReason());
     void testCheckTransaction_Rejected_AmountTooHigh() {
         // Arrange
         Transaction transaction = createTestTransaction("tx123", "2500", "192.168.1.1");
-        when(transactionRepository.existsByTransactionId("tx123")).thenReturn(false);
+        when(duplicateDetectionService.isDuplicate("tx123")).thenReturn(false);
         
         RuleEvaluationResult rejectResult = new RuleEvaluationResult(
             true, FraudRule.ActionType.REJECT, "Amount exceeds maximum limit", "AMOUNT_REJECT_THRESHOLD", 1);
@@ -148,7 +188,7 @@ assertEquals("Duplicate transaction ID", result.getReason());
     void testCheckTransaction_Hold_MediumAmount() {
         // Arrange
         Transaction transaction = createTestTransaction("tx123", "1500", "192.168.1.1");
-        when(transactionRepository.existsByTransactionId("tx123")).thenReturn(false);
+        when(duplicateDetectionService.isDuplicate("tx123")).thenReturn(false);
         
         RuleEvaluationResult holdResult = new RuleEvaluationResult(
             true, FraudRule.ActionType.HOLD, "Requires manual review", "AMOUNT_HOLD_THRESHOLD", 2);
@@ -163,4 +203,254 @@ assertEquals("Duplicate transaction ID", result.getReason());
         assertEquals("Requires manual review", result.getReason());
         verify(transactionRepository, times(1)).save(any(Transaction.class));
     }
+
+    @Test
+    void testCheckTransaction_SaveFails_NotRetried() {
+        // Arrange
+        Transaction transaction = createTestTransaction("tx123", "500", "192.168.1.1");
+        when(duplicateDetectionService.isDuplicate("tx123")).thenReturn(false);
+        when(ruleEngineService.evaluateRulesAsync(any(Transaction.class)))
+            .thenReturn(CompletableFuture.completedFuture(new RuleEvaluationResult(
+                true, FraudRule.ActionType.APPROVE, "All checks passed", "DEFAULT_APPROVE", 0)));
+        when(transactionRepository.save(any(Transaction.class)))
+            .thenThrow(new IllegalStateException("Connection is not available"));
+
+        // Act
+        FraudDetectionResult result = fraudDetectionService.checkTransaction(transaction);
+
+        // Assert - rejected without a second save attempt
+        assertEquals(TransactionStatus.REJECTED, result.getStatus());
+        assertEquals("System error during fraud detection", result.getReason());
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(duplicateDetectionService, never()).recordStored(anyString());
+    }
+
+    @Test
+    void testCheckTransactionAsync_Hold() {
+        // Arrange
+        Transaction transaction = createTestTransaction("tx123", "1500", "192.168.1.1");
+        doAnswer(i -> { ((Runnable) i.getArgument(0)).run(); return null; })
+            .when(fraudDetectionExecutor).execute(any(Runnable.class));
+        when(duplicateDetectionService.isDuplicate("tx123")).thenReturn(false);
+
+        RuleEvaluationResult holdResult = new RuleEvaluationResult(
+            true, FraudRule.ActionType.HOLD, "Requires manual review", "AMOUNT_HOLD_THRESHOLD", 2);
+        when(ruleEngineService.evaluateRulesAsync(any(Transaction.class)))
+            .thenReturn(CompletableFuture.completedFuture(holdResult));
+
+        // Act
+        FraudDetectionResult result = fraudDetectionService.checkTransactionAsync(transaction).join();
+
+        // Assert
+        assertEquals(TransactionStatus.HOLD, result.getStatus());
+        assertEquals("Requires manual review", result.getReason());
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+    }
+
+    @Test
+    void testCheckTransactionAsync_Rejected_Timeout() {
+        // Arrange
+        properties.getCheck().setTimeout(Duration.ofMillis(50));
+        FraudDetectionService service = new FraudDetectionService(
+            transactionRepository, transactionBatchWriter, duplicateDetectionService, writeBehindService,
+            ruleEngineService, Runnable::run, properties, metrics, decisionJournal);
+        Transaction transaction = createTestTransaction("tx123", "500", "192.168.1.1");
+        when(duplicateDetectionService.isDuplicate("tx123")).thenReturn(false);
+
+        // Rule evaluation that never completes
+        CompletableFuture<RuleEvaluationResult> pending = new CompletableFuture<>();
+        when(ruleEngineService.evaluateRulesAsync(any(Transaction.class))).thenReturn(pending);
+
+        // Act
+        FraudDetectionResult result = service.checkTransactionAsync(transaction).join();
+        pending.complete(new RuleEvaluationResult(
+            true, FraudRule.ActionType.APPROVE, "All checks passed", "DEFAULT_APPROVE", 0));
+
+        // Assert - rejected once, late approval is not persisted
+        assertEquals(TransactionStatus.REJECTED, result.getStatus());
+        assertEquals("System error during fraud detection", result.getReason());
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        assertEquals(TransactionStatus.REJECTED, transaction.getStatus());
+    }
+
+    @Test
+    void testCheckTransactionAsync_SlowPersistenceIsNotTimedOut() {
+        // Arrange - rules decide at once, storing the decision outlasts the check timeout
+        properties.getCheck().setTimeout(Duration.ofMillis(50));
+        FraudDetectionService service = new FraudDetectionService(
+            transactionRepository, transactionBatchWriter, duplicateDetectionService, writeBehindService,
+            ruleEngineService, Runnable::run, properties, metrics, decisionJournal);
+        Transaction transaction = createTestTransaction("tx123", "500", "192.168.1.1");
+        when(duplicateDetectionService.isDuplicate("tx123")).thenReturn(false);
+        when(ruleEngineService.evaluateRulesAsync(any(Transaction.class)))
+            .thenReturn(CompletableFuture.completedFuture(new RuleEvaluationResult(
+                true, FraudRule.ActionType.APPROVE, "All checks passed", "DEFAULT_APPROVE", 0)));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(i -> {
+            Thread.sleep(150);
+            return i.getArgument(0);
+        });
+
+        // Act
+        FraudDetectionResult result = service.checkTransactionAsync(transaction).join();
+
+        // Assert - the stored approval is returned, no rejection is saved over it
+        assertEquals(TransactionStatus.APPROVED, result.getStatus());
+        assertEquals("All checks passed", result.getReason());
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        assertEquals(TransactionStatus.APPROVED, transaction.getStatus());
+    }
+
+    @Test
+    void testCheckTransactions_DuplicatesAndOrderPreserved() {
+        // Arrange - tx1 already stored, tx2 repeated within the batch
+        List<Transaction> batch = List.of(
+            createTestTransaction("tx1", "500", "192.168.1.1"),
+            createTestTransaction("tx2", "1500", "192.168.1.1"),
+            createTestTransaction("tx3", "2500", "192.168.1.1"),
+            createTestTransaction("tx2", "500", "192.168.1.1"));
+        when(duplicateDetectionService.findDuplicates(any())).thenReturn(Set.of("tx1"));
+
+        RuleEvaluationResult holdResult = new RuleEvaluationResult(
+            true, FraudRule.ActionType.HOLD, "Requires manual review", "AMOUNT_HOLD_THRESHOLD", 2);
+        RuleEvaluationResult rejectResult = new RuleEvaluationResult(
+            true, FraudRule.ActionType.REJECT, "Amount exceeds maximum limit", "AMOUNT_REJECT_THRESHOLD", 1);
+        when(ruleEngineService.evaluateBatch(List.of(batch.get(1), batch.get(2))))
+            .thenReturn(List.of(holdResult, rejectResult));
+
+        // Act
+        List<FraudDetectionResult> results = fraudDetectionService.checkTransactions(batch);
+
+        // Assert
+        assertEquals(List.of("tx1", "tx2", "tx3", "tx2"),
+            results.stream().map(FraudDetectionResult::getTransactionId).toList());
+        assertEquals("Duplicate transaction ID", results.get(0).getReason());
+        assertEquals(TransactionStatus.HOLD, results.get(1).getStatus());
+        assertEquals(TransactionStatus.REJECTED, results.get(2).getStatus());
+        assertEquals("Amount exceeds maximum limit", results.get(2).getReason());
+        assertEquals("Duplicate transaction ID", results.get(3).getReason());
+        verify(transactionBatchWriter, times(1)).insertAll(List.of(batch.get(1), batch.get(2)));
+        verify(duplicateDetectionService, never()).isDuplicate(any());
+        verify(duplicateDetectionService).recordStored(List.of("tx2", "tx3"));
+    }
+
+    @Test
+    void testCheckTransactions_WriteBehindQueuesBatchAndRecordsStages() {
+        // Arrange
+        List<Transaction> batch = List.of(
+            createTestTransaction("tx1", "500", "192.168.1.1"),
+            createTestTransaction("tx2", "1500", "192.168.1.1"));
+        when(writeBehindService.isEnabled()).thenReturn(true);
+        when(duplicateDetectionService.findDuplicates(any())).thenReturn(Set.of());
+        RuleEvaluationResult approveResult = new RuleEvaluationResult(
+            true, FraudRule.ActionType.APPROVE, "All checks passed", "DEFAULT_APPROVE", 0);
+        when(ruleEngineService.evaluateBatch(batch)).thenReturn(List.of(approveResult, approveResult));
+
+        // Act
+        List<FraudDetectionResult> results = fraudDetectionService.checkTransactions(batch);
+
+        // Assert - queued like single checks, one sample per stage for the batch
+        assertEquals(List.of(TransactionStatus.APPROVED, TransactionStatus.APPROVED),
+            results.stream().map(FraudDetectionResult::getStatus).toList());
+        verify(writeBehindService).enqueueAll(batch);
+        verifyNoInteractions(transactionBatchWriter);
+        verify(duplicateDetectionService).recordStored(List.of("tx1", "tx2"));
+        assertEquals(1, meterRegistry.get("fraud.check.stage").tag("stage", "duplicate_check").timer().count());
+        assertEquals(1, meterRegistry.get("fraud.check.stage").tag("stage", "persistence").timer().count());
+    }
+
+    @Test
+    void testCheckTransaction_IdStoredByAnotherInstanceIsDuplicate() {
+        // Arrange - unknown locally, but the insert hits the unique constraint
+        Transaction transaction = createTestTransaction("tx123", "500", "192.168.1.1");
+        when(duplicateDetectionService.isDuplicate("tx123")).thenReturn(false);
+        when(ruleEngineService.evaluateRulesAsync(any(Transaction.class)))
+            .thenReturn(CompletableFuture.completedFuture(new RuleEvaluationResult(
+                true, FraudRule.ActionType.APPROVE, "All checks passed", "DEFAULT_APPROVE", 0)));
+        when(transactionRepository.save(any(Transaction.class)))
+            .thenThrow(new DataIntegrityViolationException("Unique index or primary key violation"));
+        when(duplicateDetectionService.confirmStored("tx123")).thenReturn(true);
+
+        // Act
+        FraudDetectionResult result = fraudDetectionService.checkTransaction(transaction);
+
+        // Assert
+        assertEquals(TransactionStatus.REJECTED, result.getStatus());
+        assertEquals("Duplicate transaction ID", result.getReason());
+    }
+
+    @Test
+    void testCheckTransactions_IdsStoredByAnotherInstanceAreDuplicates() {
+        // Arrange - tx1 was stored elsewhere after the lookup
+        List<Transaction> batch = List.of(
+            createTestTransaction("tx1", "500", "192.168.1.1"),
+            createTestTransaction("tx2", "500", "192.168.1.1"));
+        when(duplicateDetectionService.findDuplicates(any())).thenReturn(Set.of());
+        RuleEvaluationResult approveResult = new RuleEvaluationResult(
+            true, FraudRule.ActionType.APPROVE, "All checks passed", "DEFAULT_APPROVE", 0);
+        when(ruleEngineService.evaluateBatch(any())).thenReturn(List.of(approveResult, approveResult));
+        List<List<String>> inserts = new ArrayList<>();
+        doAnswer(i -> {
+            List<Transaction> rows = i.getArgument(0);
+            inserts.add(rows.stream().map(Transaction::getTransactionId).toList());
+            if (inserts.size() == 1) {
+                throw new DataIntegrityViolationException("Unique index or primary key violation");
+            }
+            return null;
+        }).when(transactionBatchWriter).insertAll(any());
+        when(duplicateDetectionService.confirmStored(List.of("tx1", "tx2"))).thenReturn(Set.of("tx1"));
+
+        // Act
+        List<FraudDetectionResult> results = fraudDetectionService.checkTransactions(batch);
+
+        // Assert - tx1 answered as a duplicate, tx2 stored on the second attempt
+        assertEquals("Duplicate transaction ID", results.get(0).getReason());
+        assertEquals(TransactionStatus.APPROVED, results.get(1).getStatus());
+        assertEquals(List.of(List.of("tx1", "tx2"), List.of("tx2")), inserts);
+    }
+
+    @Test
+    void testCheckTransaction_ExtremeExponentAmountIsRejectedQuickly() {
+        // Arrange - real rule engine with every rule type that reads the amount
+        FraudRuleRepository fraudRuleRepository = mock(FraudRuleRepository.class);
+        when(fraudRuleRepository.findActiveRulesOrderedByPriority()).thenReturn(List.of(
+            createRule(1L, FraudRule.RuleType.DUPLICATE_TRANSACTION, "WINDOW_SECONDS=600",
+                null, "originatorDetails.account,amount"),
+            createRule(2L, FraudRule.RuleType.VELOCITY, "AMOUNT_GREATER_THAN;WINDOW_SECONDS=600",
+                new BigDecimal("5000"), "amount"),
+            createRule(3L, FraudRule.RuleType.AMOUNT_THRESHOLD, "GREATER_THAN",
+                new BigDecimal("10000"), null)));
+        FraudDetectionProperties realProperties = new FraudDetectionProperties();
+        RuleEngineService realRuleEngine = new RuleEngineService(
+            new RuleSnapshotService(fraudRuleRepository, mock(FraudRuleChangeRepository.class),
+                new RuleCompiler(), realProperties),
+            realProperties, Runnable::run, ForkJoinPool.commonPool(), metrics);
+        FraudDetectionService service = new FraudDetectionService(transactionRepository, transactionBatchWriter,
+            duplicateDetectionService, writeBehindService, realRuleEngine, Runnable::run, properties, metrics,
+            decisionJournal);
+        Transaction transaction = createTestTransaction("tx-huge", "1E+20000000", "192.168.1.1");
+
+        // Act - rescaling 1E+20000000 would take tens of seconds
+        FraudDetectionResult result = assertTimeoutPreemptively(Duration.ofSeconds(2),
+            () -> service.checkTransaction(transaction));
+
+        // Assert
+        assertEquals(TransactionStatus.REJECTED, result.getStatus());
+        assertEquals("VELOCITY rejected", result.getReason());
+    }
+
+    private FraudRule createRule(Long id, FraudRule.RuleType type, String condition,
+                                 BigDecimal threshold, String stringValue) {
+        FraudRule rule = new FraudRule();
+        rule.setId(id);
+        rule.setRuleName(type.name());
+        rule.setRuleType(type);
+        rule.setRuleCondition(condition);
+        rule.setActionType(FraudRule.ActionType.REJECT);
+        rule.setActionMessage(type.name() + " rejected");
+        rule.setPriority(id.intValue());
+        rule.setIsActive(true);
+        rule.setThresholdValue(threshold);
+        rule.setStringValue(stringValue);
+        return rule;
+    }
 }
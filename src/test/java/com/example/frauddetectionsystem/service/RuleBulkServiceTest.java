@@ -0,0 +1,189 @@
+package com.example.frauddetectionsystem.service;
+
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.dto.BulkImportResult;
+import com.example.frauddetectionsystem.engine.CompiledRule;
+import com.example.frauddetectionsystem.engine.RuleCompiler;
+import com.example.frauddetectionsystem.repository.FraudRuleBatchWriter;
+import com.example.frauddetectionsystem.repository.FraudRuleChangeRepository;
+import com.example.frauddetectionsystem.repository.FraudRuleRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@EnableConfigurationProperties(FraudDetectionProperties.class)
+@Import({RuleBulkService.class, FraudRuleBatchWriter.class, RuleSnapshotService.class, RuleCompiler.class})
+@TestPropertySource(properties = {"fraud.rules.import-batch-size=2", "fraud.rules.export-page-size=2"})
+class RuleBulkServiceTest {
+
+    @Autowired
+    private RuleBulkService ruleBulkService;
+
+    @Autowired
+    private RuleSnapshotService ruleSnapshotService;
+
+    @Autowired
+    private FraudRuleRepository fraudRuleRepository;
+
+    @Autowired
+    private FraudRuleChangeRepository changeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void testImportRules_WritesValidLinesAndReportsInvalidOnes() throws IOException {
+        // Given - a malformed line, an invalid regex, a blank line and a repeated name
+        String ndjson = String.join("\n",
+            json(amountRule("AMOUNT_LIMIT", 5, "2000")),
+            json(ipRule("IP_BLOCK", "STARTS_WITH", "10.0.")),
+            "{\"ruleName\": ",
+            json(ipRule("BAD_REGEX", "REGEX", "10\\.(")),
+            "",
+            json(amountRule("AMOUNT_LIMIT", 1, "3000")));
+
+        // When
+        BulkImportResult result = ruleBulkService.importRules(stream(ndjson));
+
+        // Then
+        assertEquals(3, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertEquals(List.of(3L, 4L), result.getErrors().stream().map(BulkImportResult.LineError::getLine).toList());
+        assertEquals(2, fraudRuleRepository.count());
+
+        // One snapshot swap with the final state of every rule
+        assertEquals(result.getRuleSetVersion(), ruleSnapshotService.getCurrentSnapshot().getVersion());
+        List<CompiledRule> rules = ruleSnapshotService.getCurrentSnapshot().getRules();
+        assertEquals(List.of("AMOUNT_LIMIT", "IP_BLOCK"), rules.stream().map(CompiledRule::getRuleName).toList());
+        assertEquals(1, rules.get(0).getPriority());
+        assertTrue(changeRepository.findAll().stream().anyMatch(change -> change.isFullReload()));
+    }
+
+    @Test
+    void testImportRules_UpdatesExistingRuleInPlace() throws IOException {
+        // Given
+        ruleBulkService.importRules(stream(json(amountRule("AMOUNT_LIMIT", 5, "2000"))));
+        FraudRule original = fraudRuleRepository.findAll().get(0);
+        // Rows are written with JDBC; read them back fresh rather than from the session
+        entityManager.clear();
+
+        // When
+        FraudRule changed = amountRule("AMOUNT_LIMIT", 5, "2500");
+        changed.setActionMessage("Changed limit");
+        ruleBulkService.importRules(stream(json(changed)));
+        entityManager.clear();
+
+        // Then
+        List<FraudRule> stored = fraudRuleRepository.findAll();
+        assertEquals(1, stored.size());
+        assertEquals(original.getId(), stored.get(0).getId());
+        assertEquals("Changed limit", stored.get(0).getActionMessage());
+        assertEquals(0, stored.get(0).getThresholdValue().compareTo(new BigDecimal("2500")));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testImportRules_FailureStoresNothing() throws IOException {
+        // Given - a full batch is written before the input breaks off
+        long version = ruleSnapshotService.getCurrentSnapshot().getVersion();
+        String ndjson = json(amountRule("AMOUNT_1", 1, "1000")) + "\n"
+            + json(amountRule("AMOUNT_2", 2, "2000")) + "\n"
+            + json(amountRule("AMOUNT_3", 3, "3000")) + "\n";
+        InputStream failing = new SequenceInputStream(stream(ndjson), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+
+        // When
+        assertThrows(IOException.class, () -> ruleBulkService.importRules(failing));
+
+        // Then - the batch already written was rolled back with the rest
+        assertEquals(0, fraudRuleRepository.count());
+        assertEquals(0, changeRepository.count());
+        assertEquals(version, ruleSnapshotService.getCurrentSnapshot().getVersion());
+    }
+
+    @Test
+    void testExportRules_StreamsEveryRuleInIdOrder() throws IOException {
+        // Given - more rules than fit in one export page
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            ndjson.append(json(amountRule("AMOUNT_" + i, i, "1000"))).append('\n');
+        }
+        ruleBulkService.importRules(stream(ndjson.toString()));
+
+        // When
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ruleBulkService.exportRules(output);
+
+        // Then
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(5, lines.length);
+        long previousId = 0;
+        for (String line : lines) {
+            FraudRule rule = objectMapper.readValue(line, FraudRule.class);
+            assertTrue(rule.getId() > previousId);
+            previousId = rule.getId();
+        }
+    }
+
+    private String json(FraudRule rule) throws IOException {
+        return objectMapper.writeValueAsString(rule);
+    }
+
+    private static ByteArrayInputStream stream(String ndjson) {
+        return new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static FraudRule amountRule(String name, int priority, String threshold) {
+        FraudRule rule = new FraudRule();
+        rule.setRuleName(name);
+        rule.setRuleType(FraudRule.RuleType.AMOUNT_THRESHOLD);
+        rule.setRuleCondition("GREATER_THAN");
+        rule.setActionType(FraudRule.ActionType.REJECT);
+        rule.setActionMessage("Amount exceeds maximum limit");
+        rule.setPriority(priority);
+        rule.setThresholdValue(new BigDecimal(threshold));
+        return rule;
+    }
+
+    private static FraudRule ipRule(String name, String condition, String pattern) {
+        FraudRule rule = new FraudRule();
+        rule.setRuleName(name);
+        rule.setRuleType(FraudRule.RuleType.IP_BLACKLIST);
+        rule.setRuleCondition(condition);
+        rule.setActionType(FraudRule.ActionType.REJECT);
+        rule.setActionMessage("IP address is blocked");
+        rule.setPriority(10);
+        rule.setStringValue(pattern);
+        return rule;
+    }
+}
@@ -1,21 +1,27 @@
 package com.example.frauddetectionsystem.service;
 
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
 import com.example.frauddetectionsystem.domain.FraudRule;
 import com.example.frauddetectionsystem.domain.Transaction;
 import com.example.frauddetectionsystem.dto.RuleEvaluationResult;
+import com.example.frauddetectionsystem.engine.RuleCompiler;
+import com.example.frauddetectionsystem.metrics.FraudDetectionMetrics;
+import com.example.frauddetectionsystem.repository.FraudRuleChangeRepository;
 import com.example.frauddetectionsystem.repository.FraudRuleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.lang.management.ManagementFactory;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,7 +32,6 @@ class RuleEngineServiceTest {
     @Mock
     private FraudRuleRepository fraudRuleRepository;
 
-    @InjectMocks
     private RuleEngineService ruleEngineService;
 
     private Transaction testTransaction;
@@ -34,6 +39,12 @@ class RuleEngineServiceTest {
 
     @BeforeEach
     void setUp() {
+        ruleEngineService = new RuleEngineService(
+            new RuleSnapshotService(fraudRuleRepository, mock(FraudRuleChangeRepository.class),
+                new RuleCompiler(), new FraudDetectionProperties()),
+            new FraudDetectionProperties(), ForkJoinPool.commonPool(), ForkJoinPool.commonPool(),
+            new FraudDetectionMetrics(new SimpleMeterRegistry(), new FraudDetectionProperties()));
+
         testTransaction = new Transaction();
         testTransaction.setTransactionId("TXN-001");
         testTransaction.setAmount(new BigDecimal("1500"));
@@ -114,6 +125,43 @@ class RuleEngineServiceTest {
         assertTrue(evaluationResult.isTriggered());
         assertEquals(FraudRule.ActionType.APPROVE, evaluationResult.getActionType());
         assertEquals("DEFAULT_APPROVE", evaluationResult.getRuleName());
+        assertEquals(1, evaluationResult.getRuleSetVersion());
+    }
+
+    @Test
+    void testEvaluateRules_AllocationFree() {
+        // Given - the full service path: snapshot lookup, stage timer, hit counter and logging guards
+        when(fraudRuleRepository.findActiveRulesOrderedByPriority()).thenReturn(testRules);
+        Transaction held = new Transaction();
+        held.setTransactionId("TXN-HOLD");
+        held.setAmount(new BigDecimal("1500"));
+        held.setIpAddress("10.0.0.1");
+        Transaction approved = new Transaction();
+        approved.setTransactionId("TXN-OK");
+        approved.setAmount(new BigDecimal("500"));
+        approved.setIpAddress("10.0.0.1");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < 20_000; i++) {
+            ruleEngineService.evaluateRules(held);
+            ruleEngineService.evaluateRules(approved);
+        }
+
+        // When - more inlining than for the snapshot alone, so compilation may still be
+        // finishing: the first round that runs fully compiled counts
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < 20 && allocated >= 16 * 1024; round++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < 10_000; i++) {
+                assertEquals("AMOUNT_HOLD", ruleEngineService.evaluateRules(held).getRuleName());
+                assertEquals("DEFAULT_APPROVE", ruleEngineService.evaluateRules(approved).getRuleName());
+            }
+            allocated = threads.getThreadAllocatedBytes(thread) - before;
+        }
+
+        // Then - a single allocation per evaluation would be over 300 KB
+        assertTrue(allocated < 16 * 1024, "allocated " + allocated + " bytes");
+        assertSame(ruleEngineService.evaluateRules(approved), ruleEngineService.evaluateRules(approved));
     }
 
     private FraudRule createTestRule(String name, FraudRule.RuleType type, String condition, 
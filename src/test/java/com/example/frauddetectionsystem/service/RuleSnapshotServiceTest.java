@@ -0,0 +1,249 @@
+package com.example.frauddetectionsystem.service;
+
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
+import com.example.frauddetectionsystem.domain.FraudRule;
+import com.example.frauddetectionsystem.domain.FraudRuleChange;
+import com.example.frauddetectionsystem.engine.RuleCompiler;
+import com.example.frauddetectionsystem.engine.RuleSnapshot;
+import com.example.frauddetectionsystem.repository.FraudRuleChangeRepository;
+import com.example.frauddetectionsystem.repository.FraudRuleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class RuleSnapshotServiceTest {
+
+    private FraudRuleRepository fraudRuleRepository;
+    private FraudRuleChangeRepository changeRepository;
+    private FraudDetectionProperties properties;
+    private RuleSnapshotService ruleSnapshotService;
+
+    @BeforeEach
+    void setUp() {
+        fraudRuleRepository = mock(FraudRuleRepository.class);
+        changeRepository = mock(FraudRuleChangeRepository.class);
+        properties = new FraudDetectionProperties();
+        ruleSnapshotService = new RuleSnapshotService(
+            fraudRuleRepository, changeRepository, new RuleCompiler(), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ruleSnapshotService.shutdown();
+    }
+
+    @Test
+    void backgroundRefresh_ServesPreviousSnapshotUntilNewOneIsReady() throws Exception {
+        // Given - the second load blocks until released
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(fraudRuleRepository.findActiveRulesOrderedByPriority())
+            .thenReturn(List.of())
+            .thenAnswer(invocation -> {
+                loading.countDown();
+                release.await();
+                return List.of(amountRule());
+            });
+        RuleSnapshot initial = ruleSnapshotService.getCurrentSnapshot();
+
+        // When
+        ruleSnapshotService.requestRefresh();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // Then - readers are not blocked and still see the old snapshot
+        assertSame(initial, ruleSnapshotService.getCurrentSnapshot());
+        assertEquals(1, initial.getVersion());
+
+        release.countDown();
+        RuleSnapshot refreshed = awaitVersion(2);
+        assertEquals(1, refreshed.size());
+    }
+
+    @Test
+    void failedRefresh_KeepsCurrentSnapshot() {
+        // Given
+        when(fraudRuleRepository.findActiveRulesOrderedByPriority())
+            .thenReturn(List.of(amountRule()))
+            .thenThrow(new IllegalStateException("Database unavailable"));
+        RuleSnapshot initial = ruleSnapshotService.refresh();
+
+        // When / Then
+        assertThrows(IllegalStateException.class, ruleSnapshotService::refresh);
+        assertSame(initial, ruleSnapshotService.getCurrentSnapshot());
+    }
+
+    @Test
+    void requestRefresh_CoalescesWhileOneIsQueued() throws Exception {
+        // Given - the background thread is busy with a first rebuild
+        CountDownLatch release = new CountDownLatch(1);
+        when(fraudRuleRepository.findActiveRulesOrderedByPriority())
+            .thenAnswer(invocation -> {
+                release.await();
+                return List.of();
+            });
+
+        // When - one rebuild running, then several requests while the next is queued
+        ruleSnapshotService.requestRefresh();
+        verify(fraudRuleRepository, timeout(5000)).findActiveRulesOrderedByPriority();
+        for (int i = 0; i < 10; i++) {
+            ruleSnapshotService.requestRefresh();
+        }
+        release.countDown();
+
+        // Then - the queued requests were served by a single rebuild
+        awaitVersion(2);
+        Thread.sleep(100);
+        verify(fraudRuleRepository, times(2)).findActiveRulesOrderedByPriority();
+    }
+
+    @Test
+    void applyChange_SwapsInNextVersionWithoutReloading() {
+        // Given
+        when(fraudRuleRepository.findActiveRulesOrderedByPriority()).thenReturn(List.of(amountRule()));
+        RuleSnapshot initial = ruleSnapshotService.refresh();
+
+        // When - the rule is toggled off
+        FraudRule toggled = amountRule();
+        toggled.setIsActive(false);
+        RuleSnapshot changed = ruleSnapshotService.applyChange(1L, toggled);
+
+        // Then
+        assertEquals(initial.getVersion() + 1, changed.getVersion());
+        assertEquals(0, changed.size());
+        assertSame(changed, ruleSnapshotService.getCurrentSnapshot());
+        verify(fraudRuleRepository, times(1)).findActiveRulesOrderedByPriority();
+    }
+
+    @Test
+    void pollChanges_AppliesOnlyNewEntriesAndWaitsForGaps() {
+        // Given - change 2 is not visible yet while change 3 is
+        properties.getRules().setChangeGapTimeout(Duration.ofHours(1));
+        when(fraudRuleRepository.findActiveRulesOrderedByPriority()).thenReturn(List.of());
+        ruleSnapshotService.refresh();
+        when(changeRepository.findByIdGreaterThanOrderByIdAsc(0L))
+            .thenReturn(List.of(change(1L, 1L), change(3L, 2L)));
+        when(changeRepository.findByIdGreaterThanOrderByIdAsc(1L)).thenReturn(List.of(change(3L, 2L)));
+        when(fraudRuleRepository.findAllById(any())).thenReturn(List.of(amountRule()));
+
+        // When
+        ruleSnapshotService.pollChanges();
+        ruleSnapshotService.pollChanges();
+        ruleSnapshotService.pollChanges();
+
+        // Then - both rules applied once in one version; rule 2 was not found and stays absent
+        assertEquals(2, ruleSnapshotService.getCurrentSnapshot().getVersion());
+        assertEquals(1, ruleSnapshotService.getCurrentSnapshot().size());
+        verify(fraudRuleRepository, times(1)).findAllById(any());
+        // Watermark stopped below the gap, so the missing entry is still looked for
+        verify(changeRepository, times(2)).findByIdGreaterThanOrderByIdAsc(1L);
+        verify(changeRepository, never()).findByIdGreaterThanOrderByIdAsc(3L);
+    }
+
+    @Test
+    void pollChanges_SkipsGapAfterTimeout() {
+        // Given
+        properties.getRules().setChangeGapTimeout(Duration.ZERO);
+        when(fraudRuleRepository.findActiveRulesOrderedByPriority()).thenReturn(List.of());
+        ruleSnapshotService.refresh();
+        when(changeRepository.findByIdGreaterThanOrderByIdAsc(anyLong())).thenReturn(List.of());
+        when(changeRepository.findByIdGreaterThanOrderByIdAsc(0L)).thenReturn(List.of(change(3L, 1L)));
+        when(fraudRuleRepository.findAllById(any())).thenReturn(List.of(amountRule()));
+
+        // When - the first poll sees the gap, the next one gives up on it
+        ruleSnapshotService.pollChanges();
+        ruleSnapshotService.pollChanges();
+        ruleSnapshotService.pollChanges();
+
+        // Then
+        verify(changeRepository).findByIdGreaterThanOrderByIdAsc(3L);
+    }
+
+    @Test
+    void pollChanges_DoesNotBumpVersionForChangesAppliedLocally() {
+        // Given - change 1 was applied by this instance, change 2 by another
+        when(fraudRuleRepository.findActiveRulesOrderedByPriority()).thenReturn(List.of());
+        ruleSnapshotService.refresh();
+        ruleSnapshotService.applyAfterCommit(1L, 1L, amountRule());
+        when(changeRepository.findByIdGreaterThanOrderByIdAsc(0L)).thenReturn(List.of(change(1L, 1L)));
+        when(changeRepository.findByIdGreaterThanOrderByIdAsc(1L)).thenReturn(List.of(change(2L, 1L)));
+        when(fraudRuleRepository.findAllById(any()))
+            .thenReturn(List.of(amountRule()))
+            .thenReturn(List.of(amountRule("3000")));
+
+        // When
+        ruleSnapshotService.pollChanges();
+        long afterLocalEntry = ruleSnapshotService.getCurrentSnapshot().getVersion();
+        ruleSnapshotService.pollChanges();
+        ruleSnapshotService.applyAfterCommit(2L, 1L, amountRule("3000"));
+
+        // Then - one version per change, whichever path saw it first
+        assertEquals(2, afterLocalEntry);
+        assertEquals(3, ruleSnapshotService.getCurrentSnapshot().getVersion());
+        verify(fraudRuleRepository, times(2)).findAllById(any());
+    }
+
+    @Test
+    void pollChanges_CorrectsLocalAppliesRunOutOfCommitOrder() {
+        // Given - two edits of rule 1, the older one's after-commit apply ran last
+        when(fraudRuleRepository.findActiveRulesOrderedByPriority()).thenReturn(List.of());
+        ruleSnapshotService.refresh();
+        ruleSnapshotService.applyAfterCommit(2L, 1L, amountRule("3000"));
+        ruleSnapshotService.applyAfterCommit(1L, 1L, amountRule("2500"));
+        when(changeRepository.findByIdGreaterThanOrderByIdAsc(0L))
+            .thenReturn(List.of(change(1L, 1L), change(2L, 1L)));
+        when(fraudRuleRepository.findAllById(any())).thenReturn(List.of(amountRule("3000")));
+
+        // When
+        ruleSnapshotService.pollChanges();
+
+        // Then - the snapshot holds the rule as stored
+        RuleSnapshot snapshot = ruleSnapshotService.getCurrentSnapshot();
+        assertEquals(new BigDecimal("3000"), snapshot.getRules().get(0).getDefinition().getThresholdValue());
+        assertEquals(4, snapshot.getVersion());
+    }
+
+    private RuleSnapshot awaitVersion(long version) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        RuleSnapshot snapshot = ruleSnapshotService.getCurrentSnapshot();
+        while (snapshot.getVersion() < version && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            snapshot = ruleSnapshotService.getCurrentSnapshot();
+        }
+        assertEquals(version, snapshot.getVersion());
+        return snapshot;
+    }
+
+    private static FraudRuleChange change(Long id, Long ruleId) {
+        return new FraudRuleChange(id, ruleId, LocalDateTime.now());
+    }
+
+    private static FraudRule amountRule() {
+        return amountRule("2000");
+    }
+
+    private static FraudRule amountRule(String threshold) {
+        FraudRule rule = new FraudRule();
+        rule.setId(1L);
+        rule.setRuleName("AMOUNT_REJECT");
+        rule.setRuleType(FraudRule.RuleType.AMOUNT_THRESHOLD);
+        rule.setRuleCondition("GREATER_THAN");
+        rule.setActionType(FraudRule.ActionType.REJECT);
+        rule.setActionMessage("Amount exceeds maximum limit");
+        rule.setPriority(1);
+        rule.setIsActive(true);
+        rule.setThresholdValue(new BigDecimal(threshold));
+        return rule;
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.frauddetectionsystem.service;
+
+import com.example.frauddetectionsystem.config.FraudDetectionProperties;
+import com.example.frauddetectionsystem.domain.Transaction;
+import com.example.frauddetectionsystem.dto.TransactionStatus;
+import com.example.frauddetectionsystem.metrics.FraudDetectionMetrics;
+import com.example.frauddetectionsystem.repository.TransactionBatchWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class TransactionWriteBehindServiceTest {
+
+    @Mock
+    private TransactionBatchWriter transactionBatchWriter;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final FraudDetectionProperties properties = new FraudDetectionProperties();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final FraudDetectionMetrics metrics = new FraudDetectionMetrics(meterRegistry, properties);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties.getPersistence().setMode(FraudDetectionProperties.PersistenceMode.WRITE_BEHIND);
+        properties.getPersistence().setFallbackFile(directory.resolve("fallback.jsonl"));
+        properties.getPersistence().setRetryBackoff(Duration.ofMillis(1));
+    }
+
+    @Test
+    void testShutdown_DrainsEveryAcceptedDecision() throws Exception {
+        // Given
+        Set<String> written = ConcurrentHashMap.newKeySet();
+        AtomicInteger batches = new AtomicInteger();
+        doAnswer(invocation -> {
+            List<Transaction> batch = invocation.getArgument(0);
+            batch.forEach(t -> written.add(t.getTransactionId()));
+            batches.incrementAndGet();
+            return null;
+        }).when(transactionBatchWriter).insertAll(anyList());
+        TransactionWriteBehindService service = new TransactionWriteBehindService(
+            transactionBatchWriter, transactionManager, objectMapper, properties, metrics);
+        service.start();
+
+        // When
+        for (int i = 0; i < 5_000; i++) {
+            service.enqueue(createTransaction("tx" + i));
+        }
+        service.shutdown();
+
+        // Then - everything written, in far fewer round trips than rows
+        assertEquals(5_000, written.size());
+        assertTrue(batches.get() < 5_000, "batches: " + batches.get());
+        assertEquals(0, service.getQueueSize());
+    }
+
+    @Test
+    void testEnqueue_FullQueueWritesOnCallerThread() throws Exception {
+        // Given - a one-slot queue and a writer stuck on its first batch
+        properties.getPersistence().setQueueCapacity(1);
+        properties.getPersistence().setOfferTimeout(Duration.ofMillis(10));
+        CountDownLatch writerBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Set<String> callerWrites = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> {
+            List<Transaction> batch = invocation.getArgument(0);
+            if (Thread.currentThread().getName().equals("TransactionWriteBehind")) {
+                writerBlocked.countDown();
+                release.await();
+            } else {
+                batch.forEach(t -> callerWrites.add(t.getTransactionId()));
+            }
+            return null;
+        }).when(transactionBatchWriter).insertAll(anyList());
+        TransactionWriteBehindService service = new TransactionWriteBehindService(
+            transactionBatchWriter, transactionManager, objectMapper, properties, metrics);
+        service.start();
+
+        // When
+        service.enqueue(createTransaction("tx1"));
+        assertTrue(writerBlocked.await(5, TimeUnit.SECONDS));
+        service.enqueue(createTransaction("tx2"));
+        service.enqueue(createTransaction("tx3"));
+
+        // Then - tx2 waits in the queue, tx3 is written by the caller
+        assertEquals(Set.of("tx3"), callerWrites);
+        release.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void testEnqueueAll_WritesOverflowInOneBatch() throws Exception {
+        // Given - a one-slot queue and a writer stuck on its first batch
+        properties.getPersistence().setQueueCapacity(1);
+        properties.getPersistence().setOfferTimeout(Duration.ofMillis(10));
+        CountDownLatch writerBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<List<String>> callerBatches = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<Transaction> batch = invocation.getArgument(0);
+            if (Thread.currentThread().getName().equals("TransactionWriteBehind")) {
+                writerBlocked.countDown();
+                release.await();
+            } else {
+                callerBatches.add(batch.stream().map(Transaction::getTransactionId).toList());
+            }
+            return null;
+        }).when(transactionBatchWriter).insertAll(anyList());
+        TransactionWriteBehindService service = new TransactionWriteBehindService(
+            transactionBatchWriter, transactionManager, objectMapper, properties, metrics);
+        service.start();
+        service.enqueue(createTransaction("tx1"));
+        assertTrue(writerBlocked.await(5, TimeUnit.SECONDS));
+
+        // When
+        service.enqueueAll(List.of(createTransaction("tx2"), createTransaction("tx3"), createTransaction("tx4")));
+
+        // Then - tx2 waits in the queue, the rest go out together
+        assertEquals(List.of(List.of("tx3", "tx4")), callerBatches);
+        release.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void testShutdown_ConcurrentEnqueuesAreNeverLost() throws Exception {
+        // Given - producers still enqueueing while the service shuts down
+        Set<String> written = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> {
+            List<Transaction> batch = invocation.getArgument(0);
+            batch.forEach(t -> written.add(t.getTransactionId()));
+            return null;
+        }).when(transactionBatchWriter).insertAll(anyList());
+        TransactionWriteBehindService service = new TransactionWriteBehindService(
+            transactionBatchWriter, transactionManager, objectMapper, properties, metrics);
+        service.start();
+        Set<String> enqueued = ConcurrentHashMap.newKeySet();
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        CountDownLatch started = new CountDownLatch(4);
+        for (int p = 0; p < 4; p++) {
+            int producer = p;
+            producers.execute(() -> {
+                started.countDown();
+                for (int i = 0; i < 20_000; i++) {
+                    String id = "tx" + producer + "-" + i;
+                    service.enqueue(createTransaction(id));
+                    enqueued.add(id);
+                }
+            });
+        }
+
+        // When
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        service.shutdown();
+        producers.shutdown();
+        assertTrue(producers.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Then - every returned enqueue was written, before or after the writer stopped
+        assertTrue(written.containsAll(enqueued));
+        assertEquals(0, service.getQueueSize());
+    }
+
+    @Test
+    void testWrite_DuplicateRowIsCountedNotRetried() throws Exception {
+        // Given - batches with tx2 fail, and so does tx2 on its own
+        doAnswer(invocation -> {
+            List<Transaction> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(t -> t.getTransactionId().equals("tx2"))) {
+                throw new DataIntegrityViolationException("Unique index or primary key violation");
+            }
+            return null;
+        }).when(transactionBatchWriter).insertAll(anyList());
+        TransactionWriteBehindService service = new TransactionWriteBehindService(
+            transactionBatchWriter, transactionManager, objectMapper, properties, metrics);
+        service.start();
+
+        // When
+        service.enqueueAll(List.of(createTransaction("tx1"), createTransaction("tx2"), createTransaction("tx3")));
+        service.shutdown();
+
+        // Then - one batch attempt, then tx1, tx2 and tx3 on their own
+        assertEquals(1, meterRegistry.get("fraud.persistence.failed").counter().count());
+        verify(transactionBatchWriter, times(4)).insertAll(anyList());
+        assertFalse(Files.exists(directory.resolve("fallback.jsonl")));
+    }
+
+    @Test
+    void testWrite_TransientFailuresAreRetriedUntilEveryRowLands() throws Exception {
+        // Given - the first three inserts fail, as while the database fails over
+        Set<String> written = ConcurrentHashMap.newKeySet();
+        List<String> attempts = new CopyOnWriteArrayList<>();
+        AtomicInteger failuresLeft = new AtomicInteger(3);
+        doAnswer(invocation -> {
+            List<Transaction> batch = invocation.getArgument(0);
+            attempts.add(batch.get(0).getTransactionId());
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new CannotGetJdbcConnectionException("Connection is not available");
+            }
+            batch.forEach(t -> written.add(t.getTransactionId()));
+            return null;
+        }).when(transactionBatchWriter).insertAll(anyList());
+        TransactionWriteBehindService service = new TransactionWriteBehindService(
+            transactionBatchWriter, transactionManager, objectMapper, properties, metrics);
+        service.start();
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            service.enqueue(createTransaction("tx" + i));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (written.size() < 100 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        service.shutdown();
+
+        // Then - nothing lost or counted, and the failed batch was retried before anything else
+        assertEquals(100, written.size());
+        assertEquals(List.of("tx0", "tx0", "tx0", "tx0"), attempts.subList(0, 4));
+        assertEquals(0, meterRegistry.find("fraud.persistence.failed").counter().count());
+        assertFalse(Files.exists(directory.resolve("fallback.jsonl")));
+    }
+
+    @Test
+    void testShutdown_UnwrittenRowsGoToFallbackFileAndAreRequeuedOnStart() throws Exception {
+        // Given - the database is down for the whole run
+        doThrow(new CannotGetJdbcConnectionException("Connection is not available"))
+            .when(transactionBatchWriter).insertAll(anyList());
+        TransactionWriteBehindService service = new TransactionWriteBehindService(
+            transactionBatchWriter, transactionManager, objectMapper, properties, metrics);
+        service.start();
+        service.enqueueAll(List.of(createTransaction("tx1"), createTransaction("tx2"), createTransaction("tx3")));
+        service.shutdown();
+        assertTrue(Files.exists(directory.resolve("fallback.jsonl")));
+
+        // When - the next run finds the database back
+        Set<String> written = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> {
+            List<Transaction> batch = invocation.getArgument(0);
+            batch.forEach(t -> written.add(t.getTransactionId() + ":" + t.getStatus()));
+            return null;
+        }).when(transactionBatchWriter).insertAll(anyList());
+        TransactionWriteBehindService restarted = new TransactionWriteBehindService(
+            transactionBatchWriter, transactionManager, objectMapper, properties, metrics);
+        restarted.start();
+        restarted.shutdown();
+
+        // Then
+        assertEquals(Set.of("tx1:APPROVED", "tx2:APPROVED", "tx3:APPROVED"), written);
+        assertFalse(Files.exists(directory.resolve("fallback.jsonl")));
+        assertEquals(0, meterRegistry.find("fraud.persistence.failed").counter().count());
+    }
+
+    @Test
+    void testEnqueue_DisabledModeNeverStartsWriter() throws Exception {
+        properties.getPersistence().setMode(FraudDetectionProperties.PersistenceMode.SYNC);
+        TransactionWriteBehindService service = new TransactionWriteBehindService(
+            transactionBatchWriter, transactionManager, objectMapper, properties, metrics);
+        service.start();
+
+        assertFalse(service.isEnabled());
+        service.shutdown();
+        verifyNoInteractions(transactionBatchWriter);
+    }
+
+    private Transaction createTransaction(String transactionId) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(transactionId);
+        transaction.setAmount(new BigDecimal("100"));
+        transaction.setStatus(TransactionStatus.APPROVED);
+        transaction.setStatusReason("All checks passed");
+        return transaction;
+    }
+}